@@ -0,0 +1,33 @@
+package parselang.benchmarks;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Locates the ParseLang files used by the benchmarks. Paths are relative to the root of the repository, which is the
+ * working directory unless the system property parselang.root says otherwise.
+ */
+final class BenchmarkFiles {
+
+    static final String STRESS_TESTS = "src/test/resources/system/parseLangV1/stresstesting/";
+
+    private BenchmarkFiles() {
+    }
+
+    /**
+     * Reads a file of the repository
+     * @param relativePath path relative to the root of the repository
+     * @return contents of the file
+     */
+    static String read(String relativePath) {
+        Path path = Paths.get(System.getProperty("parselang.root", ".")).resolve(relativePath);
+        try {
+            return Files.readString(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read " + path.toAbsolutePath() + ", run the benchmarks from the repository root or set -Dparselang.root", e);
+        }
+    }
+}
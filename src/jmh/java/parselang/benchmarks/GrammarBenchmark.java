@@ -0,0 +1,87 @@
+package parselang.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import parselang.languages.Language;
+import parselang.languages.ParseLangV1;
+import parselang.parser.ParseRuleStorage;
+import parselang.parser.data.*;
+import parselang.parser.rulealgorithms.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static parselang.parser.ParseRuleStorage.*;
+
+/**
+ * Benchmarks preparing the ParseLang grammar and the FIRST, FOLLOW and FIRST+ calculations it consists of. The grammar
+ * is extended with a number of extra rules, as user declarations would do, to see how the calculations scale.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GrammarBenchmark {
+
+    private static final NonTerminal TOPLEVEL = nonTerm("HighLevel");
+
+    @Param({"0", "25", "100"})
+    public int extraRules;
+
+    private Language language;
+    private Map<NonTerminal, List<ParseRule>> rules;
+    private Set<Terminal> terminals;
+    private Set<NonTerminal> nonTerminals;
+    private Map<Node, Set<Character>> first;
+    private Map<Node, Set<Character>> follow;
+
+    @Setup
+    public void setup() {
+        List<ParseRule> languageRules = new ArrayList<>(new ParseLangV1().getRules());
+        for (int i = 0; i < extraRules; i++) {
+            languageRules.add(new ParseRule("Expression").addRhs(nonTerm("Extra" + i)));
+            languageRules.add(new ParseRule("Extra" + i).addRhs(term("extra" + i), ws(), star(nonTerm("Expression"), ws())));
+        }
+        language = () -> languageRules;
+        ParseRuleStorage storage = new ParseRuleStorage();
+        storage.prepare(language, TOPLEVEL);
+        nonTerminals = new HashSet<>(storage.getAllNonTerminals());
+        rules = new HashMap<>();
+        terminals = new HashSet<>();
+        for (NonTerminal nonTerminal : nonTerminals) {
+            rules.put(nonTerminal, new ArrayList<>(storage.getRules(nonTerminal)));
+            for (ParseRule rule : storage.getRules(nonTerminal)) {
+                for (Node node : rule.getRHS()) {
+                    if (node instanceof Terminal) {
+                        terminals.add((Terminal) node);
+                    }
+                }
+            }
+        }
+        first = new NaiveFirstCalculator().computeFirst(rules, terminals, nonTerminals);
+        follow = new NaiveFollowCalculator().computeFollow(TOPLEVEL, first, rules, nonTerminals);
+    }
+
+    @Benchmark
+    public ParseRuleStorage prepare() {
+        ParseRuleStorage storage = new ParseRuleStorage();
+        storage.prepare(language, TOPLEVEL);
+        return storage;
+    }
+
+    @Benchmark
+    public Map<Node, Set<Character>> first() {
+        return new NaiveFirstCalculator().computeFirst(rules, terminals, nonTerminals);
+    }
+
+    @Benchmark
+    public Map<Node, Set<Character>> follow() {
+        return new NaiveFollowCalculator().computeFollow(TOPLEVEL, first, rules, nonTerminals);
+    }
+
+    @Benchmark
+    public Map<NonTerminal, Map<Character, TreeSet<ParseRule>>> firstPlus() {
+        return new NaiveFirstPlusCalculator().computeFirstPlus(rules, first, follow, nonTerminals);
+    }
+}
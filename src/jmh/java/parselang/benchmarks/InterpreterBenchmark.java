@@ -0,0 +1,57 @@
+package parselang.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import parselang.interpreter.CompiledProgram;
+import parselang.interpreter.Interpreter;
+import parselang.interpreter.data.PLData;
+import parselang.languages.ParseLangV1;
+import parselang.parser.ParseRuleStorage;
+import parselang.parser.data.AST;
+import parselang.parser.data.NonTerminal;
+import parselang.parser.exceptions.ParseErrorException;
+import parselang.parser.parsers.Parser;
+import parselang.parser.parsers.RecursiveParser;
+
+import java.util.concurrent.TimeUnit;
+
+import static parselang.parser.ParseRuleStorage.nonTerm;
+
+/**
+ * Benchmarks interpreting parsed programs, both with a program that is compiled once and including compilation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InterpreterBenchmark {
+
+    private static final NonTerminal TOPLEVEL = nonTerm("HighLevel");
+
+    @Param({"examples/gcd.plang", "examples/forloop.plang", "examples/concat.plang"})
+    public String file;
+
+    private AST tree;
+    private CompiledProgram program;
+
+    @Setup
+    public void setup() throws ParseErrorException {
+        ParseRuleStorage storage = new ParseRuleStorage();
+        storage.prepare(new ParseLangV1(), TOPLEVEL);
+        Parser parser = new RecursiveParser();
+        parser.setVerbosity(0);
+        tree = parser.readFile(BenchmarkFiles.read(file), storage, TOPLEVEL).getTree();
+        program = CompiledProgram.compile(tree);
+    }
+
+    @Benchmark
+    public PLData run() {
+        return new Interpreter(program).run();
+    }
+
+    @Benchmark
+    public PLData compileAndRun() {
+        return new Interpreter(CompiledProgram.compile(tree)).run();
+    }
+}
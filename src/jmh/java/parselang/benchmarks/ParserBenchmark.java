@@ -0,0 +1,62 @@
+package parselang.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import parselang.languages.ParseLangV1;
+import parselang.parser.ParseRuleStorage;
+import parselang.parser.data.NonTerminal;
+import parselang.parser.exceptions.ParseErrorException;
+import parselang.parser.parsers.Parser;
+import parselang.parser.parsers.RecursiveParser;
+
+import java.util.concurrent.TimeUnit;
+
+import static parselang.parser.ParseRuleStorage.nonTerm;
+
+/**
+ * Benchmarks parsing complete files with a copy of a prepared grammar. Files that cannot be parsed, such as some of
+ * the stress tests, are measured up to the moment the parser gives up.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xss16m")
+public class ParserBenchmark {
+
+    private static final NonTerminal TOPLEVEL = nonTerm("HighLevel");
+
+    @Param({
+            "examples/concat.plang",
+            "examples/doublequotes.plang",
+            "examples/forloop.plang",
+            "examples/gcd.plang",
+            "examples/madness.plang",
+            "examples/playground.plang",
+            "examples/test-backup.plang",
+            BenchmarkFiles.STRESS_TESTS + "manyDecls.plang",
+            BenchmarkFiles.STRESS_TESTS + "complexDecl.plang"
+    })
+    public String file;
+
+    private ParseRuleStorage base;
+    private String source;
+
+    @Setup
+    public void setup() {
+        base = new ParseRuleStorage();
+        base.prepare(new ParseLangV1(), TOPLEVEL);
+        source = BenchmarkFiles.read(file);
+    }
+
+    @Benchmark
+    public Object readFile() {
+        Parser parser = new RecursiveParser();
+        parser.setVerbosity(0);
+        try {
+            return parser.readFile(source, new ParseRuleStorage(base), TOPLEVEL);
+        } catch (ParseErrorException | StackOverflowError e) {
+            return e;
+        }
+    }
+}
@@ -1,25 +1,278 @@
+import parselang.governor.ResourceGovernor;
 import parselang.interpreter.Interpreter;
+import parselang.interpreter.profiling.DeclarationProfile;
+import parselang.interpreter.profiling.DeclarationProfiler;
 import parselang.languages.ParseLangV1;
+import parselang.modules.Module;
+import parselang.modules.ProgramImage;
 import parselang.parser.ParseResult;
 import parselang.parser.ParseRuleStorage;
+import parselang.parser.analysis.GrammarAnalyzer;
+import parselang.parser.analysis.GrammarIssue;
+import parselang.parser.analysis.GrammarReport;
+import parselang.parser.data.AST;
 import parselang.parser.data.NonTerminal;
+import parselang.parser.data.ParseRule;
+import parselang.parser.exceptions.ParseErrorException;
 import parselang.parser.parsers.Parser;
 import parselang.parser.parsers.RecursiveParser;
+import parselang.parser.profiling.ParseProfile;
+import parselang.parser.profiling.ParseProfiler;
+import parselang.parser.profiling.ParseTrace;
+import parselang.parser.profiling.TraceDumper;
+import parselang.runner.BatchRunner;
+import parselang.runner.FileResult;
+import parselang.util.AllocationRecorder;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static parselang.parser.ParseRuleStorage.nonTerm;
 
 public class Main {
 
+    /**
+     * Runs the demo programs, or, when arguments are given, runs a batch of files:
+     * [--threads n] [--virtual] [--module compiledModule]... [--profile] [--profile-csv file]
+     * [--profile-declarations collapsedStacksFile] [--allocations] [--max-rule-attempts n] [--max-steps n]
+     * [--max-depth n] [--max-time ms] [--max-bytes n] (file | directory)...
+     * or compiles a file of declarations into a module: --compile-module source target
+     * or parses a program into an image: [--module compiledModule]... --compile source target
+     * or runs an image, checking that it is up to date if the source is given: --run image [source]
+     * or parses a file while tracing the parser, writing the trace in Chrome trace event format: --trace source target
+     * or parses a file while analyzing the grammar after every declaration: --analyze-grammar source
+     * @param args command line arguments
+     * @throws IOException if a file or directory could not be read
+     */
     public static void main(String[] args) throws IOException {
-        runDemo("examples/doublequotes.plang");
-        runDemo("examples/forloop.plang");
-        runDemo("examples/madness.plang");
-        runDemo("examples/gcd.plang");
-        runDemo("examples/concat.plang");
+        if (args.length == 3 && args[0].equals("--compile-module")) {
+            compileModule(Paths.get(args[1]), Paths.get(args[2]));
+        } else if (args.length >= 3 && args[args.length - 3].equals("--compile")) {
+            compileImage(args);
+        } else if (args.length == 3 && args[0].equals("--trace")) {
+            traceParse(Paths.get(args[1]), Paths.get(args[2]));
+        } else if (args.length == 2 && args[0].equals("--analyze-grammar")) {
+            analyzeGrammar(Paths.get(args[1]));
+        } else if ((args.length == 2 || args.length == 3) && args[0].equals("--run")) {
+            runImage(Paths.get(args[1]), args.length == 3 ? Paths.get(args[2]) : null);
+        } else if (args.length > 0) {
+            runBatch(args);
+        } else {
+            runDemo("examples/doublequotes.plang");
+            runDemo("examples/forloop.plang");
+            runDemo("examples/madness.plang");
+            runDemo("examples/gcd.plang");
+            runDemo("examples/concat.plang");
+        }
+    }
+
+    private static void compileModule(Path source, Path target) throws IOException {
+        ParseRuleStorage storage = new ParseRuleStorage();
+        storage.prepare(new ParseLangV1(), new NonTerminal("HighLevel", false));
+        //the module is compiled in memory first, such that a failed compilation does not leave an empty target behind
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            Module.compile(Files.readString(source), storage).write(out);
+        } catch (Exception e) {
+            System.out.println("> " + e.getMessage());
+            e.printStackTrace();
+            System.exit(1);
+        }
+        Files.write(target, out.toByteArray());
+    }
+
+    private static void compileImage(String[] args) throws IOException {
+        ParseRuleStorage storage = new ParseRuleStorage();
+        storage.prepare(new ParseLangV1(), new NonTerminal("HighLevel", false));
+        Map<ParseRule, AST> imported = new HashMap<>();
+        for (int i = 0; i < args.length - 3; i++) {
+            if (args[i].equals("--module")) {
+                try (InputStream in = Files.newInputStream(Paths.get(args[++i]))) {
+                    Module module = Module.read(in);
+                    module.applyTo(storage);
+                    imported.putAll(module.getDeclarations());
+                }
+            }
+        }
+        Parser parser = new RecursiveParser();
+        parser.setVerbosity(0);
+        //like modules, the image is only written once the program has been parsed
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            String program = Files.readString(Paths.get(args[args.length - 2]));
+            new ProgramImage(parser.readFile(program, storage, nonTerm("HighLevel")).getTree(), imported).write(out);
+        } catch (Exception e) {
+            System.out.println("> " + e.getMessage());
+            e.printStackTrace();
+            System.exit(1);
+        }
+        Files.write(Paths.get(args[args.length - 1]), out.toByteArray());
+    }
+
+    private static void runImage(Path imagePath, Path sourcePath) throws IOException {
+        long start = System.nanoTime();
+        ProgramImage image;
+        try (InputStream in = Files.newInputStream(imagePath)) {
+            image = ProgramImage.read(in);
+        }
+        if (sourcePath != null && !image.isImageOf(Files.readString(sourcePath))) {
+            System.out.println("> " + imagePath + " is out of date, compile " + sourcePath + " again");
+            return;
+        }
+        long loaded = System.nanoTime();
+        System.out.println("> " + new Interpreter(image.compile()).run());
+        System.out.println("load " + (loaded - start) / 1_000_000 + " ms, run " + (System.nanoTime() - loaded) / 1_000_000 + " ms");
+    }
+
+    private static void traceParse(Path source, Path target) throws IOException {
+        ParseRuleStorage storage = new ParseRuleStorage();
+        storage.prepare(new ParseLangV1(), new NonTerminal("HighLevel", false));
+        Parser parser = new RecursiveParser();
+        parser.setVerbosity(0);
+        ParseTrace trace = new ParseTrace(1 << 20);
+        parser.setTrace(trace);
+        try {
+            parser.readFile(Files.readString(source), storage, nonTerm("HighLevel"));
+            System.out.println("> parsed");
+        } catch (ParseErrorException e) {
+            System.out.println("> " + e.getMessage());
+        }
+        System.out.print(TraceDumper.render(trace, trace.getRecorded() - 40, 40));
+        try (Writer out = Files.newBufferedWriter(target)) {
+            TraceDumper.writeChromeTrace(trace, out);
+        }
+        System.out.println(trace.getRecorded() + " events, last " + (trace.getRecorded() - trace.getFirstKept()) + " written to " + target);
+    }
+
+    private static void analyzeGrammar(Path source) throws IOException {
+        GrammarAnalyzer analyzer = new GrammarAnalyzer();
+        AtomicReference<GrammarReport> previous = new AtomicReference<>();
+        analyzer.setListener(report -> {
+            if (previous.get() == null) {
+                System.out.print(report.toText(20));
+            } else {
+                for (GrammarIssue issue : report.getIssuesNotIn(previous.get())) {
+                    System.out.println("new: " + issue);
+                }
+            }
+            previous.set(report);
+        });
+        ParseRuleStorage storage = new ParseRuleStorage();
+        storage.setAnalyzer(analyzer);
+        storage.prepare(new ParseLangV1(), new NonTerminal("HighLevel", false));
+        Parser parser = new RecursiveParser();
+        parser.setVerbosity(0);
+        try {
+            parser.readFile(Files.readString(source), storage, nonTerm("HighLevel"));
+            System.out.println("> parsed");
+        } catch (ParseErrorException e) {
+            System.out.println("> " + e.getMessage());
+        }
+    }
+
+    private static void runBatch(String[] args) throws IOException {
+        BatchRunner runner = new BatchRunner();
+        List<Path> files = new ArrayList<>();
+        ParseProfiler profiler = null;
+        Path profileCsv = null;
+        DeclarationProfiler declarationProfiler = null;
+        Path collapsedStacks = null;
+        AllocationRecorder allocationRecorder = null;
+        Map<String, Long> limits = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--profile") || args[i].equals("--profile-csv")) {
+                profiler = profiler == null ? new ParseProfiler() : profiler;
+                runner.setProfiler(profiler);
+                if (args[i].equals("--profile-csv")) {
+                    profileCsv = Paths.get(args[++i]);
+                }
+            } else if (args[i].equals("--profile-declarations")) {
+                declarationProfiler = new DeclarationProfiler();
+                runner.setDeclarationProfiler(declarationProfiler);
+                collapsedStacks = Paths.get(args[++i]);
+            } else if (args[i].equals("--allocations")) {
+                allocationRecorder = new AllocationRecorder();
+                runner.setAllocationRecorder(allocationRecorder);
+            } else if (args[i].startsWith("--max-")) {
+                limits.put(args[i], Long.parseLong(args[++i]));
+            } else if (args[i].equals("--threads")) {
+                runner.setParallelism(Integer.parseInt(args[++i]));
+            } else if (args[i].equals("--virtual")) {
+                runner.setVirtualThreads(true);
+            } else if (args[i].equals("--module")) {
+                try (InputStream in = Files.newInputStream(Paths.get(args[++i]))) {
+                    runner.addModule(Module.read(in));
+                }
+            } else {
+                files.addAll(BatchRunner.collect(Paths.get(args[i])));
+            }
+        }
+        boolean virtual = runner.isUsingVirtualThreads();
+        if (virtual && limits.containsKey("--max-bytes")) {
+            throw new IllegalArgumentException("--max-bytes can not be combined with --virtual, the bytes allocated by virtual threads are not measured");
+        } else if (virtual && allocationRecorder != null) {
+            System.err.println("Warning: the bytes allocated by virtual threads are not measured, --allocations only counts objects");
+        }
+        if (!limits.isEmpty()) {
+            runner.setGovernors(() -> createGovernor(limits));
+        }
+        long start = System.nanoTime();
+        List<FileResult> results = runner.run(files);
+        long elapsed = System.nanoTime() - start;
+        results.forEach(System.out::println);
+        long failed = results.stream().filter(result -> !result.isSuccess()).count();
+        System.out.println(results.size() + " files, " + failed + " failed, " + elapsed / 1_000_000 + " ms");
+        if (profileCsv != null) {
+            Files.writeString(profileCsv, profiler.snapshot().toCsv(ParseProfile.BY_TIME));
+        } else if (profiler != null) {
+            System.out.println(profiler.snapshot().toText(ParseProfile.BY_TIME, 20));
+        }
+        if (declarationProfiler != null) {
+            DeclarationProfile profile = declarationProfiler.snapshot();
+            System.out.println(profile.toText(DeclarationProfile.BY_EXCLUSIVE_TIME, 20));
+            try (Writer out = Files.newBufferedWriter(collapsedStacks)) {
+                profile.writeCollapsed(out);
+            }
+        }
+        if (allocationRecorder != null) {
+            System.out.println(allocationRecorder.snapshot().toText(20));
+        }
+    }
+
+    private static ResourceGovernor createGovernor(Map<String, Long> limits) {
+        ResourceGovernor governor = new ResourceGovernor();
+        limits.forEach((option, limit) -> {
+            switch (option) {
+                case "--max-rule-attempts":
+                    governor.setMaxRuleAttempts(limit);
+                    break;
+                case "--max-steps":
+                    governor.setMaxSteps(limit);
+                    break;
+                case "--max-depth":
+                    governor.setMaxDepth(Math.toIntExact(limit));
+                    break;
+                case "--max-time":
+                    governor.setMaxTime(limit);
+                    break;
+                case "--max-bytes":
+                    governor.setMaxAllocatedBytes(limit);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown limit " + option);
+            }
+        });
+        return governor;
     }
 
     private static void runDemo(String path) throws IOException {
@@ -0,0 +1,22 @@
+package parselang.events;
+
+import jdk.jfr.*;
+
+/**
+ * Flight recorder event of the execution of the body of a user declaration. Calls in tail position are separate events
+ * at the same depth as the call they replace.
+ */
+@Name("parselang.DeclarationCall")
+@Label("Declaration Call")
+@Category({"ParseLang", "Interpreter"})
+@Description("Execution of the body of a user declaration")
+@StackTrace(false)
+public class DeclarationCallEvent extends Event {
+
+    @Label("Declaration")
+    public String declaration;
+
+    @Label("Depth")
+    @Description("Number of declarations being executed, including this one")
+    public int depth;
+}
@@ -0,0 +1,28 @@
+package parselang.events;
+
+import jdk.jfr.*;
+
+/**
+ * Flight recorder event of a change to the grammar of a ParseRuleStorage, lasting as long as the lookahead sets are
+ * recalculated
+ */
+@Name("parselang.GrammarUpdate")
+@Label("Grammar Update")
+@Category({"ParseLang", "Parser"})
+@Description("Recalculation of the FIRST+ sets after the grammar changed")
+public class GrammarUpdateEvent extends Event {
+
+    @Label("Change")
+    @Description("Kind of change to the grammar")
+    public String change;
+
+    @Label("Nonterminals")
+    public int nonTerminals;
+
+    @Label("Rules")
+    public int rules;
+
+    @Label("Custom Rules")
+    @Description("Number of rules added by user declarations")
+    public int customRules;
+}
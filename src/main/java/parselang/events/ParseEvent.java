@@ -0,0 +1,30 @@
+package parselang.events;
+
+import jdk.jfr.*;
+
+/**
+ * Flight recorder event of parsing an entire string, such as a file
+ */
+@Name("parselang.Parse")
+@Label("Parse")
+@Category({"ParseLang", "Parser"})
+@Description("Parsing of an entire string into a nonterminal")
+public class ParseEvent extends Event {
+
+    @Label("Nonterminal")
+    public String nonTerminal;
+
+    @Label("Length")
+    @DataAmount(DataAmount.BYTES)
+    public int length;
+
+    @Label("Parsed")
+    @Description("Whether the string could be parsed")
+    public boolean parsed;
+
+    @Label("Memo Lookups")
+    public long memoLookups;
+
+    @Label("Memo Hits")
+    public long memoHits;
+}
@@ -0,0 +1,20 @@
+package parselang.events;
+
+import jdk.jfr.*;
+
+/**
+ * Flight recorder event of the execution of an entire program by an interpreter
+ */
+@Name("parselang.ProgramExecution")
+@Label("Program Execution")
+@Category({"ParseLang", "Interpreter"})
+@Description("Execution of the expression of a program")
+public class ProgramExecutionEvent extends Event {
+
+    @Label("Declarations")
+    public int declarations;
+
+    @Label("Result Type")
+    @Description("Type of the value the program returned, or null if it failed")
+    public String resultType;
+}
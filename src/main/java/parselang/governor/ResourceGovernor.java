@@ -0,0 +1,207 @@
+package parselang.governor;
+
+import parselang.governor.ResourceLimitExceededException.Resource;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Limits the resources parsing and interpreting a program may use, such that untrusted programs can not run away with
+ * a worker. A governor can be given to a parser and to an interpreter, which report every rule attempt, step and level
+ * of recursion to it. Counts and depth are checked on every report, time and allocated bytes periodically. All
+ * resources are unlimited until a limit is set. When a limit is exceeded, a ResourceLimitExceededException is thrown.
+ * <p>
+ * A governor accounts for a single job, from the moment it is started or first used, and must only be used by one
+ * thread at a time. Use a new governor, or start it again, for every job.
+ */
+public class ResourceGovernor {
+
+    private static final int CHECK_INTERVAL = 1 << 10;
+    private static final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+    private long maxRuleAttempts = Long.MAX_VALUE;
+    private long maxSteps = Long.MAX_VALUE;
+    private int maxDepth = Integer.MAX_VALUE;
+    private long maxMillis = Long.MAX_VALUE;
+    private long maxAllocatedBytes = Long.MAX_VALUE;
+
+    private boolean started = false;
+    private long ruleAttempts;
+    private long steps;
+    private int depth;
+    private int untilCheck;
+    private long startNanos;
+    private long startBytes;
+
+    /**
+     * Sets the maximum number of parse rules that may be attempted
+     * @param maxRuleAttempts the maximum
+     */
+    public void setMaxRuleAttempts(long maxRuleAttempts) {
+        this.maxRuleAttempts = requirePositive(maxRuleAttempts, "Maximum number of rule attempts");
+    }
+
+    /**
+     * Sets the maximum number of steps interpreters may make, where every evaluation of a node of an AST is a step
+     * @param maxSteps the maximum
+     */
+    public void setMaxSteps(long maxSteps) {
+        this.maxSteps = requirePositive(maxSteps, "Maximum number of steps");
+    }
+
+    /**
+     * Sets how deep parsers and interpreters may recurse, counted in nested nodes that are parsed or evaluated. A
+     * limit that is reached before the stack overflows turns a StackOverflowError into a clean exception. Parsers use
+     * roughly a kilobyte of stack per level, so the limit should be chosen together with the stack size of the
+     * thread that parses.
+     * @param maxDepth the maximum depth
+     */
+    public void setMaxDepth(int maxDepth) {
+        this.maxDepth = (int) requirePositive(maxDepth, "Maximum depth");
+    }
+
+    /**
+     * Sets how long a job may take, counted from the moment the governor was started
+     * @param maxMillis the maximum time in milliseconds
+     */
+    public void setMaxTime(long maxMillis) {
+        this.maxMillis = requirePositive(maxMillis, "Maximum time");
+    }
+
+    /**
+     * Sets approximately how many bytes a job may allocate. The runtime has to measure the allocations of the thread
+     * that runs the job, which is not the case for virtual threads.
+     * @param maxAllocatedBytes the maximum number of bytes
+     */
+    public void setMaxAllocatedBytes(long maxAllocatedBytes) {
+        this.maxAllocatedBytes = requirePositive(maxAllocatedBytes, "Maximum number of allocated bytes");
+    }
+
+    /**
+     * Starts accounting for a new job on the current thread, forgetting everything used before
+     * @throws IllegalStateException if allocated bytes are limited, but the runtime does not measure them for the
+     * current thread
+     */
+    public void start() {
+        ruleAttempts = 0;
+        steps = 0;
+        depth = 0;
+        startClock();
+    }
+
+    /**
+     * Records that a parse rule is attempted. Called by parsers.
+     * @throws ResourceLimitExceededException if a limit is exceeded
+     */
+    public void ruleAttempted() {
+        if (++ruleAttempts > maxRuleAttempts) {
+            throw new ResourceLimitExceededException(Resource.RULE_ATTEMPTS, maxRuleAttempts, ruleAttempts);
+        }
+        tick();
+    }
+
+    /**
+     * Records that an interpreter makes a step. Called by interpreters.
+     * @throws ResourceLimitExceededException if a limit is exceeded
+     */
+    public void stepped() {
+        if (++steps > maxSteps) {
+            throw new ResourceLimitExceededException(Resource.STEPS, maxSteps, steps);
+        }
+        tick();
+    }
+
+    /**
+     * Records that a parser or interpreter recurses one level deeper. Every call must be followed by a call to
+     * {@link #exit()}, also when an exception is thrown. Called by parsers and interpreters.
+     * @throws ResourceLimitExceededException if a limit is exceeded, in which case exit must not be called
+     */
+    public void enter() {
+        if (++depth > maxDepth) {
+            depth--;
+            throw new ResourceLimitExceededException(Resource.DEPTH, maxDepth, maxDepth + 1);
+        }
+    }
+
+    /**
+     * Records that a parser or interpreter returns one level. Called by parsers and interpreters.
+     */
+    public void exit() {
+        depth--;
+    }
+
+    /**
+     * Returns the number of parse rules attempted since the governor was started
+     * @return the number of rule attempts
+     */
+    public long getRuleAttempts() {
+        return ruleAttempts;
+    }
+
+    /**
+     * Returns the number of interpreter steps made since the governor was started
+     * @return the number of steps
+     */
+    public long getSteps() {
+        return steps;
+    }
+
+    /**
+     * Returns the current depth of recursion
+     * @return the depth
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    private void tick() {
+        if (--untilCheck <= 0) {
+            check();
+        }
+    }
+
+    private void check() {
+        if (!started) {
+            startClock();
+            return;
+        }
+        untilCheck = CHECK_INTERVAL;
+        if (maxMillis != Long.MAX_VALUE) {
+            long millis = (System.nanoTime() - startNanos) / 1_000_000;
+            if (millis > maxMillis) {
+                throw new ResourceLimitExceededException(Resource.TIME, maxMillis, millis);
+            }
+        }
+        if (maxAllocatedBytes != Long.MAX_VALUE) {
+            long bytes = allocatedBytes() - startBytes;
+            if (bytes > maxAllocatedBytes) {
+                throw new ResourceLimitExceededException(Resource.ALLOCATED_BYTES, maxAllocatedBytes, bytes);
+            }
+        }
+    }
+
+    private void startClock() {
+        started = true;
+        untilCheck = CHECK_INTERVAL;
+        startNanos = System.nanoTime();
+        startBytes = allocatedBytes();
+        if (maxAllocatedBytes != Long.MAX_VALUE && startBytes < 0) {
+            throw new IllegalStateException("Allocated bytes are limited, but can not be measured on thread "
+                    + Thread.currentThread() + ", which may be a virtual thread");
+        }
+    }
+
+    private static long allocatedBytes() {
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    private static long requirePositive(long value, String what) {
+        if (value <= 0) {
+            throw new IllegalArgumentException(what + " must be positive, got " + value);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,77 @@
+package parselang.governor;
+
+/**
+ * Exception thrown when parsing or interpreting a program uses more of a resource than its ResourceGovernor allows.
+ * Parsing or interpreting is aborted, and can not be resumed.
+ */
+public class ResourceLimitExceededException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Resources that can be limited
+     */
+    public enum Resource {
+        RULE_ATTEMPTS("rule attempts"),
+        STEPS("interpreter steps"),
+        DEPTH("recursion depth"),
+        TIME("milliseconds"),
+        ALLOCATED_BYTES("allocated bytes");
+
+        private final String description;
+
+        Resource(String description) {
+            this.description = description;
+        }
+
+        /**
+         * @inheritDoc
+         */
+        @Override
+        public String toString() {
+            return description;
+        }
+    }
+
+    private final Resource resource;
+    private final long limit;
+    private final long used;
+
+    /**
+     * Creates a new ResourceLimitExceededException
+     * @param resource resource that was exhausted
+     * @param limit maximum that was allowed
+     * @param used amount that was used when the limit was noticed
+     */
+    public ResourceLimitExceededException(Resource resource, long limit, long used) {
+        super("Limit of " + limit + " " + resource + " exceeded: used " + used);
+        this.resource = resource;
+        this.limit = limit;
+        this.used = used;
+    }
+
+    /**
+     * Returns the resource that was exhausted
+     * @return the resource
+     */
+    public Resource getResource() {
+        return resource;
+    }
+
+    /**
+     * Returns the maximum that was allowed
+     * @return the limit
+     */
+    public long getLimit() {
+        return limit;
+    }
+
+    /**
+     * Returns the amount that was used when the limit was noticed, which may be somewhat higher than the limit for
+     * resources that are checked periodically
+     * @return the amount used
+     */
+    public long getUsed() {
+        return used;
+    }
+}
@@ -0,0 +1,206 @@
+package parselang.interpreter;
+
+import parselang.interpreter.data.PLData;
+import parselang.parser.data.*;
+import parselang.util.DeclarationTree;
+
+import java.util.*;
+
+import static parselang.parser.ParseRuleStorage.nonTerm;
+
+/**
+ * A ParseLang program that is ready to be executed: its user declarations are registered and analysed, and everything
+ * that does not depend on a particular execution is evaluated in advance. Compiling does not modify the parsed tree,
+ * and a CompiledProgram is not modified after it has been compiled: state of an execution, such as stored data and
+ * inline caches, is kept by its interpreter. A CompiledProgram can therefore be executed by multiple interpreters at
+ * the same time.
+ */
+public final class CompiledProgram {
+
+    /**
+     * Program without declarations or expression
+     */
+    static final CompiledProgram EMPTY = new CompiledProgram(Collections.emptyMap(), null);
+
+    private static final Set<String> LITERALS = Set.of("StringLiteral", "NumberLiteral", "BooleanLiteral");
+
+    private final Map<ParseRule, AST> declarations;
+    private final PurityAnalysis purity;
+    private final AST expression;
+    private final Map<AST, Integer> dataAccesses = new IdentityHashMap<>();
+
+    private CompiledProgram(Map<ParseRule, AST> declarations, AST expression) {
+        this.declarations = Collections.unmodifiableMap(declarations);
+        this.purity = new PurityAnalysis(declarations);
+        this.expression = expression;
+    }
+
+    /**
+     * Compiles a program
+     * @param tree AST of the entire program, with HighLevel as root
+     * @return the compiled program
+     * @throws IllegalArgumentException if tree is not the AST of an entire program
+     */
+    public static CompiledProgram compile(AST tree) {
+        return compile(tree, Collections.emptyMap());
+    }
+
+    /**
+     * Compiles a program that uses declarations that were not parsed with it, such as those of precompiled modules.
+     * The program is compiled from a copy of its tree, so the tree itself can be compiled again or used otherwise.
+     * @param parsed AST of the entire program, with HighLevel as root
+     * @param imported bodies of the declarations the program uses besides its own, by the rule they were declared with
+     * @return the compiled program
+     * @throws IllegalArgumentException if parsed is not the AST of an entire program
+     */
+    public static CompiledProgram compile(AST parsed, Map<ParseRule, AST> imported) {
+        if (!parsed.getRoot().equals(nonTerm("HighLevel"))) {
+            throw new IllegalArgumentException("Only entire programs can be compiled, not " + parsed.getRoot());
+        }
+        AST tree = (AST) parsed.copy();
+        Map<ParseRule, AST> declarations = new HashMap<>();
+        imported.forEach((rule, body) -> declarations.put(rule, (AST) body.copy()));
+        ASTElemList declarationList = (ASTElemList) tree.getChild(0);
+        for (ASTElem astElem : declarationList) {
+            AST declaration = (AST) ((ASTElemList) astElem).get(1);
+            DeclarationTree declTree = new DeclarationTree(declaration);
+            ParseRule rule = new ParseRule(declTree.getName()).addRhs(declTree.getRetrievedNodes().toArray(new Node[0]));
+            declarations.put(rule, (AST) declaration.getChild(11));
+        }
+        AST optionalExpression = (AST) tree.getChild(2);
+        CompiledProgram program = new CompiledProgram(declarations, optionalExpression.getChildren().isEmpty() ? null : (AST) optionalExpression.getChild(0));
+        Interpreter constants = new Interpreter(program);
+        for (AST body : declarations.values()) {
+            program.internLiterals(body, constants);
+            program.prepareDataAccess(body, constants);
+        }
+        program.internLiterals(optionalExpression, constants);
+        program.prepareDataAccess(optionalExpression, constants);
+        return program;
+    }
+
+    /**
+     * Returns whether a rule is the rule of a user declaration
+     * @param rule rule to check
+     * @return true iff rule was declared by the program
+     */
+    public boolean isDeclaration(ParseRule rule) {
+        return declarations.containsKey(rule);
+    }
+
+    /**
+     * Returns the body of a user declaration
+     * @param declaration rule the declaration was declared with
+     * @return the body, which is shared by all calls and executions and must not be modified
+     */
+    AST getBody(ParseRule declaration) {
+        return declarations.get(declaration);
+    }
+
+    /**
+     * Returns the user declarations of this program
+     * @return the bodies of all declarations, by the rule they were declared with
+     */
+    public Map<ParseRule, AST> getDeclarations() {
+        return declarations;
+    }
+
+    /**
+     * Returns the purity of the user declarations of this program
+     * @return the purity analysis
+     */
+    public PurityAnalysis getPurity() {
+        return purity;
+    }
+
+    /**
+     * Returns the expression that is evaluated when this program is executed
+     * @return the expression, or null if the program only consists of declarations
+     */
+    public AST getExpression() {
+        return expression;
+    }
+
+    /**
+     * Returns the number of ~data access paths in this program
+     * @return the number of access paths, which are numbered from 0
+     */
+    int getDataAccessCount() {
+        return dataAccesses.size();
+    }
+
+    /**
+     * Returns the number of a ~data access path, which identifies it for the inline caches of an execution
+     * @param access AST of the access, with Data as root
+     * @return the number of the access path, or -1 if it is not part of this program
+     */
+    int getDataAccess(AST access) {
+        return dataAccesses.getOrDefault(access, -1);
+    }
+
+    /**
+     * Evaluates every string, number and boolean literal in a tree that does not depend on user declarations once, and
+     * overrides the semantics of the literal with the resulting value.
+     * @param tree tree whose literals to intern
+     * @param constants interpreter to evaluate the literals with
+     */
+    private void internLiterals(ASTElem tree, Interpreter constants) {
+        if (tree instanceof ASTElemList) {
+            ((ASTElemList) tree).forEach(astElem -> internLiterals(astElem, constants));
+            return;
+        }
+        AST ast = (AST) tree;
+        if (ast.getRoot() instanceof NonTerminal && LITERALS.contains(((NonTerminal) ast.getRoot()).getName()) && isConstant(ast)) {
+            try {
+                ast.overrideSemantics(constants.evaluateConstant(ast));
+            } catch (RuntimeException e) {
+                //leave it to be evaluated (and fail) when it is actually executed
+            }
+        } else {
+            ast.getChildren().forEach(astElem -> internLiterals(astElem, constants));
+        }
+    }
+
+    /**
+     * Numbers every ~data access in a tree, such that executions can keep an inline cache per access, and replaces every key in an access path that does not
+     * depend on parameters, user declarations or stored data by its value.
+     * @param tree tree whose data accesses to prepare
+     * @param constants interpreter to evaluate the keys with
+     */
+    private void prepareDataAccess(ASTElem tree, Interpreter constants) {
+        if (tree instanceof ASTElemList) {
+            ((ASTElemList) tree).forEach(astElem -> prepareDataAccess(astElem, constants));
+            return;
+        }
+        AST ast = (AST) tree;
+        if (ast.getRoot().equals(nonTerm("Data"))) {
+            ASTElemList astKeys = (ASTElemList) ast.getChild(1);
+            dataAccesses.putIfAbsent(ast, dataAccesses.size());
+            for (ASTElem astKey : astKeys) {
+                AST expressionAST = (AST) ((ASTElemList) astKey).get(1);
+                if (expressionAST.getOverriddenSemantics() == null && isConstant(expressionAST)) {
+                    try {
+                        PLData key = constants.evaluateConstant(expressionAST);
+                        if (Interpreter.isImmutable(key)) {
+                            expressionAST.overrideSemantics(key);
+                        }
+                    } catch (RuntimeException e) {
+                        //leave it to be evaluated (and fail) when it is actually executed
+                    }
+                }
+            }
+        }
+        ast.getChildren().forEach(astElem -> prepareDataAccess(astElem, constants));
+    }
+
+    private boolean isConstant(ASTElem tree) {
+        if (tree instanceof ASTElemList) {
+            return ((ASTElemList) tree).stream().allMatch(this::isConstant);
+        }
+        AST ast = (AST) tree;
+        if (ast.getRoot().equals(nonTerm("ParameterName")) || ast.getRoot().equals(nonTerm("Data")) || (ast.getRule() != null && declarations.containsKey(ast.getRule().getOrigin()))) {
+            return false;
+        }
+        return ast.getChildren().stream().allMatch(this::isConstant);
+    }
+}
@@ -0,0 +1,106 @@
+package parselang.interpreter;
+
+import parselang.interpreter.data.PLData;
+import parselang.interpreter.data.PLIndexable;
+import parselang.interpreter.data.PLMap;
+
+/**
+ * Inline cache for a single ~data access path. For every key in the path it remembers the last map that was indexed
+ * and the index of the entry that was found, such that repeating the same access does not need to look up the key
+ * again. As entries of a map are never removed or moved, the cached entry stays valid when values are assigned.
+ * Every execution has its own caches, as they refer to the maps of its stored data.
+ * <p>
+ * Only the lookup of the entry is saved: the key is still evaluated on every access and compared with the cached key,
+ * which for string keys costs as much as their length. The cache holds a single key per position, so an access path
+ * whose key changes between uses, such as one in a declaration that is called for different variables, misses and
+ * replaces its entry every time it is used with another key.
+ */
+public class DataAccessCache {
+
+    /**
+     * Cached lookups per key in the path
+     */
+    private final Entry[] entries;
+    private long hits = 0;
+    private long misses = 0;
+
+    /**
+     * Creates a new DataAccessCache
+     * @param pathLength number of keys in the access path
+     */
+    public DataAccessCache(int pathLength) {
+        entries = new Entry[pathLength];
+    }
+
+    /**
+     * Looks up a key in a container
+     * @param position position of the key in the access path
+     * @param container container to look the key up in
+     * @param key key to look up
+     * @return the value stored under the key
+     */
+    public PLData get(int position, PLIndexable container, PLData key) {
+        if (!(container instanceof PLMap)) {
+            return container.get(key);
+        }
+        PLMap map = (PLMap) container;
+        return map.getEntryValue(findEntry(position, map, key));
+    }
+
+    /**
+     * Stores a value under a key in a container
+     * @param position position of the key in the access path
+     * @param container container to store the value in
+     * @param key key to store the value under
+     * @param value value to store
+     */
+    public void set(int position, PLIndexable container, PLData key, PLData value) {
+        if (!(container instanceof PLMap)) {
+            container.set(key, value);
+            return;
+        }
+        PLMap map = (PLMap) container;
+        map.setEntryValue(findEntry(position, map, key), value);
+    }
+
+    /**
+     * Returns the number of lookups that used a cached entry
+     * @return the number of hits
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of lookups in maps that had to look up the key
+     * @return the number of misses
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    private int findEntry(int position, PLMap map, PLData key) {
+        Entry cached = entries[position];
+        if (cached != null && cached.map == map && (cached.key == key || cached.key.equals(key))) {
+            hits++;
+            return cached.entry;
+        }
+        misses++;
+        int entry = map.getEntry(key);
+        entries[position] = new Entry(map, key, entry);
+        return entry;
+    }
+
+    private static final class Entry {
+
+        private final PLMap map;
+        private final PLData key;
+        private final int entry;
+
+        private Entry(PLMap map, PLData key, int entry) {
+            this.map = map;
+            this.key = key;
+            this.entry = entry;
+        }
+    }
+}
@@ -1,23 +1,43 @@
 package parselang.interpreter;
 
+import parselang.events.DeclarationCallEvent;
+import parselang.events.ProgramExecutionEvent;
+import parselang.governor.ResourceGovernor;
 import parselang.interpreter.data.*;
+import parselang.interpreter.profiling.DeclarationProfiler;
 import parselang.parser.data.*;
-import parselang.util.DeclarationTree;
+import parselang.util.AllocationRecorder;
 
 import java.math.BigDecimal;
-import java.math.BigInteger;
 import java.math.RoundingMode;
 import java.util.*;
 
 import static parselang.parser.ParseRuleStorage.*;
 
 /**
- * Parselang interpreter
+ * Parselang interpreter. An interpreter is a single execution context holding the stored data of the program it runs,
+ * and must not be used by multiple threads at the same time. To run the same program concurrently, compile it once
+ * and give every execution its own interpreter for the shared CompiledProgram.
  */
 public class Interpreter {
 
+    /**
+     * Creates an interpreter that compiles the programs it is given
+     */
+    public Interpreter() {
+        this(CompiledProgram.EMPTY);
+    }
+
+    /**
+     * Creates an interpreter for a compiled program
+     * @param program the program to run
+     */
+    public Interpreter(CompiledProgram program) {
+        this.program = program;
+    }
+
 
-    private PLData runList(ASTElemList list, Map<String, ASTElem>  paramAssignments) {
+    private PLData runList(ASTElemList list, Map<String, ParameterValue>  paramAssignments) {
         PLList result = new PLList();
         list.forEach(astElem -> {
             if (astElem instanceof ASTElemList) {
@@ -31,27 +51,93 @@ public class Interpreter {
 
 
     /**
-     * Interprets an entire AST.
+     * Interprets an entire AST. Programs are compiled first, and replace the program of this interpreter.
      * @param tree AST to be interpreted
      * @return The return value of the program
      */
     public PLData run(AST tree) {
-        assertNoGeneratedOrigin(tree);
+        assert hasNoGeneratedOrigin(tree);
+        if (tree.getRoot().equals(nonTerm("HighLevel"))) {
+            program = CompiledProgram.compile(tree);
+            setMemoization(memoizationSize);
+            return run();
+        }
         return run(tree, new HashMap<>());
     }
 
-    private void assertNoGeneratedOrigin(ASTElem tree) {
+    /**
+     * Executes the program of this interpreter, starting with empty stored data
+     * @return The return value of the program, or null if it only consists of declarations
+     */
+    public PLData run() {
+        data = new PLMap();
+        dataAccessCaches = new DataAccessCache[program.getDataAccessCount()];
+        if (program.getExpression() == null) {
+            return null;
+        }
+        ProgramExecutionEvent event = new ProgramExecutionEvent();
+        event.begin();
+        PLData result = null;
+        try {
+            result = run(program.getExpression(), new HashMap<>());
+            return result;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.declarations = program.getDeclarations().size();
+                event.resultType = result == null ? null : result.classString();
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Evaluates an expression that does not depend on parameters or stored data
+     * @param tree the expression
+     * @return the value of the expression
+     */
+    PLData evaluateConstant(AST tree) {
+        return run(tree, Collections.emptyMap());
+    }
+
+    /**
+     * Checks that no rule applied in a tree refers to nonterminals generated for kleene stars. Only called in asserts,
+     * as it walks the entire tree.
+     */
+    private static boolean hasNoGeneratedOrigin(ASTElem tree) {
         if (tree instanceof AST) {
-            assert ((AST) tree).getRule() == null || ((AST) tree).getRule().getOrigin().getRHS().stream().noneMatch(node -> node instanceof NonTerminal && ((NonTerminal) node).wasGeneratedByStar());
-            ((AST) tree).getChildren().forEach(this::assertNoGeneratedOrigin);
-        } else if (tree instanceof ASTElemList) {
-            ((ASTElemList) tree).forEach(this::assertNoGeneratedOrigin);
+            if (((AST) tree).getRule() != null && ((AST) tree).getRule().getOrigin().getRHS().stream().anyMatch(node -> node instanceof NonTerminal && ((NonTerminal) node).wasGeneratedByStar())) {
+                return false;
+            }
+            return ((AST) tree).getChildren().stream().allMatch(Interpreter::hasNoGeneratedOrigin);
+        }
+        return ((ASTElemList) tree).stream().allMatch(Interpreter::hasNoGeneratedOrigin);
+    }
+
+    private PLData run(AST tree, Map<String, ParameterValue>  paramAssignments) {
+        return run(tree, paramAssignments, false);
+    }
+
+    private PLData run(AST tree, Map<String, ParameterValue>  paramAssignments, boolean tailPosition) {
+        steps++;
+        if (governor == null) {
+            return evaluate(tree, paramAssignments, tailPosition);
+        }
+        governor.stepped();
+        governor.enter();
+        try {
+            return evaluate(tree, paramAssignments, tailPosition);
+        } finally {
+            governor.exit();
         }
     }
 
-    private PLData run(AST tree, Map<String, ASTElem>  paramAssignments) {
+    private PLData evaluate(AST tree, Map<String, ParameterValue>  paramAssignments, boolean tailPosition) {
+        if (tree.getOverriddenSemantics() instanceof PLData) {
+            return (PLData) tree.getOverriddenSemantics();
+        }
         if (tree.getRoot() instanceof NonTerminal) {
-            return runNonTerminal(tree, paramAssignments);
+            return runNonTerminal(tree, paramAssignments, tailPosition);
         } else if (tree.getRoot() instanceof Terminal) {
             return runTerminal(tree);
         } else {
@@ -59,75 +145,135 @@ public class Interpreter {
         }
     }
 
-    private final Map<ParseRule, AST> declarations = new HashMap<>();
+    private static final PLInteger TEN = PLInteger.valueOf(10);
+
+    private CompiledProgram program;
+    private ResultCache resultCache = null;
+    private int memoizationSize = 0;
+    private boolean callByNeed = false;
+    private DeclarationProfiler profiler = null;
+    private int callDepth = 0;
+    private long steps = 0;
+    private ResourceGovernor governor = null;
+
+    /**
+     * Enables caching of the return values of calls to pure user declarations, i.e. declarations that do not access
+     * ~data, have no lazy parameters and only call other pure declarations.
+     * @param maxSize maximum number of cached return values, or 0 to disable caching
+     */
+    public void setMemoization(int maxSize) {
+        memoizationSize = maxSize;
+        resultCache = maxSize > 0 ? new ResultCache(maxSize) : null;
+    }
+
+    /**
+     * Returns the cache of return values of pure user declarations, which holds hit and miss statistics
+     * @return the cache, or null if memoization is disabled
+     */
+    public ResultCache getResultCache() {
+        return resultCache;
+    }
+
+    /**
+     * Sets whether lazy parameters are passed by need instead of by name. When enabled, a lazy argument that always
+     * evaluates to the same value is evaluated at most once per call, the first time the parameter is used. Arguments
+     * that read or write stored data, create maps, call impure declarations or depend on other arguments that are
+     * passed by name, such as loop conditions, keep being evaluated on every use.
+     * @param callByNeed whether to pass lazy parameters by need
+     */
+    public void setCallByNeed(boolean callByNeed) {
+        this.callByNeed = callByNeed;
+    }
+
+    /**
+     * Returns the number of steps this interpreter made since it was created, where every evaluation of a node of an
+     * AST is a step. Unlike time, the number of steps of a program does not depend on the machine it runs on.
+     * @return the number of steps
+     */
+    public long getSteps() {
+        return steps;
+    }
+
+    /**
+     * Sets the governor that limits the resources this interpreter may use. Executions that exceed a limit throw a
+     * ResourceLimitExceededException.
+     * @param governor the governor, or null to not limit execution
+     */
+    public void setGovernor(ResourceGovernor governor) {
+        this.governor = governor;
+    }
+
+    /**
+     * Returns the governor that limits the resources this interpreter may use
+     * @return the governor, or null if execution is not limited
+     */
+    public ResourceGovernor getGovernor() {
+        return governor;
+    }
 
-    private void addDeclarationAsFunction(AST declaration) {
-        DeclarationTree declTree = new DeclarationTree(declaration);
-        ParseRule rule = new ParseRule(declTree.getName()).addRhs(declTree.getRetrievedNodes().toArray(new Node[0]));
-        AST declarationContent = (AST) declaration.getChild(11);
-        declarations.put(rule, declarationContent);
+    /**
+     * Sets the profiler that keeps track of the user declarations this interpreter executes
+     * @param profiler the profiler, or null to not profile
+     */
+    public void setProfiler(DeclarationProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    /**
+     * Returns the profiler that keeps track of the user declarations this interpreter executes
+     * @return the profiler, or null if this interpreter does not profile
+     */
+    public DeclarationProfiler getProfiler() {
+        return profiler;
     }
 
     private PLData runTerminal(AST tree) {
         return new PLString(((Terminal) tree.getRoot()).getValue());
     }
 
-    private PLData runNonTerminal(AST tree, Map<String, ASTElem>  paramAssignments) {
-        assertNoGeneratedOrigin(tree);
+    private PLData runNonTerminal(AST tree, Map<String, ParameterValue>  paramAssignments, boolean tailPosition) {
+        assert hasNoGeneratedOrigin(tree);
         PLData toReturn;
-        if (declarations.containsKey(tree.getRule().getOrigin())) {
-            Map<String, ASTElem> parametersToAdd = new HashMap<>();
-            AST toExecute = (AST) declarations.get(tree.getRule().getOrigin()).copy();
-            for (int i = 0; i < tree.getRule().getRHS().size(); i++) {
-                Node ithNode = tree.getRule().getRHS().get(i);
-                if (ithNode instanceof BoundNode && !((BoundNode) ithNode).isLazy()) {
-                    String name = ((BoundNode) ithNode).getName();
-                    PLData value;
-                    if (tree.getChild(i) instanceof AST) {
-                        value = run((AST) tree.getChild(i), paramAssignments);
-                    } else {
-                        value = runList( (ASTElemList) tree.getChild(i), paramAssignments);
-                    }
-                    replaceParameters(toExecute, name, value);
-                }
+        if (program.isDeclaration(tree.getRule().getOrigin())) {
+            List<PLData> arguments = runArguments(tree, paramAssignments);
+            PLData cached = null;
+            if (isMemoizable(tree.getRule().getOrigin(), arguments)) {
+                cached = resultCache.get(tree.getRule().getOrigin(), arguments);
             }
-            for (int i = 0; i < tree.getRule().getRHS().size(); i++) {
-                Node ithNode = tree.getRule().getRHS().get(i);
-                if (ithNode instanceof BoundNode && ((BoundNode) ithNode).isLazy()) {
-                    ASTElem value = tree.getChildren().get(i).copy();
-                    replaceByMap(value, paramAssignments);
-                    parametersToAdd.put(((BoundNode) ithNode).getName(), value);
+            if (cached != null) {
+                if (profiler != null) {
+                    profiler.cachedCall(tree.getRule().getOrigin().getLHS().getName());
                 }
+                toReturn = cached;
+            } else {
+                TailCall call = prepareCall(tree, arguments, paramAssignments);
+                toReturn = tailPosition ? call : trampoline(call);
             }
-            toReturn = run(toExecute, parametersToAdd);
         } else {
             switch (((NonTerminal) (tree.getRoot())).getName()) {
-                case "HighLevel":
-                    toReturn = processHighLevel(tree, paramAssignments);
-                    break;
                 case "Expression":
-                    toReturn =  processExpression(tree, paramAssignments);
+                    toReturn =  processExpression(tree, paramAssignments, tailPosition);
                     break;
                 case "ComparitiveExpression":
-                    toReturn =  processComparitiveExpression(tree, paramAssignments);
+                    toReturn =  processComparitiveExpression(tree, paramAssignments, tailPosition);
                     break;
                 case "AdditiveExpression":
-                    toReturn =  processAdditiveExpression(tree, paramAssignments);
+                    toReturn =  processAdditiveExpression(tree, paramAssignments, tailPosition);
                     break;
                 case "MultiplicativeExpression":
-                    toReturn =  processMultiplicativeExpression(tree, paramAssignments);
+                    toReturn =  processMultiplicativeExpression(tree, paramAssignments, tailPosition);
                     break;
                 case "SimpleExpression":
-                    toReturn =  processSimpleExpression(tree, paramAssignments);
+                    toReturn =  processSimpleExpression(tree, paramAssignments, tailPosition);
                     break;
                 case "DeclarationContent":
-                    toReturn =  processDeclarationContent(tree, paramAssignments);
+                    toReturn =  processDeclarationContent(tree, paramAssignments, tailPosition);
                     break;
                 case "DelimitedSentence":
-                    toReturn =  processDelimitedSentence(tree, paramAssignments);
+                    toReturn =  processDelimitedSentence(tree, paramAssignments, tailPosition);
                     break;
                 case "Sentence":
-                    toReturn =  processSentence(tree, paramAssignments);
+                    toReturn =  processSentence(tree, paramAssignments, tailPosition);
                     break;
                 case "StringLiteral":
                     toReturn =  processStringLiteral(tree, paramAssignments);
@@ -148,7 +294,7 @@ public class Interpreter {
                     toReturn = processOptionalAssignment(tree, paramAssignments);
                     break;
                 case "SingleExpression":
-                    toReturn = processSingleExpression(tree, paramAssignments);
+                    toReturn = processSingleExpression(tree, paramAssignments, tailPosition);
                     break;
                 case "BooleanLiteral":
                     toReturn = processBooleanLiteral(tree);
@@ -165,7 +311,7 @@ public class Interpreter {
                 case "LowerCase":
                 case "WhiteSpace":
                 case "RegisteredNonTerminal":
-                    toReturn =  processSimpleRule(tree, paramAssignments);
+                    toReturn =  processSimpleRule(tree, paramAssignments, tailPosition);
                     break;
                 default:
                     throw new UnsupportedOperationException();
@@ -175,32 +321,134 @@ public class Interpreter {
         return toReturn;
     }
 
-    private void replaceByMap(ASTElem value, Map<String, ASTElem> variableAssignments) {
-        if (value instanceof AST) {
-            if (((AST) value).getRoot().equals(nonTerm("ParameterName")) && variableAssignments.containsKey(value.parseString())) {
-                ((AST) value).overrideSemantics(variableAssignments.get(value.parseString()));
-            } else {
-                ((AST) value).getChildren().forEach(astElem -> replaceByMap(astElem, variableAssignments));
+    private List<PLData> runArguments(AST tree, Map<String, ParameterValue>  paramAssignments) {
+        List<PLData> arguments = new ArrayList<>();
+        for (int i = 0; i < tree.getRule().getRHS().size(); i++) {
+            Node ithNode = tree.getRule().getRHS().get(i);
+            if (ithNode instanceof BoundNode && !((BoundNode) ithNode).isLazy()) {
+                if (tree.getChild(i) instanceof AST) {
+                    arguments.add(run((AST) tree.getChild(i), paramAssignments));
+                } else {
+                    arguments.add(runList( (ASTElemList) tree.getChild(i), paramAssignments));
+                }
             }
-        } else {
-            ((ASTElemList)value).forEach(astElem -> replaceByMap(astElem, variableAssignments));
         }
+        return arguments;
     }
 
-    private PLData processNonZeroNumber(AST tree) {
-        return new PLInteger(new BigInteger(tree.parseString()));
+    /**
+     * Binds the arguments of a call to a user declaration and returns the body that should be executed, without executing it.
+     * Parameters are bound in a new map of parameter assignments, the body itself is shared by all calls.
+     * @param tree AST of the call
+     * @param arguments values of the eager parameters of the call, in order
+     * @param paramAssignments parameter assignments of the caller
+     * @return the call, ready to be executed
+     */
+    private TailCall prepareCall(AST tree, List<PLData> arguments, Map<String, ParameterValue>  paramAssignments) {
+        Map<String, ParameterValue> parametersToAdd = new HashMap<>();
+        Iterator<PLData> argumentIterator = arguments.iterator();
+        for (int i = 0; i < tree.getRule().getRHS().size(); i++) {
+            Node ithNode = tree.getRule().getRHS().get(i);
+            if (ithNode instanceof BoundNode && !((BoundNode) ithNode).isLazy()) {
+                parametersToAdd.put(((BoundNode) ithNode).getName(), argumentIterator.next());
+            }
+        }
+        for (int i = 0; i < tree.getRule().getRHS().size(); i++) {
+            Node ithNode = tree.getRule().getRHS().get(i);
+            if (ithNode instanceof BoundNode && ((BoundNode) ithNode).isLazy()) {
+                ASTElem value = tree.getChildren().get(i);
+                if (callByNeed && program.getPurity().isStable(value, name -> isStable(paramAssignments.get(name)))) {
+                    parametersToAdd.put(((BoundNode) ithNode).getName(), new Thunk(value, paramAssignments));
+                } else {
+                    parametersToAdd.put(((BoundNode) ithNode).getName(), new Closure(value, paramAssignments));
+                }
+            }
+        }
+        return new TailCall(tree.getRule().getOrigin(), tree, arguments, program.getBody(tree.getRule().getOrigin()), parametersToAdd);
     }
 
-    private void replaceParameters(ASTElem toExecute, String name, PLData value) {
-        if (toExecute instanceof AST) {
-            if (((AST) toExecute).getRoot().equals(nonTerm("ParameterName")) && toExecute.parseString().equals(name)) {
-                ((AST)toExecute).overrideSemantics(value);
-            } else {
-                ((AST) toExecute).getChildren().forEach(astElem -> replaceParameters(astElem, name, value));
+    /**
+     * Executes a call to a user declaration. Calls made in tail position of the body are returned instead of executed,
+     * and are executed here in a loop, such that recursion in tail position runs in constant stack space.
+     * @param call call to execute
+     * @return the return value of the call
+     */
+    private PLData trampoline(TailCall call) {
+        List<TailCall> toMemoize = new ArrayList<>(0);
+        PLData result = call;
+        callDepth++;
+        try {
+            while (result instanceof TailCall) {
+                TailCall current = (TailCall) result;
+                if (isMemoizable(current.declaration, current.arguments)) {
+                    toMemoize.add(current);
+                }
+                DeclarationCallEvent event = new DeclarationCallEvent();
+                event.begin();
+                AllocationRecorder.enterDeclaration(current.declaration.getLHS().getName());
+                try {
+                    result = execute(current);
+                } finally {
+                    AllocationRecorder.exitDeclaration();
+                }
+                event.end();
+                if (event.shouldCommit()) {
+                    event.declaration = current.declaration.getLHS().getName();
+                    event.depth = callDepth;
+                    event.commit();
+                }
             }
-        } else {
-            ((ASTElemList)toExecute).forEach(astElem -> replaceParameters(astElem, name, value));
+        } finally {
+            callDepth--;
+        }
+        if (isImmutable(result)) {
+            for (TailCall memoized : toMemoize) {
+                resultCache.put(memoized.declaration, memoized.arguments, result);
+            }
+        }
+        return result;
+    }
+
+    private PLData execute(TailCall call) {
+        if (profiler == null) {
+            return run(call.body, call.parameters, true);
         }
+        profiler.enter(call.declaration.getLHS().getName(), call.callSite);
+        try {
+            return run(call.body, call.parameters, true);
+        } finally {
+            profiler.exit();
+        }
+    }
+
+    private boolean isMemoizable(ParseRule declaration, List<PLData> arguments) {
+        return resultCache != null && program.getPurity().isPure(declaration) && arguments.stream().allMatch(Interpreter::isImmutable);
+    }
+
+    private PLData force(Thunk thunk, Map<String, ParameterValue> paramAssignments) {
+        if (thunk.value == null) {
+            thunk.value = evaluateArgument(thunk.expression, new Scope(thunk.environment, paramAssignments), false);
+        }
+        return thunk.value;
+    }
+
+    private PLData evaluateArgument(ASTElem expression, Map<String, ParameterValue> paramAssignments, boolean tailPosition) {
+        if (expression instanceof ASTElemList) {
+            return runList((ASTElemList) expression, paramAssignments);
+        }
+        return run((AST) expression, paramAssignments, tailPosition);
+    }
+
+    private static boolean isStable(ParameterValue parameter) {
+        return parameter instanceof PLData || parameter instanceof Thunk;
+    }
+
+    static boolean isImmutable(PLData value) {
+        return value instanceof PLInteger || value instanceof PLFloat || value instanceof PLString || value instanceof PLBoolean || value instanceof PLNull;
+    }
+
+    private PLData processNonZeroNumber(AST tree) {
+        return new PLInteger(tree.parseString());
     }
 
     private PLData processBooleanLiteral(AST tree) {
@@ -212,13 +460,16 @@ public class Interpreter {
         throw new UnsupportedOperationException();
     }
 
-    private PLData processSingleExpression(AST tree, Map<String, ASTElem> paramAssignments) {
+    private PLData processSingleExpression(AST tree, Map<String, ParameterValue> paramAssignments, boolean tailPosition) {
         if (isSimpleRule(tree.getRule())) {
-            return run((AST) tree.getChild(0), paramAssignments);
+            return run((AST) tree.getChild(0), paramAssignments, tailPosition);
         }
         if (tree.getRule().getOrigin().equals(new ParseRule("SingleExpression").addRhs(bound(nonTerm("SimpleExpression"), "e", false), bound(star(term("["), ws(), nonTerm("Expression"), ws(), term("]")), "e2", false)))) {
-            PLData toReturn = run((AST) tree.getChild(0), paramAssignments);
             ASTElemList indexations = (ASTElemList) tree.getChild(1);
+            if (indexations.size() == 0) {
+                return run((AST) tree.getChild(0), paramAssignments, tailPosition);
+            }
+            PLData toReturn = run((AST) tree.getChild(0), paramAssignments);
             for (ASTElem indexation : indexations) {
                 PLData index = run((AST) ((ASTElemList) indexation).get(2), paramAssignments);
                 if (toReturn instanceof PLIndexable) {
@@ -232,7 +483,7 @@ public class Interpreter {
         throw new UnsupportedOperationException();
     }
 
-    private PLData processListLiteral(AST tree, Map<String, ASTElem> paramAssignments) {
+    private PLData processListLiteral(AST tree, Map<String, ParameterValue> paramAssignments) {
         if (isSimpleRule(tree.getRule())) {
             return run((AST) tree.getChild(0), paramAssignments);
         }
@@ -258,17 +509,17 @@ public class Interpreter {
         throw new UnsupportedOperationException();
     }
 
-    private PLData processSentence(AST tree, Map<String, ASTElem> paramAssignments) {
+    private PLData processSentence(AST tree, Map<String, ParameterValue> paramAssignments, boolean tailPosition) {
         if (isSimpleRule(tree.getRule())) {
-            return run((AST) tree.getChild(0), paramAssignments);
+            return run((AST) tree.getChild(0), paramAssignments, tailPosition);
         }
         if (tree.getRule().getOrigin().equals(new ParseRule("Sentence").addRhs(nonTerm("DelimitedSentence"), ws(), term(";")))) {
-            return run((AST) tree.getChild(0), paramAssignments);
+            return run((AST) tree.getChild(0), paramAssignments, tailPosition);
         }
         throw new UnsupportedOperationException();
     }
 
-    private PLData processOptionalAssignment(AST tree, Map<String, ASTElem> paramAssignments) {
+    private PLData processOptionalAssignment(AST tree, Map<String, ParameterValue> paramAssignments) {
         if (tree.getChildren().isEmpty()) {
             return PLNull.get();
         } else {
@@ -276,19 +527,21 @@ public class Interpreter {
         }
     }
 
-    private final PLMap data = new PLMap();
+    private PLMap data = new PLMap();
+    private DataAccessCache[] dataAccessCaches = new DataAccessCache[0];
 
-    private PLData processData(AST tree, Map<String, ASTElem> paramAssignments) {
+    private PLData processData(AST tree, Map<String, ParameterValue> paramAssignments) {
         PLData current = data;
         ASTElemList astKeys = ((ASTElemList)tree.getChild(1));
         boolean isAssignment = ((AST)tree.getChild(3)).getChildren().size() > 0;
+        DataAccessCache cache = getDataAccessCache(tree, astKeys.size());
         for (int i = 0; i < astKeys.size() - (isAssignment ? 1 : 0); i++) {
             AST expressionAST = (AST) ((ASTElemList) astKeys.get(i)).get(1);
             PLData expressionResult = run(expressionAST, paramAssignments);
             if (!(current instanceof PLIndexable)) {
                 throw new IllegalArgumentException(current.classString() + " cannot be indexed.");
             } else {
-                current = ((PLIndexable)current).get(expressionResult);
+                current = cache == null ? ((PLIndexable)current).get(expressionResult) : cache.get(i, (PLIndexable) current, expressionResult);
             }
         }
         if (isAssignment) {
@@ -297,71 +550,91 @@ public class Interpreter {
             } else {
                 PLData lastKey = run((AST) ((ASTElemList) astKeys.get(astKeys.size() - 1)).get(1), paramAssignments);
                 PLData value = run((AST) ((AST)tree.getChild(3)).getChild(2), paramAssignments);
-                ((PLIndexable)current).set(lastKey, value);
+                if (cache == null) {
+                    ((PLIndexable)current).set(lastKey, value);
+                } else {
+                    cache.set(astKeys.size() - 1, (PLIndexable) current, lastKey, value);
+                }
             }
         }
         return current;
     }
 
-    private PLData processOptionalDecimalPlaces(AST tree, Map<String, ASTElem> paramAssignments) {
+    /**
+     * Returns the inline cache of this execution for a ~data access path of the program
+     * @param tree AST of the access, with Data as root
+     * @param pathLength number of keys in the access path
+     * @return the cache, or null if the access path was not prepared when the program was compiled
+     */
+    private DataAccessCache getDataAccessCache(AST tree, int pathLength) {
+        int access = program.getDataAccess(tree);
+        if (access < 0 || access >= dataAccessCaches.length) {
+            return null;
+        }
+        if (dataAccessCaches[access] == null) {
+            dataAccessCaches[access] = new DataAccessCache(pathLength);
+        }
+        return dataAccessCaches[access];
+    }
+
+    private PLData processOptionalDecimalPlaces(AST tree, Map<String, ParameterValue> paramAssignments) {
         if (isSimpleRule(tree.getRule())) {
             return run((AST) tree.getChild(0), paramAssignments);
         }
         if (tree.getRule().getOrigin().equals(new ParseRule("OptionalDecimalPlaces"))) {
             return PLNull.get();
         } else if (tree.getRule().getOrigin().equals(new ParseRule("OptionalDecimalPlaces").addRhs(term("."), bound(star(nonTerm("Number")), "e", false)))) {
-            PLInteger res = new PLInteger();
+            PLInteger res = PLInteger.valueOf(0);
             ASTElemList decimals = (ASTElemList) tree.getChild(1);
-            decimals.forEach(astElem -> res.set(res.get().multiply(new BigInteger("10")).add(new PLInteger((PLString) run((AST) astElem, paramAssignments)).get())));
+            for (ASTElem astElem : decimals) {
+                res = res.multiply(TEN).add(toDigit(run((AST) astElem, paramAssignments)));
+            }
             return res;
         }
         throw new UnsupportedOperationException();
     }
 
-    private PLData processNumberLiteral(AST tree, Map<String, ASTElem> paramAssignments) {
+    private PLInteger toDigit(PLData digit) {
+        if (digit instanceof PLString) {
+            return new PLInteger((PLString) digit);
+        } else if (digit instanceof PLInteger) {
+            return (PLInteger) digit;
+        } else {
+            throw new UnsupportedOperationException("Type not recognised here");
+        }
+    }
+
+    private PLData processNumberLiteral(AST tree, Map<String, ParameterValue> paramAssignments) {
         if (isSimpleRule(tree.getRule())) {
             return new PLInteger((PLString) run((AST) tree.getChild(0), paramAssignments));
         }
         if (tree.getRule().getOrigin().equals(new ParseRule("NumberLiteral").addRhs(nonTerm("OptionalMinus"), bound(nonTerm("NonZeroNumber"), "e", false), bound(star(nonTerm("Number")), "e2", false), nonTerm("OptionalDecimalPlaces")))) {
             PLInteger before = (PLInteger) run((AST) tree.getChild(1), paramAssignments);
-            AST optionalMinus = (AST) tree.getChild(0);
-            if (optionalMinus.getChildren().size() == 1) {
-                before.set(before.get().negate());
-            }
-
             ASTElemList additionalDecimals = (ASTElemList) tree.getChild(2);
-            additionalDecimals.forEach(astElem -> {
-                PLData intermediateResult = run((AST)astElem, paramAssignments);
-                PLInteger toAdd;
-                if (intermediateResult instanceof PLString) {
-                    toAdd = new PLInteger((PLString) intermediateResult);
-                } else if (intermediateResult instanceof PLInteger) {
-                    toAdd = (PLInteger) intermediateResult;
-                } else {
-                    throw new UnsupportedOperationException("Type not recognised here");
-                }
-                before.set(before.get().multiply(new BigInteger("10")).add(toAdd.get()));
-            });
+            for (ASTElem astElem : additionalDecimals) {
+                before = before.multiply(TEN).add(toDigit(run((AST)astElem, paramAssignments)));
+            }
+            boolean negative = ((AST) tree.getChild(0)).getChildren().size() == 1;
             Object after = run((AST) tree.getChild(3), paramAssignments);
             if (after instanceof PLNull) {
-                return before;
+                return negative ? before.negate() : before;
             } else {
                 PLFloat beforeFloat = new PLFloat(before);
-                PLFloat afterFloat = new PLFloat((PLInteger) after);
-                while (afterFloat.get().compareTo(new BigDecimal("1")) >= 0) {
-                    afterFloat.set(afterFloat.get().divide(new BigDecimal("10"), PLFloat.SCALE, RoundingMode.HALF_UP));
+                BigDecimal afterDecimal = new PLFloat((PLInteger) after).get();
+                while (afterDecimal.compareTo(BigDecimal.ONE) >= 0) {
+                    afterDecimal = afterDecimal.divide(BigDecimal.TEN, PLFloat.SCALE, RoundingMode.HALF_UP);
                 }
-                beforeFloat.add(afterFloat);
-                return beforeFloat;
+                beforeFloat = beforeFloat.add(new PLFloat(afterDecimal));
+                return negative ? beforeFloat.negate() : beforeFloat;
             }
         } else {
             throw new UnsupportedOperationException();
         }
     }
 
-    private PLData processSimpleRule(AST tree, Map<String, ASTElem> paramAssignments) {
+    private PLData processSimpleRule(AST tree, Map<String, ParameterValue> paramAssignments, boolean tailPosition) {
         if (isSimpleRule(tree.getRule())) {
-            return run((AST) tree.getChild(0), paramAssignments);
+            return run((AST) tree.getChild(0), paramAssignments, tailPosition);
         } else if (!tree.getRule().getRHS().isEmpty()) {
             throw new UnsupportedOperationException();
         } else {
@@ -369,7 +642,7 @@ public class Interpreter {
         }
     }
 
-    private PLData processStringLiteral(AST tree, Map<String, ASTElem> paramAssignments) {
+    private PLData processStringLiteral(AST tree, Map<String, ParameterValue> paramAssignments) {
         if (isSimpleRule(tree.getRule())) {
             return run((AST) tree.getChild(0), paramAssignments);
         }
@@ -377,7 +650,7 @@ public class Interpreter {
             ASTElemList characters = (ASTElemList) tree.getChild(1);
             List<PLString> together = new ArrayList<>(characters.size());
             for (ASTElem character : characters) {
-                together.add(new PLString(run((AST) character, paramAssignments)));
+                together.add(PLString.valueOf(run((AST) character, paramAssignments)));
             }
             return new PLString(together);
         } else {
@@ -385,90 +658,88 @@ public class Interpreter {
         }
     }
 
-    private PLData processDelimitedSentence(AST tree, Map<String, ASTElem> paramAssignments) {
+    private PLData processDelimitedSentence(AST tree, Map<String, ParameterValue> paramAssignments, boolean tailPosition) {
         if (isSimpleRule(tree.getRule())) {
-            return run((AST) tree.getChild(0), paramAssignments);
+            return run((AST) tree.getChild(0), paramAssignments, tailPosition);
         }
         if (tree.getRule().getOrigin().equals(new ParseRule("DeclarationContent").addRhs(bound(nonTerm("DelimitedSentence"), "e", true), ws()))) {
-            return run((AST) tree.getChild(0), paramAssignments);
+            return run((AST) tree.getChild(0), paramAssignments, tailPosition);
         } else {
             throw new UnsupportedOperationException();
         }
     }
 
-    private PLData processDeclarationContent(AST tree, Map<String, ASTElem> paramAssignments) {
+    private PLData processDeclarationContent(AST tree, Map<String, ParameterValue> paramAssignments, boolean tailPosition) {
         if (isSimpleRule(tree.getRule())) {
             if (tree.getChild(0) instanceof ASTElemList && ((ASTElemList)tree.getChild(0)).size() == 0) {
                 return PLNull.get();
             }
             if (tree.getChild(0) instanceof AST) {
-                return run((AST) tree.getChild(0), paramAssignments);
+                return run((AST) tree.getChild(0), paramAssignments, tailPosition);
             } else if (tree.getChild(0) instanceof ASTElemList) {
-                PLData lastSentenceReturn = null;
-                for (ASTElem astElem : ((ASTElemList) tree.getChild(0))) {
-                    lastSentenceReturn = run((AST) ((ASTElemList)astElem).get(0), paramAssignments);
+                ASTElemList sentences = (ASTElemList) tree.getChild(0);
+                for (int i = 0; i < sentences.size() - 1; i++) {
+                    run((AST) ((ASTElemList) sentences.get(i)).get(0), paramAssignments);
                 }
-                return lastSentenceReturn;
+                return run((AST) ((ASTElemList) sentences.get(sentences.size() - 1)).get(0), paramAssignments, tailPosition);
             }
         }
         if (tree.getRule().getOrigin().equals(new ParseRule("DeclarationContent").addRhs(bound(nonTerm("DelimitedSentence"), "e", true), ws()))) {
-            return run((AST) tree.getChild(0), paramAssignments);
+            return run((AST) tree.getChild(0), paramAssignments, tailPosition);
         } else if (tree.getRule().getOrigin().equals(new ParseRule("DeclarationContent").addRhs(bound(nonTerm("Sentence"), "e", true), ws(), bound(star(nonTerm("Sentence"), ws()), "e2", true)))) {
             AST firstSentence = (AST) tree.getChild(0);
-            PLData output = run(firstSentence, paramAssignments);
             ASTElemList otherSentences = (ASTElemList) tree.getChild(2);
-            for (ASTElem otherSentence : otherSentences) {
-                output = run((AST)((ASTElemList)otherSentence).get(0), paramAssignments);
+            if (otherSentences.size() == 0) {
+                return run(firstSentence, paramAssignments, tailPosition);
+            }
+            run(firstSentence, paramAssignments);
+            for (int i = 0; i < otherSentences.size() - 1; i++) {
+                run((AST) ((ASTElemList) otherSentences.get(i)).get(0), paramAssignments);
             }
-            return output;
+            return run((AST) ((ASTElemList) otherSentences.get(otherSentences.size() - 1)).get(0), paramAssignments, tailPosition);
         }
-        assertNoGeneratedOrigin(tree);
+        assert hasNoGeneratedOrigin(tree);
         throw new UnsupportedOperationException();
     }
 
-    private PLData processSimpleExpression(AST tree, Map<String, ASTElem>  paramAssignments) {
+    private PLData processSimpleExpression(AST tree, Map<String, ParameterValue>  paramAssignments, boolean tailPosition) {
         if (tree.getRule().getOrigin().equals(new ParseRule("SimpleExpression").addRhs(bound(nonTerm("StringLiteral"), "e", false)))) {
             return run((AST) tree.getChild(0), paramAssignments);
         } else if (tree.getRule().getOrigin().equals(new ParseRule("SimpleExpression").addRhs(bound(nonTerm("NumberLiteral"), "e", false)))) {
             return run((AST) tree.getChild(0), paramAssignments);
         } else if (tree.getRule().getOrigin().equals(new ParseRule("SimpleExpression").addRhs(term("("), ws(), bound(nonTerm("Expression"), "e", false), ws(), term(")")))) {
-            return run((AST) tree.getChild(2), paramAssignments);
+            return run((AST) tree.getChild(2), paramAssignments, tailPosition);
         } else if (tree.getRule().getOrigin().equals(new ParseRule("SimpleExpression").addRhs(bound(nonTerm("ParameterName"), "e", false), ws()))) {
-            if (((AST)(tree.getChild(0))).hasOverriddenSemantics()) {
-                ParameterValue overridden = ((AST)(tree.getChild(0))).getOverriddenSemantics();
-                if (overridden instanceof PLData) {
-                    return (PLData) overridden;
-                } else {
-                    return run((AST) overridden, paramAssignments);
-                }
-            }
             String parameterName = ((Terminal)((AST)((AST)tree.getChild(0)).getChild(0)).getRoot()).getValue();
             assert paramAssignments.containsKey(parameterName) : "Variable assignments " + paramAssignments + " does not contain " + parameterName;
             ParameterValue value = paramAssignments.get(parameterName);
-            if (value instanceof ASTElemList) {
-               return runList((ASTElemList) value, paramAssignments);
-            } else if (value instanceof AST) {
-                return run((AST) value, paramAssignments);
+            if (value instanceof PLData) {
+                return (PLData) value;
+            } else if (value instanceof Thunk) {
+                return force((Thunk) value, paramAssignments);
+            } else if (value instanceof Closure) {
+                Closure closure = (Closure) value;
+                return evaluateArgument(closure.expression, new Scope(closure.environment, paramAssignments), tailPosition);
             } else {
                 throw new UnsupportedOperationException();
             }
         } else if (tree.getRule().getOrigin().equals(new ParseRule("SimpleExpression").addRhs(term("~concat"), ws(), term("("), ws(), bound(nonTerm("Expression"), "e", false), ws(), term(")"), ws()))) {
             PLData expression = run((AST) tree.getChild(4), paramAssignments);
             if (expression instanceof PLList) {
-                List<PLString> toConcat = new LinkedList<>();
-                ((PLList) expression).forEach(plData -> toConcat.add(new PLString(plData)));
+                List<PLString> toConcat = new ArrayList<>();
+                ((PLList) expression).forEach(plData -> toConcat.add(PLString.valueOf(plData)));
                 return new PLString(toConcat);
             } else {
-                return new PLString(expression);
+                return PLString.valueOf(expression);
             }
         } else if (tree.getRule().getOrigin().equals(new ParseRule("SimpleExpression").addRhs(term("~if"), ws(), term("("), ws(), bound(nonTerm("Expression"), "e", false), ws(), term(","), ws(), bound(nonTerm("Expression"), "e2", false), ws(), term(","), ws(), bound(nonTerm("Expression"), "e3", false), ws(), term(")"), ws()))) {
             PLData test = run((AST) tree.getChild(4), paramAssignments);
             if (!(test instanceof PLBoolean)) {
                 throw new IllegalArgumentException("If can only be used with a boolean test! Actual type: " + test.getClass());
             } else if (test.equals(PLBoolean.getTrue())){
-                return run((AST) tree.getChild(8), paramAssignments);
+                return run((AST) tree.getChild(8), paramAssignments, tailPosition);
             } else {
-                return run((AST) tree.getChild(12), paramAssignments);
+                return run((AST) tree.getChild(12), paramAssignments, tailPosition);
             }
         } else if (tree.getRule().getOrigin().equals(new ParseRule("SimpleExpression").addRhs(bound(nonTerm("Data"), "e", false), ws()))) {
             return run((AST) tree.getChild(0), paramAssignments);
@@ -479,7 +750,7 @@ public class Interpreter {
         } else if (tree.getRule().getOrigin().equals(new ParseRule("SimpleExpression").addRhs(term("~map")))) {
             return new PLMap();
         } else if (isSimpleRule(tree.getRule())) {
-            return run((AST) tree.getChild(0), paramAssignments);
+            return run((AST) tree.getChild(0), paramAssignments, tailPosition);
         }
         throw new UnsupportedOperationException();
     }
@@ -488,15 +759,15 @@ public class Interpreter {
         return rule.getRHS().size() == 1;
     }
 
-    private PLData processMultiplicativeExpression(AST tree, Map<String, ASTElem>  paramAssignments) {
+    private PLData processMultiplicativeExpression(AST tree, Map<String, ParameterValue>  paramAssignments, boolean tailPosition) {
         if (isSimpleRule(tree.getRule())) {
-            return run((AST) tree.getChild(0), paramAssignments);
+            return run((AST) tree.getChild(0), paramAssignments, tailPosition);
         }
         if (tree.getRule().getOrigin().equals(new ParseRule("MultiplicativeExpression").addRhs(bound(nonTerm("SingleExpression"), "e", false), bound(star(nonTerm("TimesDivisionOrModulo"), ws(), nonTerm("SingleExpression")), "e2", false), ws()))) {
-            PLData base = run((AST) tree.getChild(0), paramAssignments);
             if (((ASTElemList)tree.getChild(1)).size() == 0) {
-                return base;
+                return run((AST) tree.getChild(0), paramAssignments, tailPosition);
             } else {
+                PLData base = run((AST) tree.getChild(0), paramAssignments);
                 final boolean[] isFloat = {base instanceof PLFloat};
                 List<String> operators = new LinkedList<>(); //0=*, 1=/, 2=%
                 List<PLData> rest = new LinkedList<>();
@@ -514,13 +785,13 @@ public class Interpreter {
                         PLFloat otherFloat = other instanceof  PLFloat ? (PLFloat) other : new PLFloat((PLInteger) other);
                         switch (operators.get(i)) {
                             case "*":
-                                baseFloat.set(baseFloat.get().multiply(otherFloat.get()));
+                                baseFloat = baseFloat.multiply(otherFloat);
                                 break;
                             case "/":
-                                baseFloat.set(baseFloat.get().divide(otherFloat.get(), PLFloat.SCALE, RoundingMode.HALF_DOWN));
+                                baseFloat = baseFloat.divide(otherFloat);
                                 break;
                             case "%":
-                                baseFloat.set(baseFloat.get().remainder(otherFloat.get()));
+                                baseFloat = baseFloat.remainder(otherFloat);
                                 break;
                             default:
                                 throw new UnsupportedOperationException();
@@ -533,13 +804,13 @@ public class Interpreter {
                         PLInteger otherInt = (PLInteger) rest.get(i);
                         switch (operators.get(i)) {
                             case "*":
-                                baseInt.set(baseInt.get().multiply(otherInt.get()));
+                                baseInt = baseInt.multiply(otherInt);
                                 break;
                             case "/":
-                                baseInt.set(baseInt.get().divide(otherInt.get()));
+                                baseInt = baseInt.divide(otherInt);
                                 break;
                             case "%":
-                                baseInt.set(baseInt.get().remainder(otherInt.get()));
+                                baseInt = baseInt.remainder(otherInt);
                                 break;
                             default:
                                 throw new UnsupportedOperationException();
@@ -553,15 +824,15 @@ public class Interpreter {
         }
     }
 
-    private PLData processAdditiveExpression(AST tree, Map<String, ASTElem>  paramAssignments) {
+    private PLData processAdditiveExpression(AST tree, Map<String, ParameterValue>  paramAssignments, boolean tailPosition) {
         if (isSimpleRule(tree.getRule())) {
-            return run((AST) tree.getChild(0), paramAssignments);
+            return run((AST) tree.getChild(0), paramAssignments, tailPosition);
         }
         if (tree.getRule().getOrigin().equals(new ParseRule("AdditiveExpression").addRhs(bound(nonTerm("MultiplicativeExpression"), "e", false), bound(star(nonTerm("PlusOrMinus"), ws(), nonTerm("MultiplicativeExpression")), "e2", false), ws()))) {
-            PLData base = run((AST) tree.getChild(0), paramAssignments);
             if (((ASTElemList)tree.getChild(1)).size() == 0) {
-                return base;
+                return run((AST) tree.getChild(0), paramAssignments, tailPosition);
             } else {
+                PLData base = run((AST) tree.getChild(0), paramAssignments);
                 final int[] type = {base instanceof PLFloat ? 1 : (base instanceof PLString ? 2 : 0)}; //int=0, float=1, string=2
                 List<Boolean> addition = new LinkedList<>();
                 List<PLData> rest = new LinkedList<>();
@@ -584,9 +855,9 @@ public class Interpreter {
                     for (int i = 0; i < rest.size(); i++) {
                         PLFloat otherFloat = rest.get(i) instanceof  PLFloat ? (PLFloat) rest.get(i) : new PLFloat((PLInteger) rest.get(i));
                         if (addition.get(i)) {
-                            baseFloat.set(baseFloat.get().add(otherFloat.get()));
+                            baseFloat = baseFloat.add(otherFloat);
                         } else {
-                            baseFloat.set(baseFloat.get().subtract(otherFloat.get()));
+                            baseFloat = baseFloat.subtract(otherFloat);
                         }
                     }
                     return baseFloat;
@@ -595,9 +866,9 @@ public class Interpreter {
                     for (int i = 0; i < rest.size(); i++) {
                         PLInteger otherInt = (PLInteger) rest.get(i);
                         if (addition.get(i)) {
-                            baseInt.set(baseInt.get().add(otherInt.get()));
+                            baseInt = baseInt.add(otherInt);
                         } else {
-                            baseInt.set(baseInt.get().subtract(otherInt.get()));
+                            baseInt = baseInt.subtract(otherInt);
                         }
                     }
                     return baseInt;
@@ -605,9 +876,9 @@ public class Interpreter {
                     if (containsMinus[0]) {
                         throw new IllegalArgumentException("Cannot use a String in subtraction");
                     }
-                    List<PLString> asStrings = new LinkedList<>();
-                    asStrings.add(new PLString(base));
-                    rest.forEach(other -> asStrings.add(new PLString(other)));
+                    List<PLString> asStrings = new ArrayList<>(rest.size() + 1);
+                    asStrings.add(PLString.valueOf(base));
+                    rest.forEach(other -> asStrings.add(PLString.valueOf(other)));
                     return new PLString(asStrings);
                 }
             }
@@ -616,16 +887,16 @@ public class Interpreter {
         }
     }
 
-    private PLData processComparitiveExpression(AST tree, Map<String, ASTElem>  paramAssignments) {
+    private PLData processComparitiveExpression(AST tree, Map<String, ParameterValue>  paramAssignments, boolean tailPosition) {
         if (isSimpleRule(tree.getRule())) {
-            return run((AST) tree.getChild(0), paramAssignments);
+            return run((AST) tree.getChild(0), paramAssignments, tailPosition);
         }
         if (tree.getRule().getOrigin().equals(new ParseRule("ComparitiveExpression").addRhs(bound(nonTerm("AdditiveExpression"), "e", false), bound(star(nonTerm("Comparator"), ws(), nonTerm("AdditiveExpression")), "e2", false), ws()))) {
-            PLData reference = run((AST) tree.getChild(0), paramAssignments);
             ASTElemList others = (ASTElemList) tree.getChild(1);
             if (others.size() == 0) {
-                return reference;
+                return run((AST) tree.getChild(0), paramAssignments, tailPosition);
             } else {
+                PLData reference = run((AST) tree.getChild(0), paramAssignments);
                 for (ASTElem other : others) {
                     PLData toCompareTo = run((AST) ((ASTElemList) other).get(2), paramAssignments);
                     String referenceString = reference.toString();
@@ -647,9 +918,7 @@ public class Interpreter {
                                 }
                             } else if ((reference instanceof PLInteger || reference instanceof PLFloat) &&
                                     (toCompareTo instanceof PLInteger || toCompareTo instanceof PLFloat)) {
-                                PLFloat referenceAsFloat = reference instanceof PLFloat ? (PLFloat) reference : new PLFloat((PLInteger) reference);
-                                PLFloat toCompareToAsFloat = toCompareTo instanceof PLFloat ? (PLFloat) toCompareTo : new PLFloat((PLInteger) toCompareTo);
-                                if (referenceAsFloat.get().compareTo(toCompareToAsFloat.get()) < 0) {
+                                if (compareNumbers(reference, toCompareTo) < 0) {
                                     return PLBoolean.getFalse();
                                 }
                             } else {
@@ -663,9 +932,7 @@ public class Interpreter {
                                 }
                             } else if ((reference instanceof PLInteger || reference instanceof PLFloat) &&
                                     (toCompareTo instanceof PLInteger || toCompareTo instanceof PLFloat)) {
-                                PLFloat referenceAsFloat = reference instanceof PLFloat ? (PLFloat) reference : new PLFloat((PLInteger) reference);
-                                PLFloat toCompareToAsFloat = toCompareTo instanceof PLFloat ? (PLFloat) toCompareTo : new PLFloat((PLInteger) toCompareTo);
-                                if (referenceAsFloat.get().compareTo(toCompareToAsFloat.get()) > 0) {
+                                if (compareNumbers(reference, toCompareTo) > 0) {
                                     return PLBoolean.getFalse();
                                 }
                             } else {
@@ -679,9 +946,7 @@ public class Interpreter {
                                 }
                             } else if ((reference instanceof PLInteger || reference instanceof PLFloat) &&
                                     (toCompareTo instanceof PLInteger || toCompareTo instanceof PLFloat)) {
-                                PLFloat referenceAsFloat = reference instanceof PLFloat ? (PLFloat) reference : new PLFloat((PLInteger) reference);
-                                PLFloat toCompareToAsFloat = toCompareTo instanceof PLFloat ? (PLFloat) toCompareTo : new PLFloat((PLInteger) toCompareTo);
-                                if (referenceAsFloat.get().compareTo(toCompareToAsFloat.get()) <= 0) {
+                                if (compareNumbers(reference, toCompareTo) <= 0) {
                                     return PLBoolean.getFalse();
                                 }
                             } else {
@@ -695,9 +960,7 @@ public class Interpreter {
                                 }
                             } else if ((reference instanceof PLInteger || reference instanceof PLFloat) &&
                                     (toCompareTo instanceof PLInteger || toCompareTo instanceof PLFloat)) {
-                                PLFloat referenceAsFloat = reference instanceof PLFloat ? (PLFloat) reference : new PLFloat((PLInteger) reference);
-                                PLFloat toCompareToAsFloat = toCompareTo instanceof PLFloat ? (PLFloat) toCompareTo : new PLFloat((PLInteger) toCompareTo);
-                                if (referenceAsFloat.get().compareTo(toCompareToAsFloat.get()) >= 0) {
+                                if (compareNumbers(reference, toCompareTo) >= 0) {
                                     return PLBoolean.getFalse();
                                 }
                             } else {
@@ -714,13 +977,22 @@ public class Interpreter {
         }
     }
 
-    private PLData processExpression(AST tree, Map<String, ASTElem>  paramAssignments) {
+    private int compareNumbers(PLData reference, PLData toCompareTo) {
+        if (reference instanceof PLInteger && toCompareTo instanceof PLInteger) {
+            return ((PLInteger) reference).compareTo((PLInteger) toCompareTo);
+        }
+        PLFloat referenceAsFloat = reference instanceof PLFloat ? (PLFloat) reference : new PLFloat((PLInteger) reference);
+        PLFloat toCompareToAsFloat = toCompareTo instanceof PLFloat ? (PLFloat) toCompareTo : new PLFloat((PLInteger) toCompareTo);
+        return referenceAsFloat.get().compareTo(toCompareToAsFloat.get());
+    }
+
+    private PLData processExpression(AST tree, Map<String, ParameterValue>  paramAssignments, boolean tailPosition) {
         if (isSimpleRule(tree.getRule())) {
-            return run((AST) tree.getChild(0), paramAssignments);
+            return run((AST) tree.getChild(0), paramAssignments, tailPosition);
         }
         if (tree.getRule().getOrigin().equals(new ParseRule("Expression").addRhs(bound(nonTerm("ComparitiveExpression"), "e", false)))) {
             if (tree.getChildren().size() == 1) {
-                return run((AST) tree.getChild(0), paramAssignments);
+                return run((AST) tree.getChild(0), paramAssignments, tailPosition);
             } else {
                 throw new UnsupportedOperationException();
             }
@@ -729,17 +1001,104 @@ public class Interpreter {
         }
     }
 
-    private PLData processHighLevel(AST tree, Map<String, ASTElem>  paramAssignments) {
-        ASTElemList declarationList = (ASTElemList) tree.getChild(0);
-        for (ASTElem astElem : declarationList) {
-            AST declaration = (AST) ((ASTElemList) astElem).get(1);
-            addDeclarationAsFunction(declaration);
+    /**
+     * A call to a user declaration whose arguments are bound, but whose body has not been executed yet.
+     */
+    private static final class TailCall extends PLData {
+
+        private final ParseRule declaration;
+        private final AST callSite;
+        private final List<PLData> arguments;
+        private final AST body;
+        private final Map<String, ParameterValue> parameters;
+
+        private TailCall(ParseRule declaration, AST callSite, List<PLData> arguments, AST body, Map<String, ParameterValue> parameters) {
+            this.declaration = declaration;
+            this.callSite = callSite;
+            this.arguments = arguments;
+            this.body = body;
+            this.parameters = parameters;
         }
-        AST optionalExpression = (AST) tree.getChild(2);
-        if (optionalExpression.getChildren().size() == 0) {
-            return null;
-        } else {
-            return run((AST) optionalExpression.getChild(0), paramAssignments);
+
+        /**
+         * @inheritDoc
+         */
+        @Override
+        public String classString() {
+            return "call";
+        }
+    }
+
+    /**
+     * A lazy argument, which is evaluated every time its value is needed. Parameters it uses are those of the call it
+     * was written in, or, if that call has no parameter with that name, those of the place it is evaluated.
+     */
+    private static final class Closure implements ParameterValue {
+
+        private final ASTElem expression;
+        private final Map<String, ParameterValue> environment;
+
+        private Closure(ASTElem expression, Map<String, ParameterValue> environment) {
+            this.expression = expression;
+            this.environment = environment;
+        }
+    }
+
+    /**
+     * A lazy argument that is evaluated the first time its value is needed, after which the value is reused.
+     */
+    private static final class Thunk implements ParameterValue {
+
+        private final ASTElem expression;
+        private final Map<String, ParameterValue> environment;
+        private PLData value = null;
+
+        private Thunk(ASTElem expression, Map<String, ParameterValue> environment) {
+            this.expression = expression;
+            this.environment = environment;
+        }
+    }
+
+    /**
+     * Parameter assignments while a lazy argument is evaluated: the parameters of the call the argument was written
+     * in, and otherwise those of the place it is evaluated. Only the place of evaluation that is not itself a lazy
+     * argument is kept, such that scopes do not nest deeper than the arguments that were written.
+     */
+    private static final class Scope extends AbstractMap<String, ParameterValue> {
+
+        private final Map<String, ParameterValue> lexical;
+        private final Map<String, ParameterValue> dynamic;
+
+        private Scope(Map<String, ParameterValue> lexical, Map<String, ParameterValue> dynamic) {
+            this.lexical = lexical;
+            this.dynamic = dynamic instanceof Scope ? ((Scope) dynamic).dynamic : dynamic;
+        }
+
+        /**
+         * @inheritDoc
+         */
+        @Override
+        public ParameterValue get(Object key) {
+            ParameterValue value = lexical.get(key);
+            return value != null ? value : dynamic.get(key);
+        }
+
+        /**
+         * @inheritDoc
+         */
+        @Override
+        public boolean containsKey(Object key) {
+            return lexical.containsKey(key) || dynamic.containsKey(key);
+        }
+
+        /**
+         * @inheritDoc
+         */
+        @Override
+        public Set<Entry<String, ParameterValue>> entrySet() {
+            Map<String, ParameterValue> all = new HashMap<>(dynamic);
+            all.putAll(lexical);
+            return Collections.unmodifiableMap(all).entrySet();
         }
     }
 }
@@ -0,0 +1,139 @@
+package parselang.interpreter;
+
+import parselang.parser.data.*;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Analysis that determines which user declarations are pure, i.e. whose return value only depends on the values of
+ * their eager parameters.
+ */
+public class PurityAnalysis {
+
+    private final Set<ParseRule> pure = new HashSet<>();
+    private final Set<ParseRule> declarationRules;
+
+    /**
+     * Creates a new PurityAnalysis, performing all calculations.
+     * @param declarations bodies of all user declarations, by the rule they were declared with
+     */
+    public PurityAnalysis(Map<ParseRule, AST> declarations) {
+        declarationRules = new HashSet<>(declarations.keySet());
+        Map<ParseRule, Set<ParseRule>> calls = new HashMap<>();
+        for (Map.Entry<ParseRule, AST> declaration : declarations.entrySet()) {
+            Set<ParseRule> called = new HashSet<>();
+            if (!hasLazyParameters(declaration.getKey()) && isLocallyPure(declaration.getValue(), declarations.keySet(), called)) {
+                pure.add(declaration.getKey());
+                calls.put(declaration.getKey(), called);
+            }
+        }
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            Iterator<ParseRule> iterator = pure.iterator();
+            while (iterator.hasNext()) {
+                if (!pure.containsAll(calls.get(iterator.next()))) {
+                    iterator.remove();
+                    changed = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns whether a user declaration is pure
+     * @param declaration rule the declaration was declared with
+     * @return true iff the declaration is pure
+     */
+    public boolean isPure(ParseRule declaration) {
+        return pure.contains(declaration);
+    }
+
+    /**
+     * Returns whether an expression always evaluates to the same value. This is the case if it does not read or write
+     * stored data, does not create maps, only calls pure declarations and every parameter it uses already has a value.
+     * @param expression expression to check, with the values of the parameters it uses filled in
+     * @return true iff evaluating the expression more than once always gives the same result
+     */
+    public boolean isStable(ASTElem expression) {
+        return isStable(expression, name -> false);
+    }
+
+    /**
+     * Returns whether an expression always evaluates to the same value, like {@link #isStable(ASTElem)}, where the
+     * parameters it uses may have values that are not filled in
+     * @param expression expression to check
+     * @param stableParameter whether a parameter, by name, always has the same value
+     * @return true iff evaluating the expression more than once always gives the same result
+     */
+    public boolean isStable(ASTElem expression, Predicate<String> stableParameter) {
+        if (expression instanceof ASTElemList) {
+            for (ASTElem child : (ASTElemList) expression) {
+                if (!isStable(child, stableParameter)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        AST ast = (AST) expression;
+        if (ast.hasOverriddenSemantics()) {
+            return !(ast.getOverriddenSemantics() instanceof ASTElem);
+        }
+        if (ast.getRoot() instanceof Terminal) {
+            return !((Terminal) ast.getRoot()).getValue().equals("~map");
+        }
+        String name = ((NonTerminal) ast.getRoot()).getName();
+        if (name.equals("ParameterName")) {
+            return stableParameter.test(ast.parseString());
+        }
+        if (name.equals("Data")) {
+            return false;
+        }
+        if (ast.getRule() != null && declarationRules.contains(ast.getRule().getOrigin()) && !pure.contains(ast.getRule().getOrigin())) {
+            return false;
+        }
+        for (ASTElem child : ast.getChildren()) {
+            if (!isStable(child, stableParameter)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean hasLazyParameters(ParseRule declaration) {
+        for (Node node : declaration.getRHS()) {
+            if (node instanceof BoundNode && ((BoundNode) node).isLazy()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isLocallyPure(ASTElem tree, Set<ParseRule> declarations, Set<ParseRule> called) {
+        if (tree instanceof ASTElemList) {
+            for (ASTElem child : (ASTElemList) tree) {
+                if (!isLocallyPure(child, declarations, called)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        AST ast = (AST) tree;
+        if (ast.getRoot() instanceof Terminal) {
+            return !((Terminal) ast.getRoot()).getValue().equals("~map");
+        }
+        if (((NonTerminal) ast.getRoot()).getName().equals("Data")) {
+            return false;
+        }
+        if (ast.getRule() != null && declarations.contains(ast.getRule().getOrigin())) {
+            called.add(ast.getRule().getOrigin());
+        }
+        for (ASTElem child : ast.getChildren()) {
+            if (!isLocallyPure(child, declarations, called)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
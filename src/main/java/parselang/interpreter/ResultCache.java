@@ -0,0 +1,115 @@
+package parselang.interpreter;
+
+import parselang.interpreter.data.PLData;
+import parselang.parser.data.ParseRule;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Cache of return values of calls to user declarations that has a limited capacity and removes the least recently used
+ * entry when it is full
+ */
+public class ResultCache {
+
+    private final Map<Key, PLData> cache;
+    private long hits = 0;
+    private long misses = 0;
+
+    /**
+     * Creates a new ResultCache
+     * @param maxSize maximum number of cached results before entries start being thrown away
+     */
+    public ResultCache(int maxSize) {
+        cache = new LinkedHashMap<>(maxSize * 10 / 7, 0.7f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, PLData> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached return value of a call
+     * @param declaration rule of the declaration that is called
+     * @param arguments values of the eager parameters of the call
+     * @return the cached return value, or null if there is none
+     */
+    public PLData get(ParseRule declaration, List<PLData> arguments) {
+        PLData result = cache.get(new Key(declaration, arguments));
+        if (result == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return result;
+    }
+
+    /**
+     * Stores the return value of a call
+     * @param declaration rule of the declaration that is called
+     * @param arguments values of the eager parameters of the call
+     * @param result return value of the call
+     */
+    public void put(ParseRule declaration, List<PLData> arguments, PLData result) {
+        cache.put(new Key(declaration, arguments), result);
+    }
+
+    /**
+     * Returns the number of lookups that found a cached result
+     * @return the number of hits
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of lookups that did not find a cached result
+     * @return the number of misses
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Returns the number of results currently cached
+     * @return the number of results
+     */
+    public int size() {
+        return cache.size();
+    }
+
+    /**
+     * @inheritDoc
+     */
+    @Override
+    public String toString() {
+        return "ResultCache{size=" + size() + ", hits=" + hits + ", misses=" + misses + "}";
+    }
+
+    private static final class Key {
+
+        private final ParseRule declaration;
+        private final List<PLData> arguments;
+
+        private Key(ParseRule declaration, List<PLData> arguments) {
+            this.declaration = declaration;
+            this.arguments = arguments;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return declaration.equals(key.declaration) && arguments.equals(key.arguments);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(declaration, arguments);
+        }
+    }
+}
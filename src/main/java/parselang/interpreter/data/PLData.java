@@ -1,7 +1,16 @@
 package parselang.interpreter.data;
 
+import parselang.util.AllocationRecorder;
+
 public abstract class PLData implements ParameterValue {
 
+    /**
+     * Creates a new value, counting it when allocations are accounted
+     */
+    protected PLData() {
+        AllocationRecorder.allocated(this, null);
+    }
+
     /**
      * Provides a string that gives an indication of the type (in a user friendly way)
      * @return the string representing the class
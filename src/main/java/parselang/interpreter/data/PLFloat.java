@@ -1,6 +1,7 @@
 package parselang.interpreter.data;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.util.Objects;
 
 /**
@@ -12,14 +13,22 @@ public class PLFloat extends PLData {
      * Decimals behind the floating point, i.e. accuracy
      */
     public static final int SCALE = 20;
-    private BigDecimal content;
+    private final BigDecimal content;
 
     /**
      * Creates a floating point number with the value of an integer
      * @param integer integer to create a floating point number of
      */
     public PLFloat(PLInteger integer) {
-        content = new BigDecimal(integer.get());
+        content = integer.fitsInLong() ? BigDecimal.valueOf(integer.longValue()) : new BigDecimal(integer.get());
+    }
+
+    /**
+     * Creates a floating point number with a given value
+     * @param value initial value
+     */
+    public PLFloat(BigDecimal value) {
+        content = value;
     }
 
     /**
@@ -31,19 +40,56 @@ public class PLFloat extends PLData {
     }
 
     /**
-     * Sets the value of this floating point number
-     * @param newValue new value
+     * Returns the sum of this floating point number and another
+     * @param other floating point number to add
+     * @return the sum
      */
-    public void set(BigDecimal newValue) {
-        content = newValue;
+    public PLFloat add(PLFloat other) {
+        return new PLFloat(content.add(other.content));
     }
 
     /**
-     * Adds a floating point number to this one.
-     * @param other floating point number to add
+     * Returns the difference between this floating point number and another
+     * @param other floating point number to subtract
+     * @return the difference
+     */
+    public PLFloat subtract(PLFloat other) {
+        return new PLFloat(content.subtract(other.content));
+    }
+
+    /**
+     * Returns the product of this floating point number and another
+     * @param other floating point number to multiply with
+     * @return the product
+     */
+    public PLFloat multiply(PLFloat other) {
+        return new PLFloat(content.multiply(other.content));
+    }
+
+    /**
+     * Returns the quotient of this floating point number and another, rounded to SCALE decimals
+     * @param other floating point number to divide by
+     * @return the quotient
+     */
+    public PLFloat divide(PLFloat other) {
+        return new PLFloat(content.divide(other.content, SCALE, RoundingMode.HALF_DOWN));
+    }
+
+    /**
+     * Returns the remainder of the division of this floating point number by another
+     * @param other floating point number to divide by
+     * @return the remainder
+     */
+    public PLFloat remainder(PLFloat other) {
+        return new PLFloat(content.remainder(other.content));
+    }
+
+    /**
+     * Returns the negation of this floating point number
+     * @return the negation
      */
-    public void add(PLFloat other) {
-        content = content.add(other.get());
+    public PLFloat negate() {
+        return new PLFloat(content.negate());
     }
 
     /**
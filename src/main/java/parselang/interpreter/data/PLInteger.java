@@ -1,14 +1,28 @@
 package parselang.interpreter.data;
 
 import java.math.BigInteger;
-import java.util.Objects;
 
 /**
- * Class representing integer numbers in ParseLang
+ * Class representing integer numbers in ParseLang. Values that fit in a long are stored as such, larger values are
+ * stored as a BigInteger. Operations only fall back to BigInteger arithmetic when the result does not fit in a long.
  */
 public class PLInteger extends PLData{
 
-    private BigInteger content;
+    private static final BigInteger LONG_MIN = BigInteger.valueOf(Long.MIN_VALUE);
+    private static final BigInteger LONG_MAX = BigInteger.valueOf(Long.MAX_VALUE);
+
+    private static final int CACHE_LOW = -128;
+    private static final int CACHE_HIGH = 1024;
+    private static final PLInteger[] CACHE = new PLInteger[CACHE_HIGH - CACHE_LOW];
+
+    static {
+        for (int i = 0; i < CACHE.length; i++) {
+            CACHE[i] = new PLInteger(i + CACHE_LOW);
+        }
+    }
+
+    private final long small;
+    private final BigInteger big;
 
     /**
      * Parses an integer from a string
@@ -16,14 +30,39 @@ public class PLInteger extends PLData{
      * @throws NumberFormatException stringValue is not a valid representation of an integer.
      */
     public PLInteger(PLString stringValue) {
-        content = new BigInteger(stringValue.contents);
+        this(stringValue.toString());
+    }
+
+    /**
+     * Parses an integer from a string
+     * @param stringValue String representation of an integer
+     * @throws NumberFormatException stringValue is not a valid representation of an integer.
+     */
+    public PLInteger(String stringValue) {
+        if (stringValue.length() < 19) {
+            small = Long.parseLong(stringValue);
+            big = null;
+        } else {
+            BigInteger value = new BigInteger(stringValue);
+            small = fitsInLong(value) ? value.longValue() : 0;
+            big = fitsInLong(value) ? null : value;
+        }
     }
 
     /**
      * Creates a new integer with value zero.
      */
     public PLInteger() {
-        content = new BigInteger("0");
+        this(0);
+    }
+
+    /**
+     * Creates a new integer and initializes it to a value
+     * @param value initial value of the integer
+     */
+    public PLInteger(long value) {
+        small = value;
+        big = null;
     }
 
     /**
@@ -31,7 +70,29 @@ public class PLInteger extends PLData{
      * @param bigInteger initial value of the integer
      */
     public PLInteger(BigInteger bigInteger) {
-        this.content = bigInteger;
+        if (fitsInLong(bigInteger)) {
+            small = bigInteger.longValue();
+            big = null;
+        } else {
+            small = 0;
+            big = bigInteger;
+        }
+    }
+
+    /**
+     * Returns an integer with a given value. Common small values are shared instances.
+     * @param value value of the integer
+     * @return an integer with that value
+     */
+    public static PLInteger valueOf(long value) {
+        if (value >= CACHE_LOW && value < CACHE_HIGH) {
+            return CACHE[(int) value - CACHE_LOW];
+        }
+        return new PLInteger(value);
+    }
+
+    private static boolean fitsInLong(BigInteger value) {
+        return value.compareTo(LONG_MIN) >= 0 && value.compareTo(LONG_MAX) <= 0;
     }
 
     /**
@@ -39,15 +100,121 @@ public class PLInteger extends PLData{
      * @return the BigInteger value
      */
     public BigInteger get() {
-        return content;
+        return big == null ? BigInteger.valueOf(small) : big;
+    }
+
+    /**
+     * Returns whether the value of this integer fits in a long
+     * @return true iff the value fits in a long
+     */
+    public boolean fitsInLong() {
+        return big == null;
+    }
+
+    /**
+     * Returns the value of this integer as a long. Only valid if the value fits in a long.
+     * @return the long value
+     */
+    public long longValue() {
+        assert big == null;
+        return small;
+    }
+
+    /**
+     * Returns the sum of this integer and another
+     * @param other integer to add
+     * @return the sum
+     */
+    public PLInteger add(PLInteger other) {
+        if (big == null && other.big == null) {
+            try {
+                return valueOf(Math.addExact(small, other.small));
+            } catch (ArithmeticException overflow) {
+                //fall back to BigInteger arithmetic
+            }
+        }
+        return new PLInteger(get().add(other.get()));
+    }
+
+    /**
+     * Returns the difference between this integer and another
+     * @param other integer to subtract
+     * @return the difference
+     */
+    public PLInteger subtract(PLInteger other) {
+        if (big == null && other.big == null) {
+            try {
+                return valueOf(Math.subtractExact(small, other.small));
+            } catch (ArithmeticException overflow) {
+                //fall back to BigInteger arithmetic
+            }
+        }
+        return new PLInteger(get().subtract(other.get()));
+    }
+
+    /**
+     * Returns the product of this integer and another
+     * @param other integer to multiply with
+     * @return the product
+     */
+    public PLInteger multiply(PLInteger other) {
+        if (big == null && other.big == null) {
+            try {
+                return valueOf(Math.multiplyExact(small, other.small));
+            } catch (ArithmeticException overflow) {
+                //fall back to BigInteger arithmetic
+            }
+        }
+        return new PLInteger(get().multiply(other.get()));
+    }
+
+    /**
+     * Returns the quotient of this integer and another, rounded towards zero
+     * @param other integer to divide by
+     * @return the quotient
+     * @throws ArithmeticException if other is zero
+     */
+    public PLInteger divide(PLInteger other) {
+        if (big == null && other.big == null && !(small == Long.MIN_VALUE && other.small == -1)) {
+            return valueOf(small / other.small);
+        }
+        return new PLInteger(get().divide(other.get()));
+    }
+
+    /**
+     * Returns the remainder of the division of this integer by another
+     * @param other integer to divide by
+     * @return the remainder, which has the sign of this integer
+     * @throws ArithmeticException if other is zero
+     */
+    public PLInteger remainder(PLInteger other) {
+        if (big == null && other.big == null) {
+            return valueOf(small % other.small);
+        }
+        return new PLInteger(get().remainder(other.get()));
+    }
+
+    /**
+     * Returns the negation of this integer
+     * @return the negation
+     */
+    public PLInteger negate() {
+        if (big == null && small != Long.MIN_VALUE) {
+            return valueOf(-small);
+        }
+        return new PLInteger(get().negate());
     }
 
     /**
-     * Sets the content of this mutible integer to a new value
-     * @param content new value
+     * Compares this integer to another
+     * @param other integer to compare to
+     * @return a negative number, zero or a positive number if this integer is smaller than, equal to or larger than the other
      */
-    public void set(BigInteger content) {
-        this.content = content;
+    public int compareTo(PLInteger other) {
+        if (big == null && other.big == null) {
+            return Long.compare(small, other.small);
+        }
+        return get().compareTo(other.get());
     }
 
     /**
@@ -55,7 +222,7 @@ public class PLInteger extends PLData{
      */
     @Override
     public String toString() {
-        return content.toString();
+        return big == null ? Long.toString(small) : big.toString();
     }
 
     /**
@@ -66,7 +233,7 @@ public class PLInteger extends PLData{
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         PLInteger plInteger = (PLInteger) o;
-        return content.equals(plInteger.content);
+        return big == null ? plInteger.big == null && small == plInteger.small : big.equals(plInteger.big);
     }
 
     /**
@@ -74,7 +241,7 @@ public class PLInteger extends PLData{
      */
     @Override
     public int hashCode() {
-        return Objects.hash(content);
+        return big == null ? Long.hashCode(small) : big.hashCode();
     }
 
     /**
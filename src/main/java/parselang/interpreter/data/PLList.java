@@ -1,6 +1,5 @@
 package parselang.interpreter.data;
 
-import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Objects;
 import java.util.function.Consumer;
@@ -10,6 +9,9 @@ import java.util.function.Consumer;
  */
 public class PLList extends PLData implements PLIndexable {
 
+    private static final PLInteger ZERO = new PLInteger();
+    private static final PLInteger MAX_INDEX = new PLInteger(Integer.MAX_VALUE);
+
     private final ArrayList<PLData> content = new ArrayList<>();
 
     public void add(PLData item) {
@@ -68,10 +70,7 @@ public class PLList extends PLData implements PLIndexable {
         if (!(index instanceof PLInteger)) {
             throw new IllegalArgumentException("List index must be integer!");
         } else {
-            if (((PLInteger) index).get().compareTo(BigInteger.valueOf(Integer.MAX_VALUE)) > 0) {
-                throw new IllegalArgumentException("List index must be smaller than " + Integer.MAX_VALUE + "!");
-            }
-            return content.get(((PLInteger) index).get().intValue());
+            return content.get(toIndex((PLInteger) index));
         }
     }
 
@@ -81,19 +80,23 @@ public class PLList extends PLData implements PLIndexable {
     @Override
     public void set(PLData index, PLData value) {
         if (index instanceof PLInteger) {
-            PLInteger indexInteger = (PLInteger) index;
-            if (indexInteger.get().compareTo(BigInteger.valueOf(Integer.MAX_VALUE)) > 0) {
-                throw new IllegalArgumentException("List index must be smaller than " + Integer.MAX_VALUE + "!");
-            }
-            if (indexInteger.get().compareTo(BigInteger.valueOf(Integer.MAX_VALUE)) > 0) {
+            int indexInt = toIndex((PLInteger) index);
+            if (indexInt < 0) {
                 throw new IllegalArgumentException("List index cannot be negative!");
             }
-            while (indexInteger.get().compareTo(BigInteger.valueOf(content.size())) >= 0) {
+            while (indexInt >= content.size()) {
                 content.add(PLNull.get());
             }
-            content.set(indexInteger.get().intValue(), value);
+            content.set(indexInt, value);
         } else {
             throw new IllegalArgumentException("List can only be indexed with integer!");
         }
     }
+
+    private static int toIndex(PLInteger index) {
+        if (index.compareTo(MAX_INDEX) > 0) {
+            throw new IllegalArgumentException("List index must be smaller than " + Integer.MAX_VALUE + "!");
+        }
+        return index.compareTo(ZERO) < 0 ? -1 : (int) index.longValue();
+    }
 }
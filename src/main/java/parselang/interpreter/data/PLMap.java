@@ -1,27 +1,38 @@
 package parselang.interpreter.data;
 
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.Objects;
-import java.util.stream.Collectors;
+import java.util.Arrays;
 
 /**
- * Class representing maps in ParseLang
+ * Class representing maps in ParseLang. Entries are stored in insertion order, together with the hash of their key, and
+ * are found through an open addressing table with linear probing. Entries are never removed, so the index of an entry
+ * never changes.
  */
 public class PLMap extends PLData implements PLIndexable {
 
-    private final Map<PLData, PLData> content = new HashMap<>();
+    private static final int INITIAL_CAPACITY = 4;
+
+    /**
+     * Open addressing table, containing for each slot either 0 if it is empty, or the index of an entry plus one.
+     */
+    private int[] slots = new int[INITIAL_CAPACITY * 2];
+    private PLData[] keys = new PLData[INITIAL_CAPACITY];
+    private PLData[] values = new PLData[INITIAL_CAPACITY];
+    private int[] hashes = new int[INITIAL_CAPACITY];
+    private int size = 0;
 
     /**
      * @inheritDoc
      */
     @Override
     public PLData get(PLData index) {
-        if (!content.containsKey(index)) {
-            set(index, new PLMap());
+        int hash = index.hashCode();
+        int slot = findSlot(index, hash);
+        if (slots[slot] != 0) {
+            return values[slots[slot] - 1];
         }
-        return content.get(index);
+        PLMap created = new PLMap();
+        insert(slot, index, hash, created);
+        return created;
     }
 
     /**
@@ -29,7 +40,101 @@ public class PLMap extends PLData implements PLIndexable {
      */
     @Override
     public void set(PLData key, PLData value) {
-        content.put(key, value);
+        int hash = key.hashCode();
+        int slot = findSlot(key, hash);
+        if (slots[slot] != 0) {
+            values[slots[slot] - 1] = value;
+        } else {
+            insert(slot, key, hash, value);
+        }
+    }
+
+    /**
+     * Returns the index of the entry with a given key, adding an entry with an empty map as value if there is none.
+     * @param key key of the entry
+     * @return the index of the entry
+     */
+    public int getEntry(PLData key) {
+        int hash = key.hashCode();
+        int slot = findSlot(key, hash);
+        if (slots[slot] == 0) {
+            insert(slot, key, hash, new PLMap());
+            return size - 1;
+        }
+        return slots[slot] - 1;
+    }
+
+    /**
+     * Returns the value of an entry
+     * @param entry index of the entry
+     * @return the value
+     */
+    public PLData getEntryValue(int entry) {
+        return values[entry];
+    }
+
+    /**
+     * Sets the value of an entry
+     * @param entry index of the entry
+     * @param value the new value
+     */
+    public void setEntryValue(int entry, PLData value) {
+        values[entry] = value;
+    }
+
+    /**
+     * Returns the number of entries in this map
+     * @return the number of entries
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the slot that contains the entry with the given key, or the empty slot where it should be inserted.
+     */
+    private int findSlot(PLData key, int hash) {
+        int mask = slots.length - 1;
+        int slot = spread(hash) & mask;
+        while (slots[slot] != 0) {
+            int entry = slots[slot] - 1;
+            if (hashes[entry] == hash && (keys[entry] == key || keys[entry].equals(key))) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void insert(int slot, PLData key, int hash, PLData value) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+            hashes = Arrays.copyOf(hashes, size * 2);
+        }
+        keys[size] = key;
+        values[size] = value;
+        hashes[size] = hash;
+        slots[slot] = ++size;
+        if (size * 3 >= slots.length * 2) {
+            rehash(slots.length * 2);
+        }
+    }
+
+    private void rehash(int capacity) {
+        slots = new int[capacity];
+        int mask = capacity - 1;
+        for (int entry = 0; entry < size; entry++) {
+            int slot = spread(hashes[entry]) & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = entry + 1;
+        }
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
     }
 
     /**
@@ -40,7 +145,16 @@ public class PLMap extends PLData implements PLIndexable {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         PLMap plMap = (PLMap) o;
-        return content.equals(plMap.content);
+        if (size != plMap.size) {
+            return false;
+        }
+        for (int entry = 0; entry < size; entry++) {
+            int otherSlot = plMap.findSlot(keys[entry], hashes[entry]);
+            if (plMap.slots[otherSlot] == 0 || !values[entry].equals(plMap.values[plMap.slots[otherSlot] - 1])) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
@@ -48,7 +162,11 @@ public class PLMap extends PLData implements PLIndexable {
      */
     @Override
     public int hashCode() {
-        return Objects.hash(content);
+        int hash = 0;
+        for (int entry = 0; entry < size; entry++) {
+            hash += hashes[entry] ^ values[entry].hashCode();
+        }
+        return hash;
     }
 
     /**
@@ -65,8 +183,12 @@ public class PLMap extends PLData implements PLIndexable {
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder("{");
-        List<String> list = content.entrySet().stream().map(entry -> entry.getKey() + " : " + entry.getValue()).collect(Collectors.toList());
-        sb.append(String.join(", ", list));
+        for (int entry = 0; entry < size; entry++) {
+            if (entry > 0) {
+                sb.append(", ");
+            }
+            sb.append(keys[entry]).append(" : ").append(values[entry]);
+        }
         sb.append("}");
         return sb.toString();
     }
@@ -1,14 +1,22 @@
 package parselang.interpreter.data;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.List;
-import java.util.Objects;
 
 /**
- * Class representing a string in ParseLang
+ * Class representing a string in ParseLang. Strings created by concatenation only store the strings they consist of,
+ * such that concatenating takes constant time. They are flattened into a single String the first time their contents
+ * are needed.
  */
 public class PLString extends PLData {
 
-    final String contents;
+    /**
+     * Either the String value of this string, or the PLString[] of which this string is the concatenation.
+     */
+    private volatile Object contents;
+    private final int length;
+    private int hash;
 
     /**
      * Creates a new string with an initial value
@@ -16,6 +24,7 @@ public class PLString extends PLData {
      */
     public PLString(String contents) {
         this.contents = contents;
+        this.length = contents.length();
     }
 
     /**
@@ -23,9 +32,13 @@ public class PLString extends PLData {
      * @param together strings to concatenate and to initialise this with
      */
     public PLString(List<PLString> together) {
-        StringBuilder sb = new StringBuilder();
-        together.forEach(plString -> sb.append(plString.getContents()));
-        contents = sb.toString();
+        PLString[] parts = together.toArray(new PLString[0]);
+        int totalLength = 0;
+        for (PLString part : parts) {
+            totalLength += part.length;
+        }
+        this.contents = parts;
+        this.length = totalLength;
     }
 
     /**
@@ -34,11 +47,56 @@ public class PLString extends PLData {
      */
     public PLString(PLData base) {
         super();
-        contents = base.toString();
+        if (base instanceof PLString) {
+            Object baseContents = ((PLString) base).contents;
+            contents = baseContents instanceof String ? baseContents : new PLString[]{(PLString) base};
+            length = ((PLString) base).length;
+        } else {
+            String baseString = base.toString();
+            contents = baseString;
+            length = baseString.length();
+        }
+    }
+
+    /**
+     * Returns the string representation of some value in ParseLang as string, without copying it if it already is one
+     * @param base value to convert
+     * @return the string representation
+     */
+    public static PLString valueOf(PLData base) {
+        return base instanceof PLString ? (PLString) base : new PLString(base);
+    }
+
+    /**
+     * Returns the number of characters in this string
+     * @return the length
+     */
+    public int length() {
+        return length;
     }
 
     private String getContents() {
-        return contents;
+        Object current = contents;
+        if (current instanceof String) {
+            return (String) current;
+        }
+        StringBuilder sb = new StringBuilder(length);
+        Deque<PLString> toAppend = new ArrayDeque<>();
+        toAppend.push(this);
+        while (!toAppend.isEmpty()) {
+            Object next = toAppend.pop().contents;
+            if (next instanceof String) {
+                sb.append((String) next);
+            } else {
+                PLString[] parts = (PLString[]) next;
+                for (int i = parts.length - 1; i >= 0; i--) {
+                    toAppend.push(parts[i]);
+                }
+            }
+        }
+        String flattened = sb.toString();
+        contents = flattened;
+        return flattened;
     }
 
     /**
@@ -46,7 +104,7 @@ public class PLString extends PLData {
      */
     @Override
     public String toString() {
-        return contents;
+        return getContents();
     }
 
     /**
@@ -57,7 +115,7 @@ public class PLString extends PLData {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         PLString plString = (PLString) o;
-        return contents.equals(plString.contents);
+        return length == plString.length && getContents().equals(plString.getContents());
     }
 
     /**
@@ -65,7 +123,12 @@ public class PLString extends PLData {
      */
     @Override
     public int hashCode() {
-        return Objects.hash(contents);
+        int h = hash;
+        if (h == 0) {
+            h = getContents().hashCode();
+            hash = h;
+        }
+        return h;
     }
 
     /**
@@ -0,0 +1,72 @@
+package parselang.interpreter.profiling;
+
+/**
+ * Counters of the calls to a single user declaration. Exclusive time only includes the time spent in the body of the
+ * declaration itself, while inclusive time also includes the declarations it called. Inclusive time of recursive calls
+ * is only counted once, for the outermost call.
+ */
+public class DeclarationCounters {
+
+    private final String name;
+    private final long calls;
+    private final long cachedCalls;
+    private final long exclusiveNanos;
+    private final long inclusiveNanos;
+
+    DeclarationCounters(String name, long calls, long cachedCalls, long exclusiveNanos, long inclusiveNanos) {
+        this.name = name;
+        this.calls = calls;
+        this.cachedCalls = cachedCalls;
+        this.exclusiveNanos = exclusiveNanos;
+        this.inclusiveNanos = inclusiveNanos;
+    }
+
+    /**
+     * Returns the name of the declaration these counters belong to
+     * @return the name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the number of times the body of the declaration was executed, including calls in tail position
+     * @return the number of calls
+     */
+    public long getCalls() {
+        return calls;
+    }
+
+    /**
+     * Returns the number of calls that were answered from the result cache without executing the body
+     * @return the number of cached calls
+     */
+    public long getCachedCalls() {
+        return cachedCalls;
+    }
+
+    /**
+     * Returns the time spent in the body of the declaration, excluding the declarations it called
+     * @return the time in nanoseconds
+     */
+    public long getExclusiveNanos() {
+        return exclusiveNanos;
+    }
+
+    /**
+     * Returns the time spent in the body of the declaration, including the declarations it called
+     * @return the time in nanoseconds
+     */
+    public long getInclusiveNanos() {
+        return inclusiveNanos;
+    }
+
+    /**
+     * @inheritDoc
+     */
+    @Override
+    public String toString() {
+        return name + ": " + calls + " calls, " + cachedCalls + " cached calls, " + exclusiveNanos / 1_000_000 + " ms exclusive, "
+                + inclusiveNanos / 1_000_000 + " ms inclusive";
+    }
+}
@@ -0,0 +1,98 @@
+package parselang.interpreter.profiling;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Snapshot of the counters collected by a DeclarationProfiler
+ */
+public class DeclarationProfile {
+
+    /**
+     * Orders counters by exclusive time, the declaration whose own body is most expensive first
+     */
+    public static final Comparator<DeclarationCounters> BY_EXCLUSIVE_TIME = Comparator.comparingLong(DeclarationCounters::getExclusiveNanos).reversed();
+
+    /**
+     * Orders counters by inclusive time, most expensive first
+     */
+    public static final Comparator<DeclarationCounters> BY_INCLUSIVE_TIME = Comparator.comparingLong(DeclarationCounters::getInclusiveNanos).reversed();
+
+    /**
+     * Orders counters by number of calls, most called first
+     */
+    public static final Comparator<DeclarationCounters> BY_CALLS = Comparator.comparingLong(DeclarationCounters::getCalls).reversed();
+
+    private final Map<String, DeclarationCounters> declarations;
+    private final Map<String, Long> collapsed;
+
+    DeclarationProfile(Map<String, DeclarationCounters> declarations, Map<String, Long> collapsed) {
+        this.declarations = Collections.unmodifiableMap(declarations);
+        this.collapsed = Collections.unmodifiableMap(collapsed);
+    }
+
+    /**
+     * Returns the counters of every declaration that was called
+     * @return the counters by name of the declaration
+     */
+    public Map<String, DeclarationCounters> getDeclarations() {
+        return declarations;
+    }
+
+    /**
+     * Returns the counters of a declaration
+     * @param declaration name of the declaration
+     * @return its counters, or null if it was never called
+     */
+    public DeclarationCounters get(String declaration) {
+        return declarations.get(declaration);
+    }
+
+    /**
+     * Returns the exclusive time spent per stack of declarations
+     * @return the time in nanoseconds, by stack of declaration names from outermost to innermost, separated by ;
+     */
+    public Map<String, Long> getCollapsedStacks() {
+        return collapsed;
+    }
+
+    /**
+     * Writes the exclusive time per stack of declarations in the collapsed stack format of flame graph tools: one line
+     * per stack, with the names of the declarations separated by ; followed by the time in microseconds
+     * @param out where to write to
+     * @throws IOException if writing failed
+     */
+    public void writeCollapsed(Appendable out) throws IOException {
+        for (Map.Entry<String, Long> stack : collapsed.entrySet()) {
+            long micros = stack.getValue() / 1000;
+            if (micros > 0) {
+                out.append(stack.getKey().replace(' ', '_')).append(" ").append(String.valueOf(micros)).append("\n");
+            }
+        }
+    }
+
+    /**
+     * Creates a table of the most significant declarations
+     * @param order order of the rows
+     * @param limit maximum number of declarations to show
+     * @return the table
+     */
+    public String toText(Comparator<DeclarationCounters> order, int limit) {
+        StringBuilder sb = new StringBuilder("Declarations (").append(declarations.size()).append(")\n");
+        sb.append(String.format(Locale.ROOT, "%10s %10s %12s %12s  %s%n", "calls", "cached", "exclusive ms", "inclusive ms", "name"));
+        for (DeclarationCounters c : declarations.values().stream().sorted(order).limit(limit).collect(Collectors.toList())) {
+            sb.append(String.format(Locale.ROOT, "%10d %10d %12.1f %12.1f  %s%n", c.getCalls(), c.getCachedCalls(),
+                    c.getExclusiveNanos() / 1e6, c.getInclusiveNanos() / 1e6, c.getName()));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @inheritDoc
+     */
+    @Override
+    public String toString() {
+        return toText(BY_EXCLUSIVE_TIME, 20);
+    }
+}
@@ -0,0 +1,169 @@
+package parselang.interpreter.profiling;
+
+import parselang.parser.data.AST;
+import parselang.parser.data.SourceMap;
+
+import java.util.*;
+
+/**
+ * Keeps a shadow stack of the user declarations an interpreter is executing, and counts the calls and time per
+ * declaration and per stack of declarations. A profiler can be shared by interpreters running in parallel, each thread
+ * has its own stack. Calls in tail position replace the top of the stack, like they do in the interpreter.
+ */
+public class DeclarationProfiler {
+
+    private final ThreadLocal<Deque<Frame>> stacks = ThreadLocal.withInitial(ArrayDeque::new);
+    private final Map<String, Counter> declarations = new HashMap<>();
+    private final StackNode root = new StackNode(null);
+
+    /**
+     * Records that the interpreter starts executing the body of a declaration. Called by interpreters.
+     * @param declaration name of the declaration
+     * @param callSite AST of the call
+     */
+    public void enter(String declaration, AST callSite) {
+        Deque<Frame> stack = stacks.get();
+        Frame caller = stack.peek();
+        boolean recursive = false;
+        for (Frame frame : stack) {
+            if (frame.declaration.equals(declaration)) {
+                recursive = true;
+                break;
+            }
+        }
+        StackNode node;
+        synchronized (this) {
+            node = (caller == null ? root : caller.node).child(declaration);
+        }
+        stack.push(new Frame(declaration, callSite, node, recursive, System.nanoTime()));
+    }
+
+    /**
+     * Records that the interpreter finished executing the body of the declaration it entered last. Called by
+     * interpreters.
+     * @throws IllegalStateException if no declaration was entered
+     */
+    public void exit() {
+        long end = System.nanoTime();
+        Deque<Frame> stack = stacks.get();
+        Frame frame = stack.poll();
+        if (frame == null) {
+            throw new IllegalStateException("Exit without a matching enter");
+        }
+        long inclusive = end - frame.start;
+        long exclusive = inclusive - frame.childNanos;
+        Frame caller = stack.peek();
+        if (caller != null) {
+            caller.childNanos += inclusive;
+        }
+        synchronized (this) {
+            Counter counter = declarations.computeIfAbsent(frame.declaration, x -> new Counter());
+            counter.calls++;
+            counter.exclusiveNanos += exclusive;
+            if (!frame.recursive) {
+                counter.inclusiveNanos += inclusive;
+            }
+            frame.node.nanos += exclusive;
+        }
+    }
+
+    /**
+     * Records a call to a declaration that was answered from the result cache. Called by interpreters.
+     * @param declaration name of the declaration
+     */
+    public synchronized void cachedCall(String declaration) {
+        declarations.computeIfAbsent(declaration, x -> new Counter()).cachedCalls++;
+    }
+
+    /**
+     * Returns the declarations the current thread is executing, innermost first, with the position of their call
+     * @return the stack, as declaration name and position of the call
+     */
+    public List<String> getStack() {
+        List<String> res = new ArrayList<>();
+        Map<String, SourceMap> sourceMaps = new IdentityHashMap<>();
+        for (Frame frame : stacks.get()) {
+            SourceMap sourceMap = sourceMaps.computeIfAbsent(frame.callSite.getOriginalString(), SourceMap::new);
+            res.add(frame.declaration + " (" + frame.callSite.getLocation(sourceMap) + ")");
+        }
+        return res;
+    }
+
+    /**
+     * Returns the counters collected so far
+     * @return a snapshot of the counters, which is not changed by later calls
+     */
+    public synchronized DeclarationProfile snapshot() {
+        Map<String, DeclarationCounters> counters = new HashMap<>();
+        declarations.forEach((name, counter) -> counters.put(name, counter.freeze(name)));
+        Map<String, Long> collapsed = new LinkedHashMap<>();
+        root.collapse("", collapsed);
+        return new DeclarationProfile(counters, collapsed);
+    }
+
+    /**
+     * Removes all counters collected so far. Declarations that are being executed are still counted when they finish.
+     */
+    public synchronized void reset() {
+        declarations.clear();
+        root.clear();
+    }
+
+    private static class Frame {
+        private final String declaration;
+        private final AST callSite;
+        private final StackNode node;
+        private final boolean recursive;
+        private final long start;
+        private long childNanos = 0;
+
+        private Frame(String declaration, AST callSite, StackNode node, boolean recursive, long start) {
+            this.declaration = declaration;
+            this.callSite = callSite;
+            this.node = node;
+            this.recursive = recursive;
+            this.start = start;
+        }
+    }
+
+    /**
+     * Stack of declarations, with the exclusive time spent while it was the stack of an interpreter
+     */
+    private static class StackNode {
+        private final String declaration;
+        private final Map<String, StackNode> children = new LinkedHashMap<>();
+        private long nanos = 0;
+
+        private StackNode(String declaration) {
+            this.declaration = declaration;
+        }
+
+        private StackNode child(String declaration) {
+            return children.computeIfAbsent(declaration, StackNode::new);
+        }
+
+        private void collapse(String prefix, Map<String, Long> collapsed) {
+            String stack = declaration == null ? "" : prefix.isEmpty() ? declaration : prefix + ";" + declaration;
+            if (nanos > 0) {
+                collapsed.put(stack, nanos);
+            }
+            children.values().forEach(child -> child.collapse(stack, collapsed));
+        }
+
+        private void clear() {
+            nanos = 0;
+            children.values().forEach(StackNode::clear);
+        }
+    }
+
+    private static class Counter {
+        private long calls;
+        private long cachedCalls;
+        private long exclusiveNanos;
+        private long inclusiveNanos;
+
+        private DeclarationCounters freeze(String name) {
+            return new DeclarationCounters(name, calls, cachedCalls, exclusiveNanos, inclusiveNanos);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package parselang.modules;
+
+import parselang.interpreter.CompiledProgram;
+import parselang.parser.ParseRuleStorage;
+import parselang.parser.data.*;
+import parselang.parser.exceptions.ParseErrorException;
+import parselang.parser.parsers.Parser;
+import parselang.parser.parsers.RecursiveParser;
+import parselang.parser.serialization.TreeDecoder;
+import parselang.parser.serialization.TreeEncoder;
+
+import java.io.*;
+import java.util.*;
+
+import static parselang.parser.ParseRuleStorage.nonTerm;
+
+/**
+ * Precompiled library of declarations. A module holds the changes its declarations make to the grammar and their
+ * bodies, such that programs can use the declarations without parsing them again.
+ */
+public class Module {
+
+    private static final int MAGIC = 0x504C4D31; //PLM1
+
+    private final String source;
+    private final List<CustomRule> customRules;
+    private final List<NonTerminal> registered;
+    private final Map<ParseRule, AST> declarations;
+
+    private Module(String source, List<CustomRule> customRules, List<NonTerminal> registered, Map<ParseRule, AST> declarations) {
+        this.source = source;
+        this.customRules = Collections.unmodifiableList(customRules);
+        this.registered = Collections.unmodifiableList(registered);
+        this.declarations = Collections.unmodifiableMap(declarations);
+    }
+
+    /**
+     * Parses a file of declarations into a module
+     * @param source contents of the file, which may only contain declarations
+     * @param base prepared storage the module is parsed with, which is not changed
+     * @return the module
+     * @throws ParseErrorException if the file could not be parsed
+     * @throws IllegalArgumentException if the file contains an expression besides declarations
+     */
+    public static Module compile(String source, ParseRuleStorage base) throws ParseErrorException {
+        ParseRuleStorage storage = new ParseRuleStorage(base);
+        Parser parser = new RecursiveParser();
+        parser.setVerbosity(0);
+        AST tree = parser.readFile(source, storage, nonTerm("HighLevel")).getTree();
+        CompiledProgram program = CompiledProgram.compile(tree);
+        if (program.getExpression() != null) {
+            throw new IllegalArgumentException("A module may only contain declarations");
+        }
+        List<CustomRule> customRules = new ArrayList<>(storage.getCustomRules().subList(base.getCustomRules().size(), storage.getCustomRules().size()));
+        List<NonTerminal> registered = new ArrayList<>(storage.getRegisteredNonTerminals());
+        registered.removeAll(base.getRegisteredNonTerminals());
+        Map<ParseRule, AST> declarations = new LinkedHashMap<>();
+        for (CustomRule customRule : customRules) {
+            declarations.put(customRule.getAddedRule(), program.getDeclarations().get(customRule.getAddedRule()));
+        }
+        return new Module(source, customRules, registered, declarations);
+    }
+
+    /**
+     * Adds the grammar changes of this module to a storage, such that programs parsed with it can use the declarations
+     * of this module
+     * @param storage storage to add the changes to
+     */
+    public void applyTo(ParseRuleStorage storage) {
+        storage.addCustomRules(customRules, registered);
+    }
+
+    /**
+     * Returns the declarations of this module, which have to be passed to CompiledProgram.compile for programs using them
+     * @return the bodies of the declarations, by the rule they were declared with
+     */
+    public Map<ParseRule, AST> getDeclarations() {
+        return declarations;
+    }
+
+    /**
+     * Writes this module in binary form
+     * @param out stream to write to
+     * @throws IOException if writing failed
+     */
+    public void write(OutputStream out) throws IOException {
+        TreeEncoder encoder = new TreeEncoder(new DataOutputStream(new BufferedOutputStream(out)));
+        encoder.writeInt(MAGIC);
+        encoder.writeString(source);
+        encoder.writeInt(registered.size());
+        for (NonTerminal nonTerminal : registered) {
+            encoder.writeNode(nonTerminal);
+        }
+        encoder.writeInt(customRules.size());
+        for (CustomRule customRule : customRules) {
+            encoder.writeRule(customRule.getInheritedRule());
+            encoder.writeInt(customRule.getDirection().ordinal());
+            encoder.writeRule(customRule.getAddedRule());
+            encoder.writeTree(declarations.get(customRule.getAddedRule()));
+        }
+        encoder.flush();
+    }
+
+    /**
+     * Reads a module written by {@link #write(OutputStream)}
+     * @param in stream to read from
+     * @return the module
+     * @throws IOException if reading failed or the data is not a module
+     */
+    public static Module read(InputStream in) throws IOException {
+        TreeDecoder decoder = new TreeDecoder(new DataInputStream(new BufferedInputStream(in)));
+        if (decoder.readInt() != MAGIC) {
+            throw new IOException("Not a ParseLang module");
+        }
+        String source = decoder.readString();
+        List<NonTerminal> registered = new ArrayList<>();
+        int registeredCount = decoder.readInt();
+        for (int i = 0; i < registeredCount; i++) {
+            registered.add((NonTerminal) decoder.readNode());
+        }
+        List<CustomRule> customRules = new ArrayList<>();
+        Map<ParseRule, AST> declarations = new LinkedHashMap<>();
+        int ruleCount = decoder.readInt();
+        for (int i = 0; i < ruleCount; i++) {
+            ParseRule inheritedRule = decoder.readRule();
+            Direction direction = Direction.values()[decoder.readInt()];
+            ParseRule addedRule = decoder.readRule();
+            customRules.add(new CustomRule(inheritedRule, direction, addedRule));
+            declarations.put(addedRule, (AST) decoder.readTree(source));
+        }
+        return new Module(source, customRules, registered, declarations);
+    }
+}
@@ -0,0 +1,149 @@
+package parselang.modules;
+
+import parselang.interpreter.CompiledProgram;
+import parselang.parser.data.AST;
+import parselang.parser.data.ParseRule;
+import parselang.parser.serialization.TreeDecoder;
+import parselang.parser.serialization.TreeEncoder;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+import static parselang.parser.ParseRuleStorage.nonTerm;
+
+/**
+ * Parsed program in a form that can be stored and executed again without parsing. An image holds the source of the
+ * program with its hash, the AST of the program and the declarations it imported from modules.
+ */
+public class ProgramImage {
+
+    private static final int MAGIC = 0x504C5031; //PLP1
+
+    private final String source;
+    private final byte[] hash;
+    private final AST tree;
+    private final Map<ParseRule, AST> imported;
+
+    /**
+     * Creates an image of a parsed program
+     * @param tree AST of the entire program, with HighLevel as root
+     * @param imported declarations the program uses from modules
+     */
+    public ProgramImage(AST tree, Map<ParseRule, AST> imported) {
+        if (!tree.getRoot().equals(nonTerm("HighLevel"))) {
+            throw new IllegalArgumentException("Only entire programs can be stored, not " + tree.getRoot());
+        }
+        this.source = tree.getOriginalString();
+        this.hash = hash(source);
+        this.tree = tree;
+        this.imported = Collections.unmodifiableMap(new LinkedHashMap<>(imported));
+    }
+
+    /**
+     * Returns whether this image was made from a given source
+     * @param source source of a program
+     * @return true iff the source is the source of the program in this image
+     */
+    public boolean isImageOf(String source) {
+        return Arrays.equals(hash, hash(source));
+    }
+
+    /**
+     * Compiles the program in this image
+     * @return the compiled program
+     */
+    public CompiledProgram compile() {
+        return CompiledProgram.compile(tree, imported);
+    }
+
+    /**
+     * Returns the AST of the program in this image
+     * @return the AST
+     */
+    public AST getTree() {
+        return tree;
+    }
+
+    /**
+     * Writes this image in binary form
+     * @param out stream to write to
+     * @throws IOException if writing failed
+     */
+    public void write(OutputStream out) throws IOException {
+        TreeEncoder encoder = new TreeEncoder(new DataOutputStream(new BufferedOutputStream(out)));
+        encoder.writeInt(MAGIC);
+        encoder.writeBytes(hash);
+        List<String> sources = new ArrayList<>();
+        writeSource(encoder, sources, source);
+        encoder.writeTree(tree);
+        encoder.writeInt(imported.size());
+        for (Map.Entry<ParseRule, AST> declaration : imported.entrySet()) {
+            encoder.writeRule(declaration.getKey());
+            writeSource(encoder, sources, declaration.getValue().getOriginalString());
+            encoder.writeTree(declaration.getValue());
+        }
+        encoder.flush();
+    }
+
+    /**
+     * Reads an image written by {@link #write(OutputStream)}. The image is decoded while it is read.
+     * @param in stream to read from
+     * @return the image
+     * @throws IOException if reading failed, the data is not an image or the stored source does not match its hash
+     */
+    public static ProgramImage read(InputStream in) throws IOException {
+        TreeDecoder decoder = new TreeDecoder(new DataInputStream(new BufferedInputStream(in)));
+        if (decoder.readInt() != MAGIC) {
+            throw new IOException("Not a ParseLang program image");
+        }
+        byte[] hash = decoder.readBytes();
+        List<String> sources = new ArrayList<>();
+        String source = readSource(decoder, sources);
+        if (!Arrays.equals(hash, hash(source))) {
+            throw new IOException("Program image is corrupt: its source does not match its hash");
+        }
+        AST tree = (AST) decoder.readTree(source);
+        Map<ParseRule, AST> imported = new LinkedHashMap<>();
+        int importedCount = decoder.readInt();
+        for (int i = 0; i < importedCount; i++) {
+            ParseRule rule = decoder.readRule();
+            imported.put(rule, (AST) decoder.readTree(readSource(decoder, sources)));
+        }
+        return new ProgramImage(tree, imported);
+    }
+
+    private static void writeSource(TreeEncoder encoder, List<String> sources, String source) throws IOException {
+        for (int i = 0; i < sources.size(); i++) {
+            if (sources.get(i) == source) {
+                encoder.writeInt(i);
+                return;
+            }
+        }
+        encoder.writeInt(sources.size());
+        encoder.writeString(source);
+        sources.add(source);
+    }
+
+    private static String readSource(TreeDecoder decoder, List<String> sources) throws IOException {
+        int index = decoder.readInt();
+        if (index < sources.size()) {
+            return sources.get(index);
+        } else if (index > sources.size()) {
+            throw new IOException("Source " + index + " is used before it is defined");
+        }
+        String source = decoder.readString();
+        sources.add(source);
+        return source;
+    }
+
+    private static byte[] hash(String source) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(source.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package parselang.parser;
 
 import parselang.parser.data.AST;
+import parselang.util.AllocationRecorder;
 
 public class ParseResult {
 
@@ -15,6 +16,7 @@ public class ParseResult {
     public ParseResult(String original, AST tree) {
         this.original = original;
         this.tree = tree;
+        AllocationRecorder.allocated(this, tree.getRoot());
     }
 
     /**
@@ -1,7 +1,9 @@
 package parselang.parser;
 
 
+import parselang.events.GrammarUpdateEvent;
 import parselang.languages.Language;
+import parselang.parser.analysis.GrammarAnalyzer;
 import parselang.parser.data.*;
 import parselang.parser.rulealgorithms.*;
 
@@ -20,6 +22,30 @@ public class ParseRuleStorage {
     private final FollowCalculator followCalc = new NaiveFollowCalculator();
     private final FirstPlusCalculator firstPlusCalc = new NaiveFirstPlusCalculator();
     private NonTerminal toplevel;
+    private final List<CustomRule> customRules = new ArrayList<>();
+    private GrammarAnalyzer analyzer = null;
+
+    /**
+     * Creates an empty parse rule storage
+     */
+    public ParseRuleStorage() {
+    }
+
+    /**
+     * Creates a copy of a parse rule storage, such that a prepared storage can be reused without repeating the
+     * calculations. Changes to the copy do not affect the original and vice versa.
+     * @param base storage to copy
+     */
+    public ParseRuleStorage(ParseRuleStorage base) {
+        base.rules.forEach((nonTerminal, rulesForNonTerminal) -> rules.put(nonTerminal, new LinkedList<>(rulesForNonTerminal)));
+        firstPlus = base.firstPlus;
+        allNonterminals.addAll(base.allNonterminals);
+        toplevel = base.toplevel;
+        parameterNameRules.addAll(base.parameterNameRules);
+        registered.addAll(base.registered);
+        customRules.addAll(base.customRules);
+        analyzer = base.analyzer;
+    }
 
 
     /**
@@ -30,7 +56,8 @@ public class ParseRuleStorage {
     public void prepare(Language lang, NonTerminal toplevel) {
         this.toplevel = toplevel;
         setDefaults(lang);
-        calculateFirstPlus(toplevel);
+        calculateFirstPlus(toplevel, "prepare");
+        analyze();
     }
 
     /**
@@ -40,9 +67,92 @@ public class ParseRuleStorage {
      * @param addedRule rule that was added by the user
      */
     public void addCustomRules(ParseRule inheritedRule, Direction inheritedRuleDirection, ParseRule addedRule) {
+        customRules.add(new CustomRule(inheritedRule, inheritedRuleDirection, addedRule));
         addRule(inheritedRule, inheritedRuleDirection);
         addRule(addedRule, Direction.RIGHT);
-        calculateFirstPlus(toplevel);
+        calculateFirstPlus(toplevel, "declaration");
+        analyze();
+    }
+
+    /**
+     * Adds the results of multiple user declarations to this parserule storage at once, recalculating the lookahead
+     * sets only once
+     * @param toAdd rules added by the declarations, in the order they were declared
+     * @param nonTerminals nonterminals to register, in the order they were registered
+     */
+    public void addCustomRules(List<CustomRule> toAdd, Collection<NonTerminal> nonTerminals) {
+        for (NonTerminal nonTerminal : nonTerminals) {
+            if (registered.add(nonTerminal)) {
+                addRule(new ParseRule("RegisteredNonTerminal").addRhs(term(nonTerminal.getName())), Direction.LEFT);
+            }
+        }
+        for (CustomRule customRule : toAdd) {
+            customRules.add(customRule);
+            addRule(customRule.getInheritedRule(), customRule.getDirection());
+            addRule(customRule.getAddedRule(), Direction.RIGHT);
+        }
+        calculateFirstPlus(toplevel, "declarations");
+        analyze();
+    }
+
+    /**
+     * Sets the analyzer that checks the grammar of this storage when it is prepared and after every declaration is
+     * added. Copies of this storage use the same analyzer.
+     * @param analyzer the analyzer, or null to not check the grammar
+     */
+    public void setAnalyzer(GrammarAnalyzer analyzer) {
+        this.analyzer = analyzer;
+    }
+
+    /**
+     * Returns the analyzer that checks the grammar of this storage
+     * @return the analyzer, or null if the grammar is not checked
+     */
+    public GrammarAnalyzer getAnalyzer() {
+        return analyzer;
+    }
+
+    /**
+     * Returns the toplevel nonterminal this storage was prepared with
+     * @return the toplevel nonterminal, or null if the storage is not prepared
+     */
+    public NonTerminal getTopLevel() {
+        return toplevel;
+    }
+
+    /**
+     * Returns the rules that are tried to parse a nonterminal, by the character the rest of the string starts with.
+     * The rules of the null key are tried for characters that are not a key, and at the end of the string.
+     * @param nonTerminal the nonterminal
+     * @return the rules to try in order, by lookahead character
+     */
+    public Map<Character, Collection<ParseRule>> getLookahead(NonTerminal nonTerminal) {
+        return Collections.unmodifiableMap(firstPlus.getOrDefault(nonTerminal, Collections.emptyMap()));
+    }
+
+    /**
+     * Returns the results of all user declarations added to this storage
+     * @return the added rules, in the order they were added
+     */
+    public List<CustomRule> getCustomRules() {
+        return Collections.unmodifiableList(customRules);
+    }
+
+    /**
+     * Returns all nonterminals registered in this storage
+     * @return the registered nonterminals, in the order they were registered
+     */
+    public Set<NonTerminal> getRegisteredNonTerminals() {
+        return Collections.unmodifiableSet(registered);
+    }
+
+    /**
+     * Returns the rules of a nonterminal, in the order they were added
+     * @param nonTerminal nonterminal to get the rules of
+     * @return the rules, or an empty list if there are none
+     */
+    public List<ParseRule> getRules(NonTerminal nonTerminal) {
+        return Collections.unmodifiableList(rules.getOrDefault(nonTerminal, new LinkedList<>()));
     }
 
     private List<ParseRule> addRule(ParseRule rule, Direction dir) {
@@ -214,10 +324,26 @@ public class ParseRuleStorage {
     }
 
 
-    private void calculateFirstPlus(NonTerminal topLevel) {
+    private void analyze() {
+        if (analyzer != null) {
+            analyzer.check(this);
+        }
+    }
+
+    private void calculateFirstPlus(NonTerminal topLevel, String change) {
+        GrammarUpdateEvent event = new GrammarUpdateEvent();
+        event.begin();
         Map<Node, Set<Character>> first = firstCalc.computeFirst(rules, getAllTerminals(), getAllNonTerminals());
         Map<Node, Set<Character>> follow = followCalc.computeFollow(topLevel, first, rules, getAllNonTerminals());
         firstPlus = firstPlusCalc.computeFirstPlus(rules, first, follow, getAllNonTerminals());
+        event.end();
+        if (event.shouldCommit()) {
+            event.change = change;
+            event.nonTerminals = allNonterminals.size();
+            event.rules = rules.values().stream().mapToInt(List::size).sum();
+            event.customRules = customRules.size();
+            event.commit();
+        }
     }
 
 
@@ -229,10 +355,10 @@ public class ParseRuleStorage {
      */
     public void addParameter(String parameterName) {
         parameterNameRules.addAll(addRule(new ParseRule("ParameterName").addRhs(term(parameterName)), Direction.RIGHT));
-        calculateFirstPlus(toplevel);
+        calculateFirstPlus(toplevel, "parameter");
     }
 
-    private final Set<NonTerminal> registered = new HashSet<>();
+    private final Set<NonTerminal> registered = new LinkedHashSet<>();
 
     /**
      * Registers a new nonterminal as being present somewhere in this storage
@@ -242,7 +368,7 @@ public class ParseRuleStorage {
         if (!registered.contains(nonTerminal)) {
             registered.add(nonTerminal);
             addRule(new ParseRule("RegisteredNonTerminal").addRhs(term(nonTerminal.getName())), Direction.LEFT);
-            calculateFirstPlus(toplevel);
+            calculateFirstPlus(toplevel, "nonterminal");
         }
     }
 
@@ -252,6 +378,6 @@ public class ParseRuleStorage {
     public void removeParameters() {
         parameterNameRules.forEach(x -> rules.get(x.getLHS()).remove(x));
         parameterNameRules.clear();
-        calculateFirstPlus(toplevel);
+        calculateFirstPlus(toplevel, "remove parameters");
     }
 }
@@ -0,0 +1,388 @@
+package parselang.parser.analysis;
+
+import parselang.parser.ParseRuleStorage;
+import parselang.parser.analysis.GrammarIssue.Kind;
+import parselang.parser.data.*;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Analyzes the grammar of a parse rule storage for conflicts and risks of backtracking. The parser tries the rules of a
+ * nonterminal that apply to the lookahead character in order and uses the first one that succeeds, so a grammar never
+ * is ambiguous, but overlapping rules cost backtracking and rules can hide each other. The analyzer reports:
+ * <ul>
+ *     <li>rules that apply to the same lookahead character,</li>
+ *     <li>rules that can match the empty string and are tried before other rules,</li>
+ *     <li>left recursion, which the parser can not handle,</li>
+ *     <li>nonterminals and rules that are never used, and</li>
+ *     <li>nonterminals whose estimated number of rule attempts exceeds a threshold.</li>
+ * </ul>
+ * The estimated cost of a nonterminal is the number of rules attempted to parse it at a single position in the worst
+ * case, when every rule but the last fails after parsing all of its symbols and no result can be taken from the memo.
+ * A nonterminal that is reached again while it is being estimated counts as a single attempt, so the estimate of a
+ * recursive nonterminal is not an upper bound. It shows where backtracking can multiply, and is not a prediction of
+ * the rule attempts of a parse.
+ * <p>
+ * An analyzer can be set on a parse rule storage, which then checks its grammar when it is prepared and after every
+ * declaration, and hands the report to the listener of the analyzer.
+ */
+public class GrammarAnalyzer {
+
+    private static final long MAX_COST = Long.MAX_VALUE / 4;
+    private static final int MAX_CHARACTERS = 8;
+
+    private long costThreshold = 100_000;
+    private Consumer<GrammarReport> listener = null;
+    private volatile GrammarReport lastReport = null;
+
+    /**
+     * Sets the estimated cost above which a nonterminal is reported as expensive
+     * @param costThreshold the threshold, in rule attempts
+     */
+    public void setCostThreshold(long costThreshold) {
+        if (costThreshold <= 0) {
+            throw new IllegalArgumentException("Cost threshold must be positive, got " + costThreshold);
+        }
+        this.costThreshold = costThreshold;
+    }
+
+    /**
+     * Sets the listener that receives the report of every check
+     * @param listener the listener, or null to only keep the last report
+     */
+    public void setListener(Consumer<GrammarReport> listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Returns the report of the last check
+     * @return the report, or null if nothing was checked yet
+     */
+    public GrammarReport getLastReport() {
+        return lastReport;
+    }
+
+    /**
+     * Analyzes the grammar of a storage, keeps the report as last report and hands it to the listener. Called by parse
+     * rule storages.
+     * @param storage the storage
+     */
+    public void check(ParseRuleStorage storage) {
+        GrammarReport report = analyze(storage);
+        lastReport = report;
+        if (listener != null) {
+            listener.accept(report);
+        }
+    }
+
+    /**
+     * Analyzes the grammar of a storage
+     * @param storage a prepared storage
+     * @return the issues found and the estimated costs
+     * @throws IllegalStateException if the storage is not prepared
+     */
+    public GrammarReport analyze(ParseRuleStorage storage) {
+        if (storage.getTopLevel() == null) {
+            throw new IllegalStateException("Only prepared grammars can be analyzed");
+        }
+        return new Analysis(storage).run();
+    }
+
+    /**
+     * State of the analysis of a single grammar
+     */
+    private class Analysis {
+        private final ParseRuleStorage storage;
+        private final List<NonTerminal> nonTerminals;
+        private final Set<NonTerminal> nullable = new HashSet<>();
+        private final List<GrammarIssue> issues = new ArrayList<>();
+        private final Map<NonTerminal, Map<Character, Long>> costs = new HashMap<>();
+        private final Map<NonTerminal, Long> worstCosts = new HashMap<>();
+        private final Set<NonTerminal> costing = new HashSet<>();
+
+        private Analysis(ParseRuleStorage storage) {
+            this.storage = storage;
+            this.nonTerminals = storage.getAllNonTerminals().stream()
+                    .sorted(Comparator.comparing(NonTerminal::getName)).collect(Collectors.toList());
+        }
+
+        private GrammarReport run() {
+            computeNullable();
+            for (NonTerminal nonTerminal : nonTerminals) {
+                findOverlaps(nonTerminal);
+            }
+            findLeftRecursion();
+            findUnreachable();
+            Map<NonTerminal, Long> worst = new LinkedHashMap<>();
+            for (NonTerminal nonTerminal : nonTerminals) {
+                //estimates made while recursing depend on where the recursion was cut off, so every nonterminal is
+                //estimated from scratch to not depend on the nonterminals estimated before it
+                costs.clear();
+                worstCosts.clear();
+                long cost = worstCost(nonTerminal);
+                worst.put(nonTerminal, cost);
+                if (cost > costThreshold) {
+                    issues.add(new GrammarIssue(Kind.EXPENSIVE_NONTERMINAL, nonTerminal, "estimated " + format(cost) + " rule attempts"));
+                }
+            }
+            issues.sort(Comparator.comparing(GrammarIssue::getKind));
+            return new GrammarReport(issues, worst);
+        }
+
+        private void computeNullable() {
+            boolean changed = true;
+            while (changed) {
+                changed = false;
+                for (NonTerminal nonTerminal : nonTerminals) {
+                    if (!nullable.contains(nonTerminal) && storage.getRules(nonTerminal).stream().anyMatch(this::isNullable)) {
+                        nullable.add(nonTerminal);
+                        changed = true;
+                    }
+                }
+            }
+        }
+
+        private boolean isNullable(ParseRule rule) {
+            return rule.getRHS().stream().allMatch(this::isNullable);
+        }
+
+        private boolean isNullable(Node node) {
+            if (node instanceof BoundNode) {
+                return isNullable(((BoundNode) node).getContent());
+            } else if (node instanceof Terminal) {
+                return ((Terminal) node).getValue().isEmpty();
+            } else if (node instanceof StarNode) {
+                return true;
+            }
+            return nullable.contains(node);
+        }
+
+        /**
+         * Whether a rule certainly succeeds without looking at the string
+         */
+        private boolean isEmpty(ParseRule rule) {
+            return rule.getRHS().stream().allMatch(node -> node instanceof Terminal && ((Terminal) node).getValue().isEmpty());
+        }
+
+        private void findOverlaps(NonTerminal nonTerminal) {
+            Map<List<ParseRule>, List<Character>> overlaps = new LinkedHashMap<>();
+            Map<List<ParseRule>, List<Character>> shadowed = new LinkedHashMap<>();
+            for (Map.Entry<Character, Collection<ParseRule>> entry : storage.getLookahead(nonTerminal).entrySet()) {
+                List<ParseRule> candidates = entry.getValue().stream().filter(rule -> !isEmpty(rule)).collect(Collectors.toList());
+                if (candidates.size() > 1) {
+                    overlaps.computeIfAbsent(candidates, x -> new ArrayList<>()).add(entry.getKey());
+                }
+                List<ParseRule> all = new ArrayList<>(entry.getValue());
+                for (int i = 0; i < all.size() - 1; i++) {
+                    if (!isEmpty(all.get(i)) && isNullable(all.get(i))) {
+                        shadowed.computeIfAbsent(all.subList(i, all.size()), x -> new ArrayList<>()).add(entry.getKey());
+                        break;
+                    }
+                }
+            }
+            overlaps.forEach((rules, lookahead) -> issues.add(new GrammarIssue(Kind.FIRST_PLUS_OVERLAP, nonTerminal,
+                    rules.size() + " rules apply to " + describe(lookahead) + ": " + describe(rules))));
+            shadowed.forEach((rules, lookahead) -> issues.add(new GrammarIssue(Kind.NULLABLE_SHADOWING, nonTerminal,
+                    "rule " + rules.get(0).toString().trim() + " can match the empty string and is tried before " + (rules.size() - 1)
+                            + " other rules for " + describe(lookahead))));
+        }
+
+        /**
+         * Finds the strongly connected components of the graph that has an edge from A to B if B can be parsed at
+         * the position A is parsed at
+         */
+        private void findLeftRecursion() {
+            Map<NonTerminal, Set<NonTerminal>> edges = new HashMap<>();
+            for (NonTerminal nonTerminal : nonTerminals) {
+                Set<NonTerminal> targets = new LinkedHashSet<>();
+                for (ParseRule rule : storage.getRules(nonTerminal)) {
+                    for (Node node : rule.getRHS()) {
+                        collectNonTerminals(node, targets);
+                        if (!isNullable(node)) {
+                            break;
+                        }
+                    }
+                }
+                edges.put(nonTerminal, targets);
+            }
+            new CycleFinder(edges).run(nonTerminals).forEach(cycle -> issues.add(new GrammarIssue(Kind.LEFT_RECURSION,
+                    cycle.get(0), "can be parsed again at the same position through " + cycle.stream().map(NonTerminal::toString).collect(Collectors.joining(", ")))));
+        }
+
+        private void findUnreachable() {
+            Set<NonTerminal> reachable = new HashSet<>();
+            Deque<NonTerminal> toVisit = new ArrayDeque<>();
+            toVisit.add(storage.getTopLevel());
+            while (!toVisit.isEmpty()) {
+                NonTerminal nonTerminal = toVisit.pop();
+                if (reachable.add(nonTerminal)) {
+                    Set<NonTerminal> used = new LinkedHashSet<>();
+                    storage.getRules(nonTerminal).forEach(rule -> rule.getRHS().forEach(node -> collectNonTerminals(node, used)));
+                    toVisit.addAll(used);
+                }
+            }
+            for (NonTerminal nonTerminal : nonTerminals) {
+                if (!reachable.contains(nonTerminal)) {
+                    issues.add(new GrammarIssue(Kind.UNREACHABLE_NONTERMINAL, nonTerminal, "can not be reached from " + storage.getTopLevel()));
+                    continue;
+                }
+                Set<ParseRule> tried = new HashSet<>();
+                for (Collection<ParseRule> candidates : storage.getLookahead(nonTerminal).values()) {
+                    for (ParseRule rule : candidates) {
+                        tried.add(rule);
+                        if (isEmpty(rule)) {
+                            break;
+                        }
+                    }
+                }
+                for (ParseRule rule : storage.getRules(nonTerminal)) {
+                    if (!tried.contains(rule)) {
+                        Set<NonTerminal> used = new LinkedHashSet<>();
+                        rule.getRHS().forEach(node -> collectNonTerminals(node, used));
+                        String without = used.stream().filter(inner -> storage.getRules(inner).isEmpty()).map(NonTerminal::toString).collect(Collectors.joining(", "));
+                        issues.add(new GrammarIssue(Kind.UNREACHABLE_RULE, nonTerminal, "rule " + rule.toString().trim() + " is never tried"
+                                + (without.isEmpty() ? "" : ", " + without + " has no rules yet")));
+                    }
+                }
+            }
+        }
+
+        private void collectNonTerminals(Node node, Set<NonTerminal> res) {
+            if (node instanceof NonTerminal) {
+                res.add((NonTerminal) node);
+            } else if (node instanceof BoundNode) {
+                collectNonTerminals(((BoundNode) node).getContent(), res);
+            } else if (node instanceof StarNode) {
+                ((StarNode) node).contents().forEach(content -> collectNonTerminals(content, res));
+            }
+        }
+
+        private long worstCost(NonTerminal nonTerminal) {
+            if (worstCosts.containsKey(nonTerminal)) {
+                return worstCosts.get(nonTerminal);
+            }
+            long worst = 0;
+            for (Character lookahead : storage.getLookahead(nonTerminal).keySet()) {
+                worst = Math.max(worst, cost(nonTerminal, lookahead));
+            }
+            if (!costing.contains(nonTerminal)) {
+                worstCosts.put(nonTerminal, worst);
+            }
+            return worst;
+        }
+
+        /**
+         * Estimated rule attempts to parse a nonterminal at a position that starts with a character. Only the first
+         * symbol of a rule is known to start with the same character, the worst case is taken for the others. A
+         * nonterminal that is already being estimated counts as a single attempt.
+         */
+        private long cost(NonTerminal nonTerminal, Character lookahead) {
+            Map<Character, Long> known = costs.computeIfAbsent(nonTerminal, x -> new HashMap<>());
+            Map<Character, Collection<ParseRule>> table = storage.getLookahead(nonTerminal);
+            Character key = table.containsKey(lookahead) ? lookahead : null;
+            if (known.containsKey(key)) {
+                return known.get(key);
+            }
+            if (!costing.add(nonTerminal)) {
+                return 1;
+            }
+            long cost = 0;
+            for (ParseRule rule : table.getOrDefault(key, Collections.emptyList())) {
+                cost = add(cost, 1);
+                boolean first = true;
+                for (Node node : rule.getRHS()) {
+                    Set<NonTerminal> inner = new LinkedHashSet<>();
+                    collectNonTerminals(node, inner);
+                    for (NonTerminal innerNonTerminal : inner) {
+                        cost = add(cost, first ? cost(innerNonTerminal, lookahead) : worstCost(innerNonTerminal));
+                    }
+                    first = false;
+                }
+            }
+            costing.remove(nonTerminal);
+            known.put(key, cost);
+            return cost;
+        }
+    }
+
+    /**
+     * Tarjan's algorithm for strongly connected components, returning the components that contain a cycle
+     */
+    private static class CycleFinder {
+        private final Map<NonTerminal, Set<NonTerminal>> edges;
+        private final Map<NonTerminal, Integer> index = new HashMap<>();
+        private final Map<NonTerminal, Integer> lowLink = new HashMap<>();
+        private final Deque<NonTerminal> stack = new ArrayDeque<>();
+        private final Set<NonTerminal> onStack = new HashSet<>();
+        private final List<List<NonTerminal>> cycles = new ArrayList<>();
+
+        private CycleFinder(Map<NonTerminal, Set<NonTerminal>> edges) {
+            this.edges = edges;
+        }
+
+        private List<List<NonTerminal>> run(List<NonTerminal> nodes) {
+            for (NonTerminal node : nodes) {
+                if (!index.containsKey(node)) {
+                    visit(node);
+                }
+            }
+            return cycles;
+        }
+
+        private void visit(NonTerminal node) {
+            index.put(node, index.size());
+            lowLink.put(node, index.get(node));
+            stack.push(node);
+            onStack.add(node);
+            for (NonTerminal target : edges.getOrDefault(node, Collections.emptySet())) {
+                if (!index.containsKey(target)) {
+                    visit(target);
+                    lowLink.put(node, Math.min(lowLink.get(node), lowLink.get(target)));
+                } else if (onStack.contains(target)) {
+                    lowLink.put(node, Math.min(lowLink.get(node), index.get(target)));
+                }
+            }
+            if (lowLink.get(node).equals(index.get(node))) {
+                List<NonTerminal> component = new ArrayList<>();
+                NonTerminal member;
+                do {
+                    member = stack.pop();
+                    onStack.remove(member);
+                    component.add(member);
+                } while (!member.equals(node));
+                if (component.size() > 1 || edges.getOrDefault(node, Collections.emptySet()).contains(node)) {
+                    component.sort(Comparator.comparing(NonTerminal::getName));
+                    cycles.add(component);
+                }
+            }
+        }
+    }
+
+    private static long add(long a, long b) {
+        return Math.min(MAX_COST, a + b);
+    }
+
+    private static String format(long cost) {
+        return cost >= MAX_COST ? "more than " + MAX_COST : String.valueOf(cost);
+    }
+
+    private static String describe(List<Character> lookahead) {
+        String shown = lookahead.stream().limit(MAX_CHARACTERS).map(c -> c == null ? "other characters" : "'" + escape(c) + "'").collect(Collectors.joining(", "));
+        return lookahead.size() > MAX_CHARACTERS ? shown + " and " + (lookahead.size() - MAX_CHARACTERS) + " more characters" : shown;
+    }
+
+    private static String describe(Collection<ParseRule> rules) {
+        return rules.stream().map(rule -> "[" + rule.toString().trim() + "]").collect(Collectors.joining(" "));
+    }
+
+    private static String escape(char c) {
+        switch (c) {
+            case '\n': return "\\n";
+            case '\r': return "\\r";
+            case '\t': return "\\t";
+            default: return String.valueOf(c);
+        }
+    }
+}
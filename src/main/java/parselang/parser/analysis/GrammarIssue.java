@@ -0,0 +1,107 @@
+package parselang.parser.analysis;
+
+import parselang.parser.data.NonTerminal;
+
+import java.util.Objects;
+
+/**
+ * Problem or risk found in a grammar by a GrammarAnalyzer
+ */
+public class GrammarIssue {
+
+    /**
+     * Kinds of issues
+     */
+    public enum Kind {
+        /**
+         * Multiple non-empty rules of a nonterminal apply to the same lookahead character. The first of them that
+         * succeeds is used, the others are attempted after backtracking.
+         */
+        FIRST_PLUS_OVERLAP,
+        /**
+         * A rule that always succeeds, because all of its symbols can match the empty string, is tried before other
+         * rules, which are then only tried when it fails for other reasons.
+         */
+        NULLABLE_SHADOWING,
+        /**
+         * A nonterminal can be parsed again at the same position after a prefix that matches the empty string, such
+         * that parsing it may never end.
+         */
+        LEFT_RECURSION,
+        /**
+         * A nonterminal can not be reached from the toplevel nonterminal.
+         */
+        UNREACHABLE_NONTERMINAL,
+        /**
+         * A rule is never tried, because no lookahead character selects it or a rule that always succeeds is tried
+         * first for every lookahead character that does.
+         */
+        UNREACHABLE_RULE,
+        /**
+         * The estimated number of rule attempts to parse a nonterminal is above the threshold of the analyzer.
+         */
+        EXPENSIVE_NONTERMINAL
+    }
+
+    private final Kind kind;
+    private final NonTerminal nonTerminal;
+    private final String message;
+
+    GrammarIssue(Kind kind, NonTerminal nonTerminal, String message) {
+        this.kind = kind;
+        this.nonTerminal = nonTerminal;
+        this.message = message;
+    }
+
+    /**
+     * Returns the kind of this issue
+     * @return the kind
+     */
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Returns the nonterminal this issue was found in
+     * @return the nonterminal
+     */
+    public NonTerminal getNonTerminal() {
+        return nonTerminal;
+    }
+
+    /**
+     * Returns a description of this issue
+     * @return the description
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * @inheritDoc
+     */
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof GrammarIssue)) {
+            return false;
+        }
+        GrammarIssue that = (GrammarIssue) other;
+        return kind == that.kind && nonTerminal.equals(that.nonTerminal) && message.equals(that.message);
+    }
+
+    /**
+     * @inheritDoc
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(kind, nonTerminal, message);
+    }
+
+    /**
+     * @inheritDoc
+     */
+    @Override
+    public String toString() {
+        return kind + " " + nonTerminal + ": " + message;
+    }
+}
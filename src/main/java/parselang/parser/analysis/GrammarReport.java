@@ -0,0 +1,97 @@
+package parselang.parser.analysis;
+
+import parselang.parser.data.NonTerminal;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Result of analyzing a grammar: the issues found and the estimated cost of parsing every nonterminal
+ */
+public class GrammarReport {
+
+    private final List<GrammarIssue> issues;
+    private final Map<NonTerminal, Long> costs;
+
+    GrammarReport(List<GrammarIssue> issues, Map<NonTerminal, Long> costs) {
+        this.issues = Collections.unmodifiableList(issues);
+        this.costs = Collections.unmodifiableMap(costs);
+    }
+
+    /**
+     * Returns all issues found
+     * @return the issues, ordered by kind
+     */
+    public List<GrammarIssue> getIssues() {
+        return issues;
+    }
+
+    /**
+     * Returns the issues of a kind
+     * @param kind the kind
+     * @return the issues of that kind
+     */
+    public List<GrammarIssue> getIssues(GrammarIssue.Kind kind) {
+        return issues.stream().filter(issue -> issue.getKind() == kind).collect(Collectors.toList());
+    }
+
+    /**
+     * Returns the issues that were not found in an earlier report, such as the report of the grammar before a
+     * declaration was added
+     * @param earlier the earlier report, or null to return all issues
+     * @return the new issues
+     */
+    public List<GrammarIssue> getIssuesNotIn(GrammarReport earlier) {
+        if (earlier == null) {
+            return issues;
+        }
+        Set<GrammarIssue> known = new HashSet<>(earlier.issues);
+        return issues.stream().filter(issue -> !known.contains(issue)).collect(Collectors.toList());
+    }
+
+    /**
+     * Returns the estimated number of rule attempts needed to parse every nonterminal at a single position, when no
+     * results can be taken from the memo. Attempts of recursive nonterminals are counted once.
+     * @return the estimated costs by nonterminal
+     */
+    public Map<NonTerminal, Long> getCosts() {
+        return costs;
+    }
+
+    /**
+     * Returns the estimated number of rule attempts needed to parse a nonterminal at a single position
+     * @param nonTerminal the nonterminal
+     * @return the estimated cost, or 0 if the nonterminal has no rules
+     */
+    public long getCost(NonTerminal nonTerminal) {
+        return costs.getOrDefault(nonTerminal, 0L);
+    }
+
+    /**
+     * Creates a summary of the issues and the most expensive nonterminals
+     * @param limit maximum number of issues of every kind and of nonterminals to show
+     * @return the summary
+     */
+    public String toText(int limit) {
+        StringBuilder sb = new StringBuilder();
+        for (GrammarIssue.Kind kind : GrammarIssue.Kind.values()) {
+            List<GrammarIssue> ofKind = getIssues(kind);
+            if (!ofKind.isEmpty()) {
+                sb.append(kind).append(" (").append(ofKind.size()).append(")\n");
+                ofKind.stream().limit(limit).forEach(issue -> sb.append("    ").append(issue.getNonTerminal()).append(": ").append(issue.getMessage()).append("\n"));
+            }
+        }
+        sb.append("Most expensive nonterminals\n");
+        costs.entrySet().stream().sorted(Map.Entry.<NonTerminal, Long>comparingByValue().reversed()).limit(limit)
+                .forEach(entry -> sb.append(String.format(Locale.ROOT, "%14d  %s%n", entry.getValue(), entry.getKey())));
+        return sb.toString();
+    }
+
+    /**
+     * @inheritDoc
+     */
+    @Override
+    public String toString() {
+        return toText(10);
+    }
+}
@@ -1,6 +1,7 @@
 package parselang.parser.data;
 
 import parselang.interpreter.data.ParameterValue;
+import parselang.util.AllocationRecorder;
 
 import java.util.LinkedList;
 import java.util.List;
@@ -37,6 +38,19 @@ public class AST extends ASTElem  {
         return res;
     }
 
+    /**
+     * @inheritDoc
+     */
+    @Override
+    public ASTElem shift(int offset, String originalString) {
+        AST res = new AST(root, originalString);
+        res.ruleApplied = ruleApplied;
+        res.parsedFrom = parsedFrom + offset;
+        res.parsedTo = parsedTo + offset;
+        children.forEach(x -> res.children.add(x.shift(offset, originalString)));
+        return res;
+    }
+
     /**
      * @inheritDoc
      */
@@ -75,6 +89,7 @@ public class AST extends ASTElem  {
     public AST(Node root, String originalString) {
         this.root = root;
         this.originalString = originalString;
+        AllocationRecorder.allocated(this, root);
     }
 
     /**
@@ -127,15 +142,19 @@ public class AST extends ASTElem  {
     /**
      * Pretty prints this AST to a String
      * @param indent Number of tabs used as global indentation
+     * @param sourceMap source map of the original string, or null to make one that is shared by the entire subtree
      * @return String representation of this AST.
      */
     @Override
-    protected String pp(int indent) {
+    protected String pp(int indent, SourceMap sourceMap) {
+        if (sourceMap == null) {
+            sourceMap = new SourceMap(originalString);
+        }
         String prefix = new String(new char[indent]).replace("\0", "\t");
 
         StringBuilder sb = new StringBuilder(prefix);
 
-        String line = padRight(root.toString(), 1000 - (indent*4));
+        String line = padRight(root.toString() + " " + getLocation(sourceMap), 1000 - (indent*4));
         if (ruleApplied != null) {
             line += ruleApplied.toString();
         }
@@ -143,7 +162,7 @@ public class AST extends ASTElem  {
 
 
         for (ASTElem i : children) {
-            sb.append("\n").append(i.pp(indent + 1));
+            sb.append("\n").append(i.pp(indent + 1, sourceMap));
         }
         return sb.toString();
     }
@@ -156,6 +175,23 @@ public class AST extends ASTElem  {
         return this.originalString.substring(parsedFrom, parsedTo);
     }
 
+    /**
+     * Returns the part of the original string represented by this AST as line:column positions
+     * @param sourceMap source map of the original string
+     * @return the location, as from-to with the end exclusive
+     */
+    public String getLocation(SourceMap sourceMap) {
+        return sourceMap.format(parsedFrom) + "-" + sourceMap.format(parsedTo);
+    }
+
+    /**
+     * Returns the entire string this tree was parsed from
+     * @return the original string
+     */
+    public String getOriginalString() {
+        return originalString;
+    }
+
     /**
      * Returns the root node of this tree (e.g. a nonterminal or terminal)
      * @return the root node
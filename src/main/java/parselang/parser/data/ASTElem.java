@@ -12,7 +12,17 @@ public abstract class ASTElem implements ParameterValue {
      * @param indent global indentation level (in # of tabs)
      * @return pretty string
      */
-    protected abstract String pp(int indent);
+    protected String pp(int indent) {
+        return pp(indent, null);
+    }
+
+    /**
+     * Returns a pretty printed string representation of this AST element
+     * @param indent global indentation level (in # of tabs)
+     * @param sourceMap source map of the string this element was parsed from, or null if it has not been made yet
+     * @return pretty string
+     */
+    protected abstract String pp(int indent, SourceMap sourceMap);
 
     /**
      * Returns the string represented by this AST element
@@ -25,4 +35,13 @@ public abstract class ASTElem implements ParameterValue {
      * @return the string
      */
     public abstract ASTElem copy();
+
+    /**
+     * Returns a deep copy of this AST element that is part of a different string, in which the represented text starts
+     * at another index
+     * @param offset number of characters the represented text moved in the new string
+     * @param originalString the new string
+     * @return the moved copy
+     */
+    public abstract ASTElem shift(int offset, String originalString);
 }
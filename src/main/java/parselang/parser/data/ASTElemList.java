@@ -1,5 +1,7 @@
 package parselang.parser.data;
 
+import parselang.util.AllocationRecorder;
+
 import java.util.*;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -15,18 +17,19 @@ public class ASTElemList extends ASTElem implements Iterable<ASTElem> {
      * Default constructor
      */
     public ASTElemList() {
+        AllocationRecorder.allocated(this, null);
     }
 
     /**
      * @inheritDoc
      */
     @Override
-    public String pp(int indent) {
+    public String pp(int indent, SourceMap sourceMap) {
         String prefix = new String(new char[indent]).replace("\0", "\t");
 
         StringBuilder sb = new StringBuilder(prefix).append("[");
         for (ASTElem n : nodeList) {
-            sb.append("\n").append(n.pp(indent + 1));
+            sb.append("\n").append(n.pp(indent + 1, sourceMap));
         }
         return sb.append("\n").append(prefix).append("]").toString();
     }
@@ -72,6 +75,16 @@ public class ASTElemList extends ASTElem implements Iterable<ASTElem> {
         return res;
     }
 
+    /**
+     * @inheritDoc
+     */
+    @Override
+    public ASTElem shift(int offset, String originalString) {
+        ASTElemList res = new ASTElemList();
+        nodeList.forEach(x -> res.nodeList.add(x.shift(offset, originalString)));
+        return res;
+    }
+
     /**
      * @inheritDoc
      */
@@ -0,0 +1,71 @@
+package parselang.parser.data;
+
+import java.util.Objects;
+
+/**
+ * Change made to the grammar by a user declaration: a rule for the declared nonterminal, and a rule that lets the
+ * nonterminal it extends derive it.
+ */
+public class CustomRule {
+
+    private final ParseRule inheritedRule;
+    private final Direction direction;
+    private final ParseRule addedRule;
+
+    /**
+     * Creates a new CustomRule
+     * @param inheritedRule rule deriving the declared nonterminal from the nonterminal it extends
+     * @param direction whether the inherited rule is tried before or after the existing rules
+     * @param addedRule rule that was declared by the user
+     */
+    public CustomRule(ParseRule inheritedRule, Direction direction, ParseRule addedRule) {
+        this.inheritedRule = inheritedRule;
+        this.direction = direction;
+        this.addedRule = addedRule;
+    }
+
+    /**
+     * Returns the rule deriving the declared nonterminal from the nonterminal it extends
+     * @return the inherited rule
+     */
+    public ParseRule getInheritedRule() {
+        return inheritedRule;
+    }
+
+    /**
+     * Returns whether the inherited rule is tried before or after the existing rules
+     * @return the direction
+     */
+    public Direction getDirection() {
+        return direction;
+    }
+
+    /**
+     * Returns the rule that was declared by the user
+     * @return the added rule
+     */
+    public ParseRule getAddedRule() {
+        return addedRule;
+    }
+
+    /**
+     * @inheritDoc
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        CustomRule that = (CustomRule) o;
+        return inheritedRule.equals(that.inheritedRule) &&
+                direction == that.direction &&
+                addedRule.equals(that.addedRule);
+    }
+
+    /**
+     * @inheritDoc
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(inheritedRule, direction, addedRule);
+    }
+}
@@ -22,6 +22,16 @@ public class ParseRule {
         this.lhs = lhs;
     }
 
+    /**
+     * Creates a new parse rule that was generated from another rule
+     * @param lhs Left hand side of this rule
+     * @param origin rule this rule was generated from
+     */
+    public ParseRule(NonTerminal lhs, ParseRule origin) {
+        this.lhs = lhs;
+        this.origin = origin;
+    }
+
     /**
      * Creates a new parse rule from a string representing a nonterminal
       * @param lhs Left hand side of this rule
@@ -0,0 +1,84 @@
+package parselang.parser.data;
+
+import java.util.Arrays;
+
+/**
+ * Converts indices in a string to lines and columns. The start of every line is found once, after which an index is
+ * converted with a binary search over the line starts. Whoever looks up many positions in the same string, such as
+ * when printing an entire AST, makes one map and passes it along.
+ */
+public class SourceMap {
+
+    private final int length;
+    private final int[] lineStarts;
+
+    /**
+     * Creates a source map of a string
+     * @param source the string
+     */
+    public SourceMap(String source) {
+        int[] starts = new int[16];
+        int count = 1;
+        for (int i = 0; i < source.length(); i++) {
+            if (source.charAt(i) == '\n') {
+                if (count == starts.length) {
+                    starts = Arrays.copyOf(starts, count * 2);
+                }
+                starts[count++] = i + 1;
+            }
+        }
+        length = source.length();
+        lineStarts = Arrays.copyOf(starts, count);
+    }
+
+    /**
+     * Returns the line an index is on
+     * @param index index in the string, at most its length
+     * @return the line, starting at 1
+     * @throws IndexOutOfBoundsException if the index lies outside of the string
+     */
+    public int getLine(int index) {
+        if (index < 0 || index > length) {
+            throw new IndexOutOfBoundsException("Index " + index + " lies outside of a string of length " + length);
+        }
+        int low = 0;
+        int high = lineStarts.length - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (lineStarts[mid] <= index) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low + 1;
+    }
+
+    /**
+     * Returns the column an index is at
+     * @param index index in the string, at most its length
+     * @return the column, starting at 1
+     * @throws IndexOutOfBoundsException if the index lies outside of the string
+     */
+    public int getColumn(int index) {
+        return index - lineStarts[getLine(index) - 1] + 1;
+    }
+
+    /**
+     * Returns the number of lines in the string
+     * @return the number of lines
+     */
+    public int getLineCount() {
+        return lineStarts.length;
+    }
+
+    /**
+     * Returns the position of an index as line:column
+     * @param index index in the string, at most its length
+     * @return the position
+     * @throws IndexOutOfBoundsException if the index lies outside of the string
+     */
+    public String format(int index) {
+        return getLine(index) + ":" + getColumn(index);
+    }
+}
@@ -1,5 +1,7 @@
 package parselang.parser.exceptions;
 
+import parselang.parser.data.SourceMap;
+
 /**
  * Exception thrown when the parser could not perform a specific parsing task
  */
@@ -11,7 +13,18 @@ public class ParseErrorException extends Exception {
      * @param index index of the original string at which no alternative is found.
      */
     public ParseErrorException(String originalString, int index) {
-        super("No alternative at index " + findRowColumn(originalString, index) + " at " + whichCharacter(originalString, index));
+        this(originalString, index, new SourceMap(originalString));
+    }
+
+    /**
+     * Creates a new parse exception, finding its position with the source map of the original string such that the
+     * string is not scanned again for every error
+     * @param originalString original string being parsed
+     * @param index index of the original string at which no alternative is found.
+     * @param sourceMap source map of the original string
+     */
+    public ParseErrorException(String originalString, int index, SourceMap sourceMap) {
+        super("No alternative at index " + findRowColumn(originalString, index, sourceMap) + " at " + whichCharacter(originalString, index));
     }
 
     /**
@@ -21,18 +34,9 @@ public class ParseErrorException extends Exception {
     public ParseErrorException() {
     }
 
-    private static String findRowColumn(String originalString, int index) {
-        int row = 1;
-        int otherchars = 1;
-        for(int i = 0; i < index-1; i++) {
-            if (originalString.charAt(i) == '\n') {
-                row++;
-                otherchars = 1;
-            } else {
-                otherchars++;
-            }
-        }
-        return "(" + row + ":" + otherchars + ")";
+    private static String findRowColumn(String originalString, int index, SourceMap sourceMap) {
+        //the reported position is that of the last character that could still be parsed
+        return "(" + sourceMap.format(Math.min(Math.max(index - 1, 0), originalString.length())) + ")";
     }
 
     private static String whichCharacter(String originalString, int index) {
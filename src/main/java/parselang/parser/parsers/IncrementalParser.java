@@ -0,0 +1,242 @@
+package parselang.parser.parsers;
+
+import parselang.parser.ParseResult;
+import parselang.parser.ParseRuleStorage;
+import parselang.parser.TreeFixer;
+import parselang.parser.data.*;
+import parselang.parser.exceptions.ParseErrorException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static parselang.parser.ParseRuleStorage.nonTerm;
+
+/**
+ * Parser for a source buffer that is edited repeatedly, such as in an editor or REPL. After an edit, the declarations
+ * before the edit are reused as is, and the declarations and expression after it are reused by moving them once the
+ * reparsed part ends where an old declaration started and the grammar is the same as it was at that point. The cost
+ * of parsing again therefore depends on the size of the edit and the declarations it touches, rather than on the size
+ * of the whole buffer.
+ * <p>
+ * Declarations before the edit are kept as they are, without copying their trees. Their text and positions are the
+ * same in the edited buffer, but their trees still refer to the buffer they were parsed from, so the nodes of a result
+ * may refer to different versions of the buffer that agree on the text up to the end of the node. Only the part after
+ * the edit is copied, and only when it moves. The trees of results are shared with later results and must not be
+ * changed.
+ */
+public class IncrementalParser {
+
+    private static final NonTerminal TOPLEVEL = nonTerm("HighLevel");
+
+    private final ParseRuleStorage start;
+    private final ParseRule topLevelRule;
+    private final NonTerminal declarations;
+    private final NonTerminal whiteSpace;
+    private final TreeFixer treeFixer = new TreeFixer();
+
+    private String source = "";
+    private List<Item> items = new ArrayList<>();
+    private AST tree = null;
+    private ParseRuleStorage storage = null;
+    private long ruleAttempts = 0;
+
+    /**
+     * Creates a new IncrementalParser
+     * @param base storage prepared with ParseLang and HighLevel as toplevel nonterminal, which is not changed
+     * @throws IllegalArgumentException if the toplevel rule of the storage is not the one of ParseLang
+     */
+    public IncrementalParser(ParseRuleStorage base) {
+        start = new ParseRuleStorage(base);
+        ParseRule rule = null;
+        for (ParseRule candidate : start.getRules(TOPLEVEL)) {
+            List<Node> rhs = candidate.getRHS();
+            if (rhs.size() == 4 && rhs.get(2).equals(nonTerm("OptionalExpression")) && rhs.get(1).equals(rhs.get(3))) {
+                rule = candidate;
+                break;
+            }
+        }
+        if (rule == null) {
+            throw new IllegalArgumentException("Storage does not contain the toplevel rule of ParseLang");
+        }
+        topLevelRule = rule;
+        declarations = (NonTerminal) rule.getRHS().get(0);
+        whiteSpace = (NonTerminal) rule.getRHS().get(1);
+        start.registerNonTerminal(TOPLEVEL);
+        start.registerNonTerminal(declarations);
+    }
+
+    /**
+     * Parses a new source buffer completely, forgetting the previous one
+     * @param source contents of the buffer
+     * @return the result of parsing the buffer
+     * @throws ParseErrorException if the buffer could not be parsed
+     */
+    public ParseResult parse(String source) throws ParseErrorException {
+        this.source = "";
+        this.items = new ArrayList<>();
+        this.tree = null;
+        return edit(0, 0, source);
+    }
+
+    /**
+     * Applies an edit to the source buffer and parses the result, reusing as much of the previous result as possible
+     * @param offset index in the buffer where the edit starts
+     * @param removedLength number of characters removed at the index
+     * @param inserted text inserted at the index
+     * @return the result of parsing the edited buffer
+     * @throws ParseErrorException if the edited buffer could not be parsed. Later edits still reuse the part of the
+     * buffer before the error.
+     * @throws IllegalArgumentException if the edit does not lie within the buffer
+     */
+    public ParseResult edit(int offset, int removedLength, String inserted) throws ParseErrorException {
+        if (offset < 0 || removedLength < 0 || offset + removedLength > source.length()) {
+            throw new IllegalArgumentException("Edit of " + removedLength + " characters at " + offset + " does not lie within a buffer of length " + source.length());
+        }
+        String newSource = source.substring(0, offset) + inserted + source.substring(offset + removedLength);
+        int shift = inserted.length() - removedLength;
+        int damageEnd = offset + inserted.length();
+        //the lines after the edit only stay where they were if the edit does not move them
+        boolean moves = shift != 0 || inserted.indexOf('\n') >= 0 || source.substring(offset, offset + removedLength).indexOf('\n') >= 0;
+
+        List<Item> newItems = new ArrayList<>();
+        int kept = 0;
+        while (kept < items.size() && items.get(kept).to < offset) {
+            newItems.add(items.get(kept));
+            kept++;
+        }
+        int firstAfterDamage = kept;
+        while (firstAfterDamage < items.size() && items.get(firstAfterDamage).from < offset + removedLength) {
+            firstAfterDamage++;
+        }
+        int oldExpressionFrom = items.isEmpty() ? 0 : items.get(items.size() - 1).to;
+
+        RecursiveParser parser = new RecursiveParser();
+        parser.setVerbosity(0);
+        ParseRuleStorage current = new ParseRuleStorage(kept == 0 ? start : items.get(kept - 1).after);
+        int position = kept == 0 ? 0 : items.get(kept - 1).to;
+        int next = firstAfterDamage;
+        try {
+            while (true) {
+                if (tree != null && position >= damageEnd) {
+                    while (next < items.size() && items.get(next).from + shift < position) {
+                        next++;
+                    }
+                    ParseRuleStorage old = next == 0 ? start : items.get(next - 1).after;
+                    boolean atItem = next < items.size() && items.get(next).from + shift == position;
+                    boolean atExpression = next == items.size() && oldExpressionFrom >= offset + removedLength && oldExpressionFrom + shift == position;
+                    if ((atItem || atExpression) && sameGrammar(current, old)) {
+                        for (int i = next; i < items.size(); i++) {
+                            newItems.add(moves ? items.get(i).shift(shift, newSource) : items.get(i));
+                        }
+                        List<ASTElem> children = tree.getChildren();
+                        if (moves) {
+                            return finish(parser, newSource, newItems, children.get(1).shift(shift, newSource), children.get(2).shift(shift, newSource), children.get(3).shift(shift, newSource), storage);
+                        }
+                        return finish(parser, newSource, newItems, children.get(1), children.get(2), children.get(3), storage);
+                    }
+                }
+                ParseResult leading;
+                ParseResult declaration;
+                try {
+                    leading = parser.parsePart(newSource, position, whiteSpace, current);
+                    declaration = parser.parsePart(newSource, leading.getRemainingIndex(), nonTerm("Declaration"), current);
+                } catch (ParseErrorException e) {
+                    break;
+                }
+                newItems.add(new Item(position, treeFixer.fix(leading.getTree()), (AST) treeFixer.fix(declaration.getTree()), new ParseRuleStorage(current)));
+                position = declaration.getRemainingIndex();
+            }
+            ParseResult leading = parser.parsePart(newSource, position, whiteSpace, current);
+            ParseResult expression = parser.parsePart(newSource, leading.getRemainingIndex(), nonTerm("OptionalExpression"), current);
+            ParseResult trailing = parser.parsePart(newSource, expression.getRemainingIndex(), whiteSpace, current);
+            if (trailing.getRemainingIndex() < newSource.length()) {
+                throw new ParseErrorException();
+            }
+            return finish(parser, newSource, newItems, treeFixer.fix(leading.getTree()), treeFixer.fix(expression.getTree()), treeFixer.fix(trailing.getTree()), current);
+        } catch (ParseErrorException e) {
+            source = newSource;
+            items = newItems;
+            tree = null;
+            storage = null;
+            ruleAttempts = parser.getRuleAttempts();
+            throw new ParseErrorException(newSource, Math.max(position, parser.getFarthestParse()), parser.getSourceMap(newSource));
+        }
+    }
+
+    /**
+     * Returns the current contents of the source buffer
+     * @return the source
+     */
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * Returns the number of parse rules attempted by the last parse or edit, which shows how much of the buffer was
+     * parsed again
+     * @return the number of rule attempts
+     */
+    public long getRuleAttempts() {
+        return ruleAttempts;
+    }
+
+    /**
+     * Returns the storage containing the grammar after the last successful parse, including the rules of all
+     * declarations in the buffer
+     * @return a copy of the storage, or null if the last edit could not be parsed
+     */
+    public ParseRuleStorage getStorage() {
+        return storage == null ? null : new ParseRuleStorage(storage);
+    }
+
+    private ParseResult finish(RecursiveParser parser, String newSource, List<Item> newItems, ASTElem leading, ASTElem expression, ASTElem trailing, ParseRuleStorage after) {
+        AST res = new AST(TOPLEVEL, newSource);
+        res.setRuleApplied(topLevelRule);
+        res.setParsed(0, newSource.length());
+        ASTElemList declarationList = new ASTElemList();
+        for (Item item : newItems) {
+            ASTElemList pair = new ASTElemList();
+            pair.add(item.whiteSpace);
+            pair.add(item.declaration);
+            declarationList.add(pair);
+        }
+        res.addChild(declarationList);
+        res.addChild(leading);
+        res.addChild(expression);
+        res.addChild(trailing);
+        source = newSource;
+        items = newItems;
+        tree = res;
+        storage = after;
+        ruleAttempts = parser.getRuleAttempts();
+        return new ParseResult(newSource, res);
+    }
+
+    private static boolean sameGrammar(ParseRuleStorage a, ParseRuleStorage b) {
+        return a.getCustomRules().equals(b.getCustomRules())
+                && new ArrayList<>(a.getRegisteredNonTerminals()).equals(new ArrayList<>(b.getRegisteredNonTerminals()));
+    }
+
+    /**
+     * Declaration at the top level of the buffer, together with the whitespace before it and the grammar after it
+     */
+    private static class Item {
+        private final int from;
+        private final int to;
+        private final ASTElem whiteSpace;
+        private final AST declaration;
+        private final ParseRuleStorage after;
+
+        private Item(int from, ASTElem whiteSpace, AST declaration, ParseRuleStorage after) {
+            this.from = from;
+            this.to = declaration.getParsedTo();
+            this.whiteSpace = whiteSpace;
+            this.declaration = declaration;
+            this.after = after;
+        }
+
+        private Item shift(int offset, String originalString) {
+            return new Item(from + offset, whiteSpace.shift(offset, originalString), (AST) declaration.shift(offset, originalString), after);
+        }
+    }
+}
@@ -1,10 +1,14 @@
 package parselang.parser.parsers;
 
+import parselang.governor.ResourceGovernor;
 import parselang.parser.ParseResult;
 import parselang.parser.ParseRuleStorage;
 import parselang.parser.data.Node;
 import parselang.parser.data.NonTerminal;
+import parselang.parser.data.SourceMap;
 import parselang.parser.exceptions.ParseErrorException;
+import parselang.parser.profiling.ParseProfiler;
+import parselang.parser.profiling.ParseTrace;
 
 /**
  * Literally, a parser. Has methods that provide parsing functionality
@@ -12,6 +16,11 @@ import parselang.parser.exceptions.ParseErrorException;
 public abstract class Parser {
 
     protected int verbosity = 1;
+    protected ParseProfiler profiler = null;
+    protected ParseTrace trace = null;
+    protected ResourceGovernor governor = null;
+    private String mappedString = null;
+    private SourceMap sourceMap = null;
 
     /**
      * Parses a String as far as possible.
@@ -35,16 +44,80 @@ public abstract class Parser {
         ParseResult parsed = parse(originalString, toplevel, storage);
         int remainingLength = parsed.getRemaining().length();
         if (remainingLength > 0) {
-            throw new ParseErrorException(originalString, originalString.length() - remainingLength);
+            throw new ParseErrorException(originalString, originalString.length() - remainingLength, getSourceMap(originalString));
         }
         return parsed;
     }
 
     /**
-     * Sets the verbosity level of this parser. 0 is off, 1 is everything.
+     * Returns the source map of the string being parsed, to report the positions of parse errors. The map is made when
+     * the first error in a string is reported, and reused for further errors in the same string.
+     * @param originalString the string being parsed
+     * @return the source map of the string
+     */
+    protected synchronized SourceMap getSourceMap(String originalString) {
+        if (mappedString != originalString) {
+            sourceMap = new SourceMap(originalString);
+            mappedString = originalString;
+        }
+        return sourceMap;
+    }
+
+    /**
+     * Sets the verbosity level of this parser. 0 is off, 1 prints the stack traces of parse errors. To follow the steps
+     * of the parser, set a trace instead.
      * @param level verbosity level
      */
     public void setVerbosity(int level) {
         this.verbosity = level;
     }
+
+    /**
+     * Sets the profiler that counts the attempts of this parser per nonterminal and parse rule
+     * @param profiler the profiler, or null to stop profiling
+     */
+    public void setProfiler(ParseProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    /**
+     * Sets the trace that records every step of this parser
+     * @param trace the trace, or null to stop tracing
+     */
+    public void setTrace(ParseTrace trace) {
+        this.trace = trace;
+    }
+
+    /**
+     * Sets the governor that limits the resources this parser may use. Parses that exceed a limit throw a
+     * ResourceLimitExceededException.
+     * @param governor the governor, or null to not limit parsing
+     */
+    public void setGovernor(ResourceGovernor governor) {
+        this.governor = governor;
+    }
+
+    /**
+     * Returns the governor that limits the resources this parser may use
+     * @return the governor, or null if parsing is not limited
+     */
+    public ResourceGovernor getGovernor() {
+        return governor;
+    }
+
+    /**
+     * Returns the trace of this parser
+     * @return the trace, or null if this parser is not traced
+     */
+    public ParseTrace getTrace() {
+        return trace;
+    }
+
+    /**
+     * Returns the profiler of this parser
+     * @return the profiler, or null if this parser is not profiled
+     */
+    public ParseProfiler getProfiler() {
+        return profiler;
+    }
 }
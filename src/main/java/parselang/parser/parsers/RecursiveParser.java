@@ -1,11 +1,13 @@
 package parselang.parser.parsers;
 
 
+import parselang.events.ParseEvent;
 import parselang.parser.ParseResult;
 import parselang.parser.ParseRuleStorage;
 import parselang.parser.TreeFixer;
 import parselang.parser.data.*;
 import parselang.parser.exceptions.ParseErrorException;
+import parselang.parser.profiling.ParseTrace;
 import parselang.util.DeclarationTree;
 
 import java.util.ArrayDeque;
@@ -20,6 +22,9 @@ import static parselang.parser.ParseRuleStorage.*;
 public class RecursiveParser extends Parser{
 
     private int farthestParse;
+    private long memoLookups;
+    private long memoHits;
+    private long ruleAttempts;
     private final TreeFixer treeFixer = new TreeFixer();
     private final MaxSizeDoubleMap<Integer, Node, ParseResult> memo = new MaxSizeDoubleMap<>(1000);
 
@@ -29,29 +34,153 @@ public class RecursiveParser extends Parser{
     @Override
     public synchronized ParseResult parse(String originalString, Node toParseTo, ParseRuleStorage storage) throws ParseErrorException {
         farthestParse = 0;
+        memoLookups = 0;
+        memoHits = 0;
+        ruleAttempts = 0;
+        if (trace != null) {
+            trace.setSource(originalString);
+        }
+        ParseEvent event = new ParseEvent();
+        event.begin();
         try {
             ParseResult res = parse(originalString, 0, toParseTo, storage);
             res.setTree((AST) treeFixer.fix(res.getTree()));
             if (res.getRemainingIndex() < originalString.length()) {
-                throw new ParseErrorException(originalString, farthestParse);
+                throw new ParseErrorException();
             }
+            commit(event, originalString, toParseTo, true);
             return res;
         } catch (ParseErrorException e) {
-            e.printStackTrace();
-            throw new ParseErrorException(originalString, farthestParse);
+            commit(event, originalString, toParseTo, false);
+            if (verbosity > 0) {
+                e.printStackTrace();
+            }
+            throw new ParseErrorException(originalString, farthestParse, getSourceMap(originalString));
         }
     }
 
+    /**
+     * Returns the number of times the memo was consulted during the last parse
+     * @return the number of memo lookups
+     */
+    public synchronized long getMemoLookups() {
+        return memoLookups;
+    }
+
+    /**
+     * Returns the number of times the memo contained the result that was looked up during the last parse
+     * @return the number of memo hits
+     */
+    public synchronized long getMemoHits() {
+        return memoHits;
+    }
+
+    /**
+     * Returns the number of times a parse rule was applied during the last parse, successful or not
+     * @return the number of rule attempts
+     */
+    public synchronized long getRuleAttempts() {
+        return ruleAttempts;
+    }
+
+    private void commit(ParseEvent event, String originalString, Node toParseTo, boolean parsed) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.nonTerminal = toParseTo.toString();
+            event.length = originalString.length();
+            event.parsed = parsed;
+            event.memoLookups = memoLookups;
+            event.memoHits = memoHits;
+            event.commit();
+        }
+    }
+
+    /**
+     * Parses a part of a String, starting at a given index. Results of earlier calls are reused, so parts have to be
+     * parsed from left to right. The tree is returned as is, with its star nodes not yet converted.
+     * @param originalString String to parse
+     * @param from index to start parsing at
+     * @param toParseTo node to parse
+     * @param storage storage of parse rules that should be used
+     * @return the result of parsing the part
+     * @throws ParseErrorException thrown when the part could not be parsed into the node
+     */
+    synchronized ParseResult parsePart(String originalString, int from, Node toParseTo, ParseRuleStorage storage) throws ParseErrorException {
+        if (trace != null && !trace.getSource().equals(originalString)) {
+            trace.setSource(originalString);
+        }
+        return parse(originalString, from, toParseTo, storage);
+    }
+
+    /**
+     * Returns the farthest index in the string any part was parsed up to
+     * @return the index
+     */
+    synchronized int getFarthestParse() {
+        return farthestParse;
+    }
+
     private ParseResult parse(String originalString, int notYetParsed, Node toParseTo, ParseRuleStorage storage) throws ParseErrorException  {
+        if (governor == null) {
+            return parseObserved(originalString, notYetParsed, toParseTo, storage);
+        }
+        governor.enter();
+        try {
+            return parseObserved(originalString, notYetParsed, toParseTo, storage);
+        } finally {
+            governor.exit();
+        }
+    }
+
+    private ParseResult parseObserved(String originalString, int notYetParsed, Node toParseTo, ParseRuleStorage storage) throws ParseErrorException  {
+        if (profiler == null && trace == null) {
+            return parseNode(originalString, notYetParsed, toParseTo, storage);
+        }
+        if (memo.contains(notYetParsed, toParseTo)) {
+            memoLookups++;
+            memoHits++;
+            ParseResult res = memo.get(notYetParsed, toParseTo);
+            if (profiler != null) {
+                profiler.memoHit(toParseTo, res.getRemainingIndex() - notYetParsed);
+            }
+            if (trace != null) {
+                trace.record(ParseTrace.Kind.MEMO_HIT, toParseTo, notYetParsed);
+            }
+            return res;
+        }
+        if (trace != null) {
+            trace.record(ParseTrace.Kind.ENTER, toParseTo, notYetParsed);
+        }
+        long start = profiler == null ? 0 : System.nanoTime();
+        try {
+            ParseResult res = parseNode(originalString, notYetParsed, toParseTo, storage);
+            if (profiler != null) {
+                profiler.nodeParsed(toParseTo, res.getRemainingIndex() - notYetParsed, System.nanoTime() - start);
+            }
+            if (trace != null) {
+                trace.record(ParseTrace.Kind.EXIT, toParseTo, res.getRemainingIndex());
+            }
+            return res;
+        } catch (ParseErrorException e) {
+            if (profiler != null) {
+                profiler.nodeParsed(toParseTo, -1, System.nanoTime() - start);
+            }
+            if (trace != null) {
+                trace.record(ParseTrace.Kind.FAIL, toParseTo, notYetParsed);
+            }
+            throw e;
+        }
+    }
+
+    private ParseResult parseNode(String originalString, int notYetParsed, Node toParseTo, ParseRuleStorage storage) throws ParseErrorException  {
+        memoLookups++;
         if (memo.contains(notYetParsed, toParseTo)) {
+            memoHits++;
             return memo.get(notYetParsed, toParseTo);
         }
         if (originalString.length() < notYetParsed) {
             throw new ParseErrorException();
         }
-        if (verbosity >= 1) {
-            System.out.println(toParseTo + " ".repeat(100 - toParseTo.toString().length()) + originalString.substring(notYetParsed).replace("\n", "").replace("\r", ""));
-        }
         if (toParseTo instanceof NonTerminal) {
             NonTerminal toParseToNT = (NonTerminal) toParseTo;
             storage.registerNonTerminal(toParseToNT);
@@ -123,6 +252,25 @@ public class RecursiveParser extends Parser{
     }
 
     private ParseResult parseWithRule(String originalString, int notYetParsed, ParseRule ruleToTry, ParseRuleStorage storage) throws ParseErrorException {
+        ruleAttempts++;
+        if (governor != null) {
+            governor.ruleAttempted();
+        }
+        if (profiler == null) {
+            return parseWithRuleUnprofiled(originalString, notYetParsed, ruleToTry, storage);
+        }
+        long start = System.nanoTime();
+        try {
+            ParseResult res = parseWithRuleUnprofiled(originalString, notYetParsed, ruleToTry, storage);
+            profiler.ruleApplied(ruleToTry, res.getRemainingIndex() - notYetParsed, System.nanoTime() - start);
+            return res;
+        } catch (ParseErrorException e) {
+            profiler.ruleApplied(ruleToTry, -1, System.nanoTime() - start);
+            throw e;
+        }
+    }
+
+    private ParseResult parseWithRuleUnprofiled(String originalString, int notYetParsed, ParseRule ruleToTry, ParseRuleStorage storage) throws ParseErrorException {
         int newlyParsed = notYetParsed;
         AST ast = new AST(ruleToTry.getLHS(), originalString);
         Deque<Node> toTry = new ArrayDeque<>(ruleToTry.getRHS());
@@ -0,0 +1,98 @@
+package parselang.parser.profiling;
+
+/**
+ * Counters of the parse attempts of a single node or parse rule. Times are cumulative: the time of an attempt includes
+ * the time of all attempts it made itself.
+ */
+public class ParseCounters {
+
+    private final String name;
+    private final long successes;
+    private final long failures;
+    private final long memoHits;
+    private final long consumed;
+    private final long nanos;
+
+    ParseCounters(String name, long successes, long failures, long memoHits, long consumed, long nanos) {
+        this.name = name;
+        this.successes = successes;
+        this.failures = failures;
+        this.memoHits = memoHits;
+        this.consumed = consumed;
+        this.nanos = nanos;
+    }
+
+    /**
+     * Returns the name of the node or rule these counters belong to
+     * @return the name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the number of times the node or rule was parsed, including results taken from the memo
+     * @return the number of attempts
+     */
+    public long getAttempts() {
+        return memoHits + getMemoMisses();
+    }
+
+    /**
+     * Returns the number of attempts that were actually parsed and succeeded
+     * @return the number of successes
+     */
+    public long getSuccesses() {
+        return successes;
+    }
+
+    /**
+     * Returns the number of attempts that were actually parsed and failed, i.e. caused backtracking
+     * @return the number of failures
+     */
+    public long getFailures() {
+        return failures;
+    }
+
+    /**
+     * Returns the number of attempts that were answered from the memo
+     * @return the number of memo hits
+     */
+    public long getMemoHits() {
+        return memoHits;
+    }
+
+    /**
+     * Returns the number of attempts that were not in the memo and had to be parsed. Rules are not memoized, so all
+     * of their attempts are misses.
+     * @return the number of memo misses
+     */
+    public long getMemoMisses() {
+        return successes + failures;
+    }
+
+    /**
+     * Returns the total number of characters consumed by successful attempts, including memo hits
+     * @return the number of characters
+     */
+    public long getConsumed() {
+        return consumed;
+    }
+
+    /**
+     * Returns the cumulative time spent on attempts that were not in the memo
+     * @return the time in nanoseconds
+     */
+    public long getNanos() {
+        return nanos;
+    }
+
+    /**
+     * @inheritDoc
+     */
+    @Override
+    public String toString() {
+        return name + ": " + getAttempts() + " attempts, " + successes + " successes, " + failures + " failures, "
+                + memoHits + " memo hits, " + consumed + " characters, " + nanos / 1_000_000 + " ms";
+    }
+}
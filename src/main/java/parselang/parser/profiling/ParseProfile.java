@@ -0,0 +1,133 @@
+package parselang.parser.profiling;
+
+import parselang.parser.data.Node;
+import parselang.parser.data.NonTerminal;
+import parselang.parser.data.ParseRule;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Snapshot of the counters collected by a ParseProfiler
+ */
+public class ParseProfile {
+
+    /**
+     * Orders counters by cumulative time, most expensive first
+     */
+    public static final Comparator<ParseCounters> BY_TIME = Comparator.comparingLong(ParseCounters::getNanos).reversed();
+
+    /**
+     * Orders counters by number of failed attempts, the biggest cause of backtracking first
+     */
+    public static final Comparator<ParseCounters> BY_FAILURES = Comparator.comparingLong(ParseCounters::getFailures).reversed();
+
+    private static final String CSV_HEADER = "kind,name,attempts,successes,failures,memoHits,memoMisses,consumed,ms";
+
+    private final Map<Node, ParseCounters> nodes;
+    private final Map<ParseRule, ParseCounters> rules;
+
+    ParseProfile(Map<Node, ParseCounters> nodes, Map<ParseRule, ParseCounters> rules) {
+        this.nodes = Collections.unmodifiableMap(nodes);
+        this.rules = Collections.unmodifiableMap(rules);
+    }
+
+    /**
+     * Returns the counters of every node that was parsed, both nonterminals and terminals
+     * @return the counters by node
+     */
+    public Map<Node, ParseCounters> getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Returns the counters of every nonterminal that was parsed
+     * @return the counters by nonterminal
+     */
+    public Map<NonTerminal, ParseCounters> getNonTerminals() {
+        Map<NonTerminal, ParseCounters> res = new HashMap<>();
+        nodes.forEach((node, counters) -> {
+            if (node instanceof NonTerminal) {
+                res.put((NonTerminal) node, counters);
+            }
+        });
+        return res;
+    }
+
+    /**
+     * Returns the counters of every rule that was applied
+     * @return the counters by rule
+     */
+    public Map<ParseRule, ParseCounters> getRules() {
+        return rules;
+    }
+
+    /**
+     * Returns the counters of a nonterminal
+     * @param nonTerminal the nonterminal
+     * @return its counters, or null if it was never parsed
+     */
+    public ParseCounters get(Node nonTerminal) {
+        return nodes.get(nonTerminal);
+    }
+
+    /**
+     * Returns the counters of a rule
+     * @param rule the rule
+     * @return its counters, or null if it was never applied
+     */
+    public ParseCounters get(ParseRule rule) {
+        return rules.get(rule);
+    }
+
+    /**
+     * Creates a table of the most significant nonterminals and rules
+     * @param order order of the rows
+     * @param limit maximum number of nonterminals and of rules to show
+     * @return the table
+     */
+    public String toText(Comparator<ParseCounters> order, int limit) {
+        StringBuilder sb = new StringBuilder();
+        appendTable(sb, "Nonterminals", getNonTerminals().values(), order, limit);
+        sb.append("\n");
+        appendTable(sb, "Rules", rules.values(), order, limit);
+        return sb.toString();
+    }
+
+    /**
+     * Creates CSV of the counters of all nodes and rules
+     * @param order order of the rows of nodes and of rules
+     * @return the CSV, including a header
+     */
+    public String toCsv(Comparator<ParseCounters> order) {
+        StringBuilder sb = new StringBuilder(CSV_HEADER).append("\n");
+        nodes.entrySet().stream().sorted(Map.Entry.comparingByValue(order))
+                .forEach(entry -> appendCsv(sb, entry.getKey() instanceof NonTerminal ? "nonterminal" : "terminal", entry.getValue()));
+        rules.values().stream().sorted(order).forEach(counters -> appendCsv(sb, "rule", counters));
+        return sb.toString();
+    }
+
+    /**
+     * @inheritDoc
+     */
+    @Override
+    public String toString() {
+        return toText(BY_TIME, 20);
+    }
+
+    private static void appendTable(StringBuilder sb, String title, Collection<ParseCounters> counters, Comparator<ParseCounters> order, int limit) {
+        sb.append(title).append(" (").append(counters.size()).append(")\n");
+        sb.append(String.format(Locale.ROOT, "%10s %10s %10s %10s %12s %10s  %s%n", "attempts", "successes", "failures", "memo hits", "consumed", "ms", "name"));
+        for (ParseCounters c : counters.stream().sorted(order).limit(limit).collect(Collectors.toList())) {
+            sb.append(String.format(Locale.ROOT, "%10d %10d %10d %10d %12d %10.1f  %s%n", c.getAttempts(), c.getSuccesses(), c.getFailures(),
+                    c.getMemoHits(), c.getConsumed(), c.getNanos() / 1e6, c.getName().replace("\n", "\\n")));
+        }
+    }
+
+    private static void appendCsv(StringBuilder sb, String kind, ParseCounters c) {
+        sb.append(kind).append(",\"").append(c.getName().replace("\"", "\"\"")).append("\",").append(c.getAttempts())
+                .append(",").append(c.getSuccesses()).append(",").append(c.getFailures()).append(",").append(c.getMemoHits())
+                .append(",").append(c.getMemoMisses()).append(",").append(c.getConsumed())
+                .append(",").append(String.format(Locale.ROOT, "%.3f", c.getNanos() / 1e6)).append("\n");
+    }
+}
@@ -0,0 +1,90 @@
+package parselang.parser.profiling;
+
+import parselang.parser.data.Node;
+import parselang.parser.data.ParseRule;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Collects counters of the nodes and parse rules a parser attempts. A profiler can be shared by parsers running in
+ * parallel, and keeps counting until it is reset.
+ */
+public class ParseProfiler {
+
+    private final Map<Node, Counter> nodes = new HashMap<>();
+    private final Map<ParseRule, Counter> rules = new HashMap<>();
+
+    /**
+     * Records that the result of parsing a node was taken from the memo. Called by parsers.
+     * @param node node that was parsed
+     * @param consumed number of characters of the result
+     */
+    public synchronized void memoHit(Node node, int consumed) {
+        Counter counter = nodes.computeIfAbsent(node, x -> new Counter());
+        counter.memoHits++;
+        counter.consumed += consumed;
+    }
+
+    /**
+     * Records a parse attempt of a node that was not in the memo. Called by parsers.
+     * @param node node that was parsed
+     * @param consumed number of characters of the result, or -1 if the attempt failed
+     * @param nanos time the attempt took
+     */
+    public synchronized void nodeParsed(Node node, int consumed, long nanos) {
+        nodes.computeIfAbsent(node, x -> new Counter()).record(consumed, nanos);
+    }
+
+    /**
+     * Records an attempt to parse with a rule. Called by parsers.
+     * @param rule rule that was applied
+     * @param consumed number of characters of the result, or -1 if the attempt failed
+     * @param nanos time the attempt took
+     */
+    public synchronized void ruleApplied(ParseRule rule, int consumed, long nanos) {
+        rules.computeIfAbsent(rule, x -> new Counter()).record(consumed, nanos);
+    }
+
+    /**
+     * Returns the counters collected so far
+     * @return a snapshot of the counters, which is not changed by later parses
+     */
+    public synchronized ParseProfile snapshot() {
+        Map<Node, ParseCounters> nodeCounters = new HashMap<>();
+        nodes.forEach((node, counter) -> nodeCounters.put(node, counter.freeze(node.toString())));
+        Map<ParseRule, ParseCounters> ruleCounters = new HashMap<>();
+        rules.forEach((rule, counter) -> ruleCounters.put(rule, counter.freeze(rule.toString())));
+        return new ParseProfile(nodeCounters, ruleCounters);
+    }
+
+    /**
+     * Removes all counters collected so far
+     */
+    public synchronized void reset() {
+        nodes.clear();
+        rules.clear();
+    }
+
+    private static class Counter {
+        private long successes;
+        private long failures;
+        private long memoHits;
+        private long consumed;
+        private long nanos;
+
+        private void record(int consumed, long nanos) {
+            if (consumed < 0) {
+                failures++;
+            } else {
+                successes++;
+                this.consumed += consumed;
+            }
+            this.nanos += nanos;
+        }
+
+        private ParseCounters freeze(String name) {
+            return new ParseCounters(name, successes, failures, memoHits, consumed, nanos);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package parselang.parser.profiling;
+
+import parselang.parser.data.Node;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Trace of the steps a parser takes, kept in a ring buffer of fixed size that is allocated up front. When the buffer
+ * is full the oldest events are overwritten, so a trace can stay attached to a long parse and shows its last steps.
+ * Recording an event only writes a few numbers into arrays. A trace is filled by one parser at a time.
+ */
+public class ParseTrace {
+
+    /**
+     * Kind of a step of the parser
+     */
+    public enum Kind {
+        /** the parser started parsing a node */
+        ENTER,
+        /** the parser finished parsing a node successfully */
+        EXIT,
+        /** the result of parsing a node was taken from the memo */
+        MEMO_HIT,
+        /** the parser could not parse a node */
+        FAIL
+    }
+
+    private static final Kind[] KINDS = Kind.values();
+
+    private final byte[] kinds;
+    private final int[] nodeIds;
+    private final int[] offsets;
+    private final int[] depths;
+    private final long[] nanos;
+    private final int mask;
+
+    private final Map<Node, Integer> nodeIdsByNode = new HashMap<>();
+    private final List<Node> nodes = new ArrayList<>();
+    private long recorded = 0;
+    private int depth = 0;
+    private String source = "";
+
+    /**
+     * Creates a new ParseTrace
+     * @param capacity number of events kept, rounded up to a power of two
+     */
+    public ParseTrace(int capacity) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Capacity must be between 1 and 2^30, got " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity) == capacity ? capacity : Integer.highestOneBit(capacity) << 1;
+        kinds = new byte[size];
+        nodeIds = new int[size];
+        offsets = new int[size];
+        depths = new int[size];
+        nanos = new long[size];
+        mask = size - 1;
+    }
+
+    /**
+     * Sets the string that is parsed next. Called by parsers.
+     * @param source the string
+     */
+    public void setSource(String source) {
+        this.source = source;
+        this.depth = 0;
+    }
+
+    /**
+     * Records a step of the parser. Called by parsers.
+     * @param kind kind of the step
+     * @param node node that is parsed
+     * @param offset index in the string: where parsing starts for ENTER, MEMO_HIT and FAIL, where it ended for EXIT
+     */
+    public void record(Kind kind, Node node, int offset) {
+        if (kind == Kind.EXIT || kind == Kind.FAIL) {
+            depth--;
+        }
+        int index = (int) (recorded & mask);
+        kinds[index] = (byte) kind.ordinal();
+        nodeIds[index] = nodeId(node);
+        offsets[index] = offset;
+        depths[index] = depth;
+        nanos[index] = System.nanoTime();
+        recorded++;
+        if (kind == Kind.ENTER) {
+            depth++;
+        }
+    }
+
+    /**
+     * Returns the number of events recorded since the trace was created or cleared, including overwritten ones
+     * @return the number of events
+     */
+    public long getRecorded() {
+        return recorded;
+    }
+
+    /**
+     * Returns the sequence number of the oldest event that is still kept
+     * @return the sequence number
+     */
+    public long getFirstKept() {
+        return Math.max(0, recorded - kinds.length);
+    }
+
+    /**
+     * Returns the string that was parsed most recently
+     * @return the string
+     */
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * Returns kept events
+     * @param from sequence number of the first event to return, which is moved forward to the oldest kept event
+     * @param count maximum number of events to return
+     * @return the events, in order
+     */
+    public List<TraceEvent> getEvents(long from, int count) {
+        List<TraceEvent> res = new ArrayList<>();
+        for (long sequence = Math.max(from, getFirstKept()); sequence < recorded && res.size() < count; sequence++) {
+            int index = (int) (sequence & mask);
+            res.add(new TraceEvent(sequence, KINDS[kinds[index]], nodes.get(nodeIds[index]), offsets[index], depths[index], nanos[index]));
+        }
+        return res;
+    }
+
+    /**
+     * Removes all events
+     */
+    public void clear() {
+        recorded = 0;
+        depth = 0;
+    }
+
+    private int nodeId(Node node) {
+        Integer id = nodeIdsByNode.get(node);
+        if (id == null) {
+            id = nodes.size();
+            nodes.add(node);
+            nodeIdsByNode.put(node, id);
+        }
+        return id;
+    }
+}
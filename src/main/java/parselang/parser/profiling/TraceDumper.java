@@ -0,0 +1,109 @@
+package parselang.parser.profiling;
+
+import parselang.parser.data.SourceMap;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Renders the events of a ParseTrace for people and for trace viewers
+ */
+public final class TraceDumper {
+
+    private TraceDumper() {
+    }
+
+    /**
+     * Renders a window of events as indented text, one line per event
+     * @param trace the trace
+     * @param from sequence number of the first event to render
+     * @param count maximum number of events to render
+     * @return the text
+     */
+    public static String render(ParseTrace trace, long from, int count) {
+        List<TraceEvent> events = trace.getEvents(from, count);
+        if (events.isEmpty()) {
+            return "";
+        }
+        SourceMap sourceMap = new SourceMap(trace.getSource());
+        int minimumDepth = events.stream().mapToInt(TraceEvent::getDepth).min().orElse(0);
+        long startNanos = events.get(0).getNanos();
+        StringBuilder sb = new StringBuilder();
+        for (TraceEvent event : events) {
+            sb.append(String.format(Locale.ROOT, "%10d %+12.3f ms  ", event.getSequence(), (event.getNanos() - startNanos) / 1e6))
+                    .append("  ".repeat(event.getDepth() - minimumDepth))
+                    .append(event.getKind()).append(" ").append(event.getNode())
+                    .append(" @").append(position(sourceMap, trace.getSource(), event.getOffset())).append("\n");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Writes all kept events in the Chrome trace event format, which can be opened in chrome://tracing or Perfetto.
+     * Nodes become duration events, memo hits become instant events, and failed attempts are marked as such.
+     * @param trace the trace
+     * @param out where to write the JSON to
+     * @throws IOException if writing failed
+     */
+    public static void writeChromeTrace(ParseTrace trace, Appendable out) throws IOException {
+        List<TraceEvent> events = trace.getEvents(0, Integer.MAX_VALUE);
+        SourceMap sourceMap = new SourceMap(trace.getSource());
+        long startNanos = events.isEmpty() ? 0 : events.get(0).getNanos();
+        int open = 0;
+        boolean first = true;
+        out.append("{\"traceEvents\":[");
+        for (TraceEvent event : events) {
+            String phase;
+            switch (event.getKind()) {
+                case ENTER:
+                    phase = "B";
+                    open++;
+                    break;
+                case MEMO_HIT:
+                    phase = "i";
+                    break;
+                default:
+                    if (open == 0) {
+                        //the start of this node was overwritten
+                        continue;
+                    }
+                    phase = "E";
+                    open--;
+            }
+            out.append(first ? "\n" : ",\n");
+            first = false;
+            out.append("{\"name\":\"").append(escape(event.getNode().toString())).append("\",\"ph\":\"").append(phase)
+                    .append("\",\"ts\":").append(String.format(Locale.ROOT, "%.3f", (event.getNanos() - startNanos) / 1e3))
+                    .append(",\"pid\":1,\"tid\":1");
+            if (phase.equals("i")) {
+                out.append(",\"s\":\"t\"");
+            }
+            out.append(",\"args\":{\"offset\":").append(String.valueOf(event.getOffset()))
+                    .append(",\"position\":\"").append(position(sourceMap, trace.getSource(), event.getOffset())).append("\"");
+            if (event.getKind() == ParseTrace.Kind.FAIL) {
+                out.append(",\"failed\":true");
+            }
+            out.append("}}");
+        }
+        out.append("\n]}\n");
+    }
+
+    private static String position(SourceMap sourceMap, String source, int offset) {
+        return offset >= 0 && offset <= source.length() ? sourceMap.format(offset) : String.valueOf(offset);
+    }
+
+    private static String escape(String value) {
+        StringBuilder sb = new StringBuilder();
+        for (char c : value.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20) {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+}
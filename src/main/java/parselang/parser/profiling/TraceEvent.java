@@ -0,0 +1,73 @@
+package parselang.parser.profiling;
+
+import parselang.parser.data.Node;
+
+/**
+ * Step of a parser recorded in a ParseTrace
+ */
+public class TraceEvent {
+
+    private final long sequence;
+    private final ParseTrace.Kind kind;
+    private final Node node;
+    private final int offset;
+    private final int depth;
+    private final long nanos;
+
+    TraceEvent(long sequence, ParseTrace.Kind kind, Node node, int offset, int depth, long nanos) {
+        this.sequence = sequence;
+        this.kind = kind;
+        this.node = node;
+        this.offset = offset;
+        this.depth = depth;
+        this.nanos = nanos;
+    }
+
+    /**
+     * Returns the number of events recorded before this one
+     * @return the sequence number
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Returns the kind of step
+     * @return the kind
+     */
+    public ParseTrace.Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Returns the node that was parsed
+     * @return the node
+     */
+    public Node getNode() {
+        return node;
+    }
+
+    /**
+     * Returns the index in the parsed string of the step
+     * @return the index
+     */
+    public int getOffset() {
+        return offset;
+    }
+
+    /**
+     * Returns the number of nodes that were being parsed around this step
+     * @return the depth
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Returns the time of the step, as given by System.nanoTime()
+     * @return the time in nanoseconds
+     */
+    public long getNanos() {
+        return nanos;
+    }
+}
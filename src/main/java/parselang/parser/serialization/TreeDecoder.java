@@ -0,0 +1,177 @@
+package parselang.parser.serialization;
+
+import parselang.parser.data.*;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static parselang.parser.serialization.TreeEncoder.*;
+
+/**
+ * Reads nodes, parse rules and ASTs written by a TreeEncoder. Values are read one by one, so a stream can be decoded
+ * without reading it into memory first.
+ */
+public class TreeDecoder {
+
+    private final DataInputStream in;
+    private final List<Node> nodes = new ArrayList<>();
+    private final List<ParseRule> rules = new ArrayList<>();
+
+    /**
+     * Creates a new TreeDecoder
+     * @param in stream to read from
+     */
+    public TreeDecoder(InputStream in) {
+        this.in = in instanceof DataInputStream ? (DataInputStream) in : new DataInputStream(in);
+    }
+
+    /**
+     * Reads a node
+     * @return the node
+     * @throws IOException if reading failed or the data is malformed
+     */
+    public Node readNode() throws IOException {
+        int index = readInt();
+        if (index < nodes.size()) {
+            return nodes.get(index);
+        } else if (index > nodes.size()) {
+            throw new IOException("Node " + index + " is used before it is defined");
+        }
+        nodes.add(null);
+        Node node;
+        int kind = readInt();
+        switch (kind) {
+            case NON_TERMINAL:
+            case GENERATED_NON_TERMINAL:
+                node = new NonTerminal(readString(), kind == GENERATED_NON_TERMINAL);
+                break;
+            case TERMINAL:
+                node = new Terminal(readString());
+                break;
+            case STAR:
+                Node[] contents = new Node[readInt()];
+                for (int i = 0; i < contents.length; i++) {
+                    contents[i] = readNode();
+                }
+                node = new StarNode(contents);
+                break;
+            case BOUND:
+            case LAZY_BOUND:
+                String name = readString();
+                node = new BoundNode(readNode(), name, kind == LAZY_BOUND);
+                break;
+            default:
+                throw new IOException("Unknown node kind " + kind);
+        }
+        nodes.set(index, node);
+        return node;
+    }
+
+    /**
+     * Reads a parse rule
+     * @return the rule, or null if null was written
+     * @throws IOException if reading failed or the data is malformed
+     */
+    public ParseRule readRule() throws IOException {
+        int index = readInt() - 1;
+        if (index < 0) {
+            return null;
+        } else if (index < rules.size()) {
+            return rules.get(index);
+        } else if (index > rules.size()) {
+            throw new IOException("Rule " + index + " is used before it is defined");
+        }
+        rules.add(null);
+        Node lhs = readNode();
+        if (!(lhs instanceof NonTerminal)) {
+            throw new IOException("Left hand side of rule " + index + " is not a nonterminal");
+        }
+        Node[] rhs = new Node[readInt()];
+        for (int i = 0; i < rhs.length; i++) {
+            rhs[i] = readNode();
+        }
+        ParseRule rule;
+        if (readInt() == 0) {
+            rule = new ParseRule((NonTerminal) lhs);
+        } else {
+            rule = new ParseRule((NonTerminal) lhs, readRule());
+        }
+        rule.addRhs(rhs);
+        rules.set(index, rule);
+        return rule;
+    }
+
+    /**
+     * Reads an AST or list of ASTs
+     * @param originalString the string the tree was parsed from
+     * @return the tree
+     * @throws IOException if reading failed or the data is malformed
+     */
+    public ASTElem readTree(String originalString) throws IOException {
+        int kind = readInt();
+        if (kind == AST_LIST) {
+            ASTElemList list = new ASTElemList();
+            int size = readInt();
+            for (int i = 0; i < size; i++) {
+                list.add(readTree(originalString));
+            }
+            return list;
+        } else if (kind != AST_NODE) {
+            throw new IOException("Unknown tree kind " + kind);
+        }
+        AST ast = new AST(readNode(), originalString);
+        ast.setRuleApplied(readRule());
+        int from = readInt();
+        int to = from + readInt();
+        if (to > originalString.length()) {
+            throw new IOException("Tree ends at " + to + ", after the end of the string it was parsed from");
+        }
+        ast.setParsed(from, to);
+        int children = readInt();
+        for (int i = 0; i < children; i++) {
+            ast.addChild(readTree(originalString));
+        }
+        return ast;
+    }
+
+    /**
+     * Reads a string
+     * @return the string
+     * @throws IOException if reading failed
+     */
+    public String readString() throws IOException {
+        return new String(readBytes(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads an array of bytes
+     * @return the bytes
+     * @throws IOException if reading failed
+     */
+    public byte[] readBytes() throws IOException {
+        byte[] bytes = new byte[readInt()];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    /**
+     * Reads a non-negative integer
+     * @return the integer
+     * @throws IOException if reading failed or the data is malformed
+     */
+    public int readInt() throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed integer");
+    }
+}
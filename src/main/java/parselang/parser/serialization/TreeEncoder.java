@@ -0,0 +1,171 @@
+package parselang.parser.serialization;
+
+import parselang.parser.data.*;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Writes nodes, parse rules and ASTs in a compact binary format that can be read back with a TreeDecoder. Nodes and
+ * rules are written once, the first time they are used, and referred to by their index afterwards.
+ */
+public class TreeEncoder {
+
+    static final int NON_TERMINAL = 0;
+    static final int GENERATED_NON_TERMINAL = 1;
+    static final int TERMINAL = 2;
+    static final int STAR = 3;
+    static final int BOUND = 4;
+    static final int LAZY_BOUND = 5;
+
+    static final int AST_NODE = 0;
+    static final int AST_LIST = 1;
+
+    private final DataOutputStream out;
+    private final Map<Node, Integer> nodes = new IdentityHashMap<>();
+    private final Map<ParseRule, Integer> rules = new IdentityHashMap<>();
+
+    /**
+     * Creates a new TreeEncoder
+     * @param out stream to write to
+     */
+    public TreeEncoder(OutputStream out) {
+        this.out = out instanceof DataOutputStream ? (DataOutputStream) out : new DataOutputStream(out);
+    }
+
+    /**
+     * Writes a node
+     * @param node node to write
+     * @throws IOException if writing failed
+     */
+    public void writeNode(Node node) throws IOException {
+        Integer index = nodes.get(node);
+        if (index != null) {
+            writeInt(index);
+            return;
+        }
+        nodes.put(node, nodes.size());
+        writeInt(nodes.size() - 1);
+        if (node instanceof NonTerminal) {
+            writeInt(((NonTerminal) node).wasGeneratedByStar() ? GENERATED_NON_TERMINAL : NON_TERMINAL);
+            writeString(((NonTerminal) node).getName());
+        } else if (node instanceof Terminal) {
+            writeInt(TERMINAL);
+            writeString(((Terminal) node).getValue());
+        } else if (node instanceof StarNode) {
+            writeInt(STAR);
+            writeInt(((StarNode) node).contents().size());
+            for (Node content : ((StarNode) node).contents()) {
+                writeNode(content);
+            }
+        } else if (node instanceof BoundNode) {
+            writeInt(((BoundNode) node).isLazy() ? LAZY_BOUND : BOUND);
+            writeString(((BoundNode) node).getName());
+            writeNode(((BoundNode) node).getContent());
+        } else {
+            throw new UnsupportedOperationException("Cannot encode " + node.getClass());
+        }
+    }
+
+    /**
+     * Writes a parse rule, including the rule it was generated from
+     * @param rule rule to write, or null
+     * @throws IOException if writing failed
+     */
+    public void writeRule(ParseRule rule) throws IOException {
+        if (rule == null) {
+            writeInt(0);
+            return;
+        }
+        Integer index = rules.get(rule);
+        if (index != null) {
+            writeInt(index + 1);
+            return;
+        }
+        rules.put(rule, rules.size());
+        writeInt(rules.size());
+        writeNode(rule.getLHS());
+        writeInt(rule.getRHS().size());
+        for (Node node : rule.getRHS()) {
+            writeNode(node);
+        }
+        ParseRule origin = rule.getOrigin();
+        if (origin == rule) {
+            writeInt(0);
+        } else {
+            writeInt(1);
+            writeRule(origin);
+        }
+    }
+
+    /**
+     * Writes an AST or list of ASTs, without the string it was parsed from
+     * @param tree tree to write
+     * @throws IOException if writing failed
+     */
+    public void writeTree(ASTElem tree) throws IOException {
+        if (tree instanceof ASTElemList) {
+            writeInt(AST_LIST);
+            writeInt(((ASTElemList) tree).size());
+            for (ASTElem child : (ASTElemList) tree) {
+                writeTree(child);
+            }
+            return;
+        }
+        AST ast = (AST) tree;
+        writeInt(AST_NODE);
+        writeNode(ast.getRoot());
+        writeRule(ast.getRule());
+        writeInt(ast.getParsedFrom());
+        writeInt(ast.getParsedTo() - ast.getParsedFrom());
+        writeInt(ast.getChildren().size());
+        for (ASTElem child : ast.getChildren()) {
+            writeTree(child);
+        }
+    }
+
+    /**
+     * Writes a string of any length
+     * @param value string to write
+     * @throws IOException if writing failed
+     */
+    public void writeString(String value) throws IOException {
+        writeBytes(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Writes an array of bytes of any length
+     * @param bytes bytes to write
+     * @throws IOException if writing failed
+     */
+    public void writeBytes(byte[] bytes) throws IOException {
+        writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Writes a non-negative integer using as few bytes as possible
+     * @param value integer to write
+     * @throws IOException if writing failed
+     */
+    public void writeInt(int value) throws IOException {
+        assert value >= 0;
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    /**
+     * Writes all buffered data to the underlying stream
+     * @throws IOException if writing failed
+     */
+    public void flush() throws IOException {
+        out.flush();
+    }
+}
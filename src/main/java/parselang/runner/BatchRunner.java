@@ -0,0 +1,253 @@
+package parselang.runner;
+
+import parselang.governor.ResourceGovernor;
+import parselang.interpreter.CompiledProgram;
+import parselang.interpreter.Interpreter;
+import parselang.interpreter.profiling.DeclarationProfiler;
+import parselang.interpreter.data.PLData;
+import parselang.languages.ParseLangV1;
+import parselang.modules.Module;
+import parselang.parser.ParseResult;
+import parselang.parser.ParseRuleStorage;
+import parselang.parser.data.AST;
+import parselang.parser.data.NonTerminal;
+import parselang.parser.data.ParseRule;
+import parselang.parser.parsers.Parser;
+import parselang.parser.parsers.RecursiveParser;
+import parselang.parser.profiling.ParseProfiler;
+import parselang.util.AllocationRecorder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Parses and interprets many ParseLang files in parallel. The base grammar is prepared once and copied for every file,
+ * as parsing a file adds the rules of its declarations to the grammar.
+ */
+public class BatchRunner {
+
+    private static final NonTerminal TOPLEVEL = new NonTerminal("HighLevel", false);
+
+    private final ParseRuleStorage baseStorage = new ParseRuleStorage();
+    private final Map<ParseRule, AST> imported = new HashMap<>();
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private boolean virtualThreads = false;
+    private ParseProfiler profiler = null;
+    private DeclarationProfiler declarationProfiler = null;
+    private AllocationRecorder allocationRecorder = null;
+    private Supplier<ResourceGovernor> governors = null;
+
+    /**
+     * Creates a new BatchRunner, preparing the ParseLang grammar
+     */
+    public BatchRunner() {
+        baseStorage.prepare(new ParseLangV1(), TOPLEVEL);
+    }
+
+    /**
+     * Makes the declarations of a module available to all files that are run afterwards
+     * @param module module to import
+     */
+    public void addModule(Module module) {
+        module.applyTo(baseStorage);
+        imported.putAll(module.getDeclarations());
+    }
+
+    /**
+     * Sets the number of files that are processed at the same time
+     * @param parallelism number of workers
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive, got " + parallelism);
+        }
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Sets whether every file is processed in its own virtual thread instead of on a pool of workers. Only has effect
+     * when the runtime supports virtual threads. The runtime does not measure the bytes allocated by virtual threads,
+     * so allocation reports then only count objects, and governors that limit allocated bytes fail every file.
+     * @param virtualThreads whether to use virtual threads
+     */
+    public void setVirtualThreads(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+    }
+
+    /**
+     * Returns whether files are processed in virtual threads, which requires them to be enabled and supported by the
+     * runtime
+     * @return true iff every file gets its own virtual thread
+     */
+    public boolean isUsingVirtualThreads() {
+        if (!virtualThreads) {
+            return false;
+        }
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Sets the profiler that counts the parse attempts of all files
+     * @param profiler the profiler, or null to not profile
+     */
+    public void setProfiler(ParseProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    /**
+     * Sets the profiler that keeps track of the user declarations executed by all files
+     * @param declarationProfiler the profiler, or null to not profile
+     */
+    public void setDeclarationProfiler(DeclarationProfiler declarationProfiler) {
+        this.declarationProfiler = declarationProfiler;
+    }
+
+    /**
+     * Sets how the resources every file may use are limited. Files that exceed a limit fail with a
+     * ResourceLimitExceededException, without holding up the other files.
+     * @param governors creates a governor for every file, or null to not limit files
+     */
+    public void setGovernors(Supplier<ResourceGovernor> governors) {
+        this.governors = governors;
+    }
+
+    /**
+     * Sets the recorder that accounts for the allocations of all files, in the phases parse, compile and interpret
+     * @param allocationRecorder the recorder, or null to not account for allocations
+     */
+    public void setAllocationRecorder(AllocationRecorder allocationRecorder) {
+        this.allocationRecorder = allocationRecorder;
+    }
+
+    /**
+     * Returns all ParseLang files in a directory and its subdirectories, in order of their path
+     * @param fileOrDirectory directory to search, or a single file which is returned as is
+     * @return the files found
+     * @throws IOException if the directory could not be read
+     */
+    public static List<Path> collect(Path fileOrDirectory) throws IOException {
+        if (!Files.isDirectory(fileOrDirectory)) {
+            return List.of(fileOrDirectory);
+        }
+        try (Stream<Path> files = Files.walk(fileOrDirectory)) {
+            return files.filter(path -> Files.isRegularFile(path) && path.toString().endsWith(".plang")).sorted().collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Parses and interprets files in parallel
+     * @param files files to process
+     * @return the result of every file, in the same order as the files
+     */
+    public List<FileResult> run(List<Path> files) {
+        ExecutorService executor = createExecutor();
+        try {
+            List<Future<FileResult>> futures = new ArrayList<>();
+            for (Path file : files) {
+                futures.add(executor.submit(() -> run(file)));
+            }
+            List<FileResult> results = new ArrayList<>();
+            for (Future<FileResult> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while running batch", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Worker failed unexpectedly", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Parses and interprets a single file
+     * @param file file to process
+     * @return the result of the file
+     */
+    public FileResult run(Path file) {
+        long start = System.nanoTime();
+        ResourceGovernor governor = governors == null ? null : governors.get();
+        ParseResult parsed;
+        try {
+            if (governor != null) {
+                governor.start();
+            }
+            String program = Files.readString(file);
+            Parser parser = new RecursiveParser();
+            parser.setVerbosity(0);
+            parser.setProfiler(profiler);
+            parser.setGovernor(governor);
+            beginPhase("parse");
+            try {
+                parsed = parser.readFile(program, new ParseRuleStorage(baseStorage), TOPLEVEL);
+            } finally {
+                endPhase();
+            }
+        } catch (Exception | StackOverflowError e) {
+            return new FileResult(file, null, e, System.nanoTime() - start, 0);
+        }
+        long parseNanos = System.nanoTime() - start;
+        start = System.nanoTime();
+        try {
+            beginPhase("compile");
+            CompiledProgram compiled;
+            try {
+                compiled = CompiledProgram.compile(parsed.getTree(), imported);
+            } finally {
+                endPhase();
+            }
+            Interpreter interpreter = new Interpreter(compiled);
+            interpreter.setProfiler(declarationProfiler);
+            interpreter.setGovernor(governor);
+            PLData result;
+            beginPhase("interpret");
+            try {
+                result = interpreter.run();
+            } finally {
+                endPhase();
+            }
+            return new FileResult(file, result, null, parseNanos, System.nanoTime() - start);
+        } catch (Exception | StackOverflowError e) {
+            return new FileResult(file, null, e, parseNanos, System.nanoTime() - start);
+        }
+    }
+
+    private void beginPhase(String phase) {
+        if (allocationRecorder != null) {
+            allocationRecorder.begin(phase);
+        }
+    }
+
+    private void endPhase() {
+        if (allocationRecorder != null) {
+            allocationRecorder.end();
+        }
+    }
+
+    private ExecutorService createExecutor() {
+        if (virtualThreads) {
+            try {
+                return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException e) {
+                //virtual threads are not available in this runtime, use a pool instead
+            }
+        }
+        return new ForkJoinPool(parallelism);
+    }
+}
@@ -0,0 +1,82 @@
+package parselang.runner;
+
+import parselang.interpreter.data.PLData;
+
+import java.nio.file.Path;
+
+/**
+ * Outcome of parsing and interpreting a single file
+ */
+public class FileResult {
+
+    private final Path path;
+    private final PLData result;
+    private final Throwable error;
+    private final long parseNanos;
+    private final long runNanos;
+
+    FileResult(Path path, PLData result, Throwable error, long parseNanos, long runNanos) {
+        this.path = path;
+        this.result = result;
+        this.error = error;
+        this.parseNanos = parseNanos;
+        this.runNanos = runNanos;
+    }
+
+    /**
+     * Returns the file this is the result of
+     * @return the path of the file
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Returns the return value of the program
+     * @return the return value, or null if the program failed or only consists of declarations
+     */
+    public PLData getResult() {
+        return result;
+    }
+
+    /**
+     * Returns what went wrong while reading, parsing or interpreting the file
+     * @return the error, or null if the program ran successfully
+     */
+    public Throwable getError() {
+        return error;
+    }
+
+    /**
+     * Returns whether the program was parsed and interpreted without errors
+     * @return true iff there was no error
+     */
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    /**
+     * Returns the time spent reading and parsing the file
+     * @return the time in nanoseconds
+     */
+    public long getParseNanos() {
+        return parseNanos;
+    }
+
+    /**
+     * Returns the time spent interpreting the program
+     * @return the time in nanoseconds, or 0 if it was not interpreted
+     */
+    public long getRunNanos() {
+        return runNanos;
+    }
+
+    /**
+     * @inheritDoc
+     */
+    @Override
+    public String toString() {
+        String outcome = isSuccess() ? "> " + result : "! " + error;
+        return path + " " + outcome + " (parse " + parseNanos / 1_000_000 + " ms, run " + runNanos / 1_000_000 + " ms)";
+    }
+}
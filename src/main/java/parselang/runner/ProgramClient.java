@@ -0,0 +1,95 @@
+package parselang.runner;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * Client that sends ParseLang programs to a ProgramServer running on the same machine
+ */
+public class ProgramClient {
+
+    private final int port;
+
+    /**
+     * Creates a new ProgramClient
+     * @param port port the server listens on
+     */
+    public ProgramClient(int port) {
+        this.port = port;
+    }
+
+    /**
+     * Runs a program on the server
+     * @param program source of the program
+     * @return the string representation of the return value of the program
+     * @throws IOException if the server could not be reached
+     * @throws IllegalArgumentException if the program could not be parsed or failed while running
+     * @throws IllegalStateException if the server rejected the program because of its admission limits
+     */
+    public String run(String program) throws IOException {
+        byte[] bytes = program.getBytes(StandardCharsets.UTF_8);
+        return request(out -> {
+            out.writeByte(ProgramServer.RUN);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        });
+    }
+
+    /**
+     * Returns the metrics of the server
+     * @return a description of the metrics
+     * @throws IOException if the server could not be reached
+     */
+    public String metrics() throws IOException {
+        return request(out -> out.writeByte(ProgramServer.METRICS));
+    }
+
+    private String request(RequestWriter writer) throws IOException {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+             DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()))) {
+            writer.write(out);
+            out.flush();
+            byte status = in.readByte();
+            String message = in.readUTF();
+            switch (status) {
+                case ProgramServer.OK:
+                    return message;
+                case ProgramServer.REJECTED:
+                    throw new IllegalStateException(message);
+                default:
+                    throw new IllegalArgumentException(message);
+            }
+        }
+    }
+
+    private interface RequestWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    /**
+     * Runs programs on a server: [--port n] (file | --metrics)...
+     * @param args command line arguments
+     * @throws IOException if a file could not be read or the server could not be reached
+     */
+    public static void main(String[] args) throws IOException {
+        ProgramClient client = new ProgramClient(ProgramServer.DEFAULT_PORT);
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--port")) {
+                client = new ProgramClient(Integer.parseInt(args[++i]));
+            } else if (args[i].equals("--metrics")) {
+                System.out.println(client.metrics());
+            } else {
+                try {
+                    System.out.println("> " + client.run(Files.readString(Paths.get(args[i]))));
+                } catch (IllegalArgumentException | IllegalStateException e) {
+                    System.out.println("! " + e.getMessage());
+                }
+            }
+        }
+    }
+}
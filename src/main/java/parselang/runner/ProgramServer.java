@@ -0,0 +1,333 @@
+package parselang.runner;
+
+import parselang.governor.ResourceGovernor;
+import parselang.governor.ResourceLimitExceededException;
+import parselang.interpreter.CompiledProgram;
+import parselang.interpreter.Interpreter;
+import parselang.languages.ParseLangV1;
+import parselang.parser.ParseRuleStorage;
+import parselang.parser.data.NonTerminal;
+import parselang.parser.exceptions.ParseErrorException;
+import parselang.parser.parsers.Parser;
+import parselang.parser.parsers.RecursiveParser;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Long running server that runs ParseLang programs sent to it over a loopback socket. The grammar is prepared once,
+ * and compiled programs are cached by the hash of their source, so running the same program again only costs its
+ * execution.
+ * <p>
+ * A request consists of a command byte, followed for {@link #RUN} by the length of the program in bytes and the program
+ * in UTF-8. The response consists of a status byte followed by a string written with {@link DataOutputStream#writeUTF}.
+ * <p>
+ * Connections are handled by a fixed number of workers. Connections that arrive while all workers are busy wait in a
+ * bounded queue, and are rejected when the queue is full. Clients that send their request too slowly are disconnected,
+ * and the body of a program is only read once it has been admitted to run. Every request can be given its own
+ * ResourceGovernor, such that a program that runs away is stopped with an {@link #ERROR} response.
+ */
+public class ProgramServer implements Closeable {
+
+    /**
+     * Port the server listens on by default
+     */
+    public static final int DEFAULT_PORT = 7117;
+
+    /**
+     * Time in milliseconds a client may take to send the next part of its request by default
+     */
+    public static final int DEFAULT_READ_TIMEOUT = 10_000;
+
+    static final byte RUN = 'R';
+    static final byte METRICS = 'M';
+    static final byte OK = 0;
+    static final byte ERROR = 1;
+    static final byte REJECTED = 2;
+
+    private static final NonTerminal TOPLEVEL = new NonTerminal("HighLevel", false);
+
+    private final ParseRuleStorage baseStorage = new ParseRuleStorage();
+    private final Map<String, CompiledProgram> programs;
+    private final Semaphore admission;
+    private final int maxProgramLength;
+    private final ServerSocket socket;
+    private final ThreadPoolExecutor workers;
+    private final ServerMetrics metrics = new ServerMetrics();
+    private int readTimeout = DEFAULT_READ_TIMEOUT;
+    private Supplier<ResourceGovernor> governors = null;
+
+    /**
+     * Creates a new ProgramServer and prepares the ParseLang grammar
+     * @param port port to listen on, or 0 to pick a free port
+     * @param maxConcurrent maximum number of programs that run at the same time, further requests are rejected. The
+     *                      server has twice as many workers, such that slow clients do not hold up running programs,
+     *                      and queues up to this many connections while all workers are busy.
+     * @param maxProgramLength maximum length of a program in bytes, longer programs are rejected
+     * @param cacheSize maximum number of compiled programs to keep
+     * @throws IOException if the port could not be bound
+     */
+    public ProgramServer(int port, int maxConcurrent, int maxProgramLength, int cacheSize) throws IOException {
+        baseStorage.prepare(new ParseLangV1(), TOPLEVEL);
+        programs = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CompiledProgram> eldest) {
+                return size() > cacheSize;
+            }
+        };
+        admission = new Semaphore(maxConcurrent);
+        workers = new ThreadPoolExecutor(2 * maxConcurrent, 2 * maxConcurrent, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(maxConcurrent));
+        workers.allowCoreThreadTimeOut(true);
+        this.maxProgramLength = maxProgramLength;
+        socket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+    }
+
+    /**
+     * Returns the port this server listens on
+     * @return the port
+     */
+    public int getPort() {
+        return socket.getLocalPort();
+    }
+
+    /**
+     * Sets how long a client may take to send the next part of its request before it is disconnected
+     * @param readTimeout the timeout in milliseconds, or 0 to wait forever
+     */
+    public void setReadTimeout(int readTimeout) {
+        if (readTimeout < 0) {
+            throw new IllegalArgumentException("Read timeout must not be negative, got " + readTimeout);
+        }
+        this.readTimeout = readTimeout;
+    }
+
+    /**
+     * Sets how governors are created that limit the resources used to parse and run a program. Every request gets a
+     * new governor. A program that exceeds a limit is answered with an error.
+     * @param governors creates a governor for every request, or null to not limit programs
+     */
+    public void setGovernors(Supplier<ResourceGovernor> governors) {
+        this.governors = governors;
+    }
+
+    /**
+     * Returns the metrics of the requests handled so far
+     * @return the metrics
+     */
+    public ServerMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Accepts requests until this server is closed
+     * @throws IOException if accepting a connection failed for another reason than the server being closed
+     */
+    public void serve() throws IOException {
+        while (!socket.isClosed()) {
+            Socket client;
+            try {
+                client = socket.accept();
+            } catch (SocketException e) {
+                if (socket.isClosed()) {
+                    return;
+                }
+                throw e;
+            }
+            try {
+                workers.execute(() -> handle(client));
+            } catch (RejectedExecutionException e) {
+                metrics.rejected();
+                reject(client);
+            }
+        }
+    }
+
+    /**
+     * Returns the compiled version of a program, parsing it only if it is not cached
+     * @param program source of the program
+     * @return the compiled program
+     * @throws ParseErrorException if the program could not be parsed
+     */
+    public CompiledProgram compile(String program) throws ParseErrorException {
+        return compile(program, null);
+    }
+
+    /**
+     * Returns the compiled version of a program, parsing it only if it is not cached
+     * @param program source of the program
+     * @param governor governor limiting the resources used to parse the program, or null to not limit parsing
+     * @return the compiled program
+     * @throws ParseErrorException if the program could not be parsed
+     * @throws ResourceLimitExceededException if parsing exceeded a limit of the governor
+     */
+    public CompiledProgram compile(String program, ResourceGovernor governor) throws ParseErrorException {
+        String hash = hash(program);
+        CompiledProgram compiled;
+        synchronized (programs) {
+            compiled = programs.get(hash);
+        }
+        if (compiled != null) {
+            metrics.cacheHit();
+            return compiled;
+        }
+        long start = System.nanoTime();
+        Parser parser = new RecursiveParser();
+        parser.setVerbosity(0);
+        parser.setGovernor(governor);
+        compiled = CompiledProgram.compile(parser.readFile(program, new ParseRuleStorage(baseStorage), TOPLEVEL).getTree());
+        metrics.cacheMiss(System.nanoTime() - start);
+        synchronized (programs) {
+            programs.put(hash, compiled);
+        }
+        return compiled;
+    }
+
+    private void handle(Socket client) {
+        try (Socket connection = client) {
+            connection.setSoTimeout(readTimeout);
+            handleRequest(connection);
+        } catch (SocketTimeoutException e) {
+            metrics.rejected();
+        } catch (IOException e) {
+            //the client went away, there is nobody to report to
+        }
+    }
+
+    private void handleRequest(Socket connection) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(connection.getInputStream()));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(connection.getOutputStream()))) {
+            byte command = in.readByte();
+            if (command == METRICS) {
+                respond(out, OK, metrics.toString());
+                return;
+            } else if (command != RUN) {
+                respond(out, ERROR, "Unknown command " + command);
+                return;
+            }
+            metrics.request();
+            int length = in.readInt();
+            if (length < 0 || length > maxProgramLength) {
+                metrics.rejected();
+                respond(out, REJECTED, "Programs may be at most " + maxProgramLength + " bytes, got " + length);
+                return;
+            }
+            if (!admission.tryAcquire()) {
+                metrics.rejected();
+                respond(out, REJECTED, "Too many programs running");
+                return;
+            }
+            byte status = OK;
+            String response;
+            //the admission is released before responding, such that a client that sends its next request as soon as
+            //it has the response is not rejected
+            try {
+                byte[] program = new byte[length];
+                in.readFully(program);
+                try {
+                    response = run(new String(program, StandardCharsets.UTF_8));
+                } catch (ResourceLimitExceededException e) {
+                    metrics.failed();
+                    status = ERROR;
+                    response = e.getMessage();
+                } catch (Exception | StackOverflowError e) {
+                    metrics.failed();
+                    status = ERROR;
+                    response = e.toString();
+                }
+            } finally {
+                admission.release();
+            }
+            respond(out, status, response);
+        }
+    }
+
+    private static void reject(Socket client) {
+        try (Socket connection = client;
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(connection.getOutputStream()))) {
+            respond(out, REJECTED, "Too many connections waiting");
+        } catch (IOException e) {
+            //the client went away, there is nobody to report to
+        }
+    }
+
+    private String run(String program) throws ParseErrorException {
+        ResourceGovernor governor = governors == null ? null : governors.get();
+        if (governor != null) {
+            governor.start();
+        }
+        CompiledProgram compiled = compile(program, governor);
+        long start = System.nanoTime();
+        try {
+            Interpreter interpreter = new Interpreter(compiled);
+            interpreter.setGovernor(governor);
+            return String.valueOf(interpreter.run());
+        } finally {
+            metrics.ran(System.nanoTime() - start);
+        }
+    }
+
+    private static void respond(DataOutputStream out, byte status, String message) throws IOException {
+        out.writeByte(status);
+        out.writeUTF(message.length() > 20000 ? message.substring(0, 20000) : message);
+        out.flush();
+    }
+
+    private static String hash(String program) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(program.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder();
+            for (byte b : digest) {
+                sb.append(String.format("%02x", b));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Stops accepting requests. Requests that are being handled are finished.
+     * @throws IOException if the socket could not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        socket.close();
+        workers.shutdown();
+    }
+
+    /**
+     * Starts a server: [port [maxConcurrent [maxMillis]]], where maxMillis limits how long a single program may take
+     * to parse and run, 10 seconds by default
+     * @param args command line arguments
+     * @throws IOException if the server could not be started
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        int maxConcurrent = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        long maxMillis = args.length > 2 ? Long.parseLong(args[2]) : 10_000;
+        try (ProgramServer server = new ProgramServer(port, maxConcurrent, 1 << 20, 256)) {
+            server.setGovernors(() -> {
+                ResourceGovernor governor = new ResourceGovernor();
+                governor.setMaxTime(maxMillis);
+                return governor;
+            });
+            System.out.println("Listening on " + InetAddress.getLoopbackAddress().getHostAddress() + ":" + server.getPort());
+            server.serve();
+        }
+    }
+}
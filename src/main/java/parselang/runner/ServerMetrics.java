@@ -0,0 +1,108 @@
+package parselang.runner;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters describing the requests handled by a ProgramServer. All counters can be updated concurrently.
+ */
+public class ServerMetrics {
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong cacheMisses = new AtomicLong();
+    private final AtomicLong parseNanos = new AtomicLong();
+    private final AtomicLong runNanos = new AtomicLong();
+
+    void request() {
+        requests.incrementAndGet();
+    }
+
+    void rejected() {
+        rejected.incrementAndGet();
+    }
+
+    void failed() {
+        failed.incrementAndGet();
+    }
+
+    void cacheHit() {
+        cacheHits.incrementAndGet();
+    }
+
+    void cacheMiss(long nanos) {
+        cacheMisses.incrementAndGet();
+        parseNanos.addAndGet(nanos);
+    }
+
+    void ran(long nanos) {
+        runNanos.addAndGet(nanos);
+    }
+
+    /**
+     * Returns the number of requests received, including rejected ones
+     * @return the number of requests
+     */
+    public long getRequests() {
+        return requests.get();
+    }
+
+    /**
+     * Returns the number of requests that were refused because of admission limits
+     * @return the number of rejected requests
+     */
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    /**
+     * Returns the number of programs that could not be parsed or failed while running
+     * @return the number of failed requests
+     */
+    public long getFailed() {
+        return failed.get();
+    }
+
+    /**
+     * Returns the number of programs that were found in the program cache
+     * @return the number of cache hits
+     */
+    public long getCacheHits() {
+        return cacheHits.get();
+    }
+
+    /**
+     * Returns the number of programs that had to be parsed
+     * @return the number of cache misses
+     */
+    public long getCacheMisses() {
+        return cacheMisses.get();
+    }
+
+    /**
+     * Returns the total time spent parsing and compiling programs
+     * @return the time in nanoseconds
+     */
+    public long getParseNanos() {
+        return parseNanos.get();
+    }
+
+    /**
+     * Returns the total time spent running programs
+     * @return the time in nanoseconds
+     */
+    public long getRunNanos() {
+        return runNanos.get();
+    }
+
+    /**
+     * @inheritDoc
+     */
+    @Override
+    public String toString() {
+        return "requests=" + getRequests() + ", rejected=" + getRejected() + ", failed=" + getFailed()
+                + ", cacheHits=" + getCacheHits() + ", cacheMisses=" + getCacheMisses()
+                + ", parseMs=" + getParseNanos() / 1_000_000 + ", runMs=" + getRunNanos() / 1_000_000;
+    }
+}
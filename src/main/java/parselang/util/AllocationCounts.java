@@ -0,0 +1,62 @@
+package parselang.util;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Allocations accounted to a single phase, nonterminal or declaration
+ */
+public class AllocationCounts {
+
+    private final String name;
+    private final long bytes;
+    private final Map<String, Long> objects;
+
+    AllocationCounts(String name, long bytes, Map<String, Long> objects) {
+        this.name = name;
+        this.bytes = bytes;
+        this.objects = Collections.unmodifiableMap(objects);
+    }
+
+    /**
+     * Returns the name of the phase, nonterminal or declaration these counts belong to
+     * @return the name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the number of bytes allocated. Bytes are measured for phases and, excluding the declarations they call,
+     * for declarations, but not for nonterminals.
+     * @return the number of bytes, 0 if they are not measured or -1 if they cannot be measured in this runtime or on
+     * one of the threads that was recorded, such as a virtual thread
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Returns the number of objects created of every type that is counted
+     * @return the number of objects by simple name of their class
+     */
+    public Map<String, Long> getObjects() {
+        return objects;
+    }
+
+    /**
+     * Returns the number of objects created of all types that are counted
+     * @return the number of objects
+     */
+    public long getObjectCount() {
+        return objects.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    /**
+     * @inheritDoc
+     */
+    @Override
+    public String toString() {
+        return name + ": " + bytes + " bytes, " + objects;
+    }
+}
@@ -0,0 +1,241 @@
+package parselang.util;
+
+import parselang.parser.data.Node;
+import parselang.parser.data.NonTerminal;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.*;
+
+/**
+ * Accounts for the memory allocated by parsing and interpreting. The bytes allocated by a thread are measured around
+ * phases, such as parsing a file, and around the execution of every user declaration. The objects ParseLang allocates
+ * most, trees, parse results and values, count themselves while a phase is running on their thread, by the phase,
+ * by the nonterminal of trees and by the declaration being executed. A recorder can be used by multiple threads at
+ * the same time. When no phase is running, counting costs a single check of a static field.
+ */
+public class AllocationRecorder {
+
+    private static volatile int openPhases = 0;
+    private static final ThreadLocal<ThreadState> current = new ThreadLocal<>();
+    private static final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+    private final ThreadLocal<ThreadState> states = ThreadLocal.withInitial(this::createState);
+    private final List<ThreadState> allStates = new ArrayList<>();
+    private volatile boolean bytesUnmeasured = false;
+
+    /**
+     * Starts a phase on the current thread. Until the phase ends, allocations on this thread are accounted to it.
+     * @param phase name of the phase, phases with the same name are added up
+     * @throws IllegalStateException if a phase is already running on this thread
+     */
+    public void begin(String phase) {
+        if (current.get() != null) {
+            throw new IllegalStateException("Phase " + current.get().phase + " is still running on this thread");
+        }
+        ThreadState state = states.get();
+        state.phase = phase;
+        state.phaseStart = allocatedBytes();
+        if (state.phaseStart < 0) {
+            //the runtime does not measure this thread, virtual threads for instance
+            bytesUnmeasured = true;
+        }
+        current.set(state);
+        changeOpenPhases(1);
+    }
+
+    /**
+     * Ends the phase running on the current thread
+     * @throws IllegalStateException if no phase of this recorder is running on this thread
+     */
+    public void end() {
+        ThreadState state = current.get();
+        if (state == null || state != states.get()) {
+            throw new IllegalStateException("No phase of this recorder is running on this thread");
+        }
+        long bytes = allocatedBytes() - state.phaseStart;
+        synchronized (state) {
+            state.phases.computeIfAbsent(state.phase, x -> new Counts()).bytes += bytes;
+        }
+        state.declarations.clear();
+        current.remove();
+        changeOpenPhases(-1);
+    }
+
+    /**
+     * Records that an object was created. Called by the constructors of the objects that are counted.
+     * @param object the object
+     * @param node node the object belongs to, or null if it does not belong to one. Only nonterminals are counted.
+     */
+    public static void allocated(Object object, Node node) {
+        if (openPhases == 0) {
+            return;
+        }
+        ThreadState state = current.get();
+        if (state != null) {
+            state.count(object.getClass().getSimpleName(), node instanceof NonTerminal ? ((NonTerminal) node).getName() : null);
+        }
+    }
+
+    /**
+     * Records that the current thread starts executing the body of a declaration. Called by interpreters.
+     * @param declaration name of the declaration
+     */
+    public static void enterDeclaration(String declaration) {
+        if (openPhases == 0) {
+            return;
+        }
+        ThreadState state = current.get();
+        if (state != null) {
+            state.declarations.push(new Frame(declaration, allocatedBytes()));
+        }
+    }
+
+    /**
+     * Records that the current thread finished executing the body of the declaration it entered last. Called by
+     * interpreters.
+     */
+    public static void exitDeclaration() {
+        if (openPhases == 0) {
+            return;
+        }
+        ThreadState state = current.get();
+        if (state != null && !state.declarations.isEmpty()) {
+            Frame frame = state.declarations.pop();
+            long inclusive = allocatedBytes() - frame.start;
+            if (!state.declarations.isEmpty()) {
+                state.declarations.peek().childBytes += inclusive;
+            }
+            synchronized (state) {
+                state.declarationCounts.computeIfAbsent(frame.declaration, x -> new Counts()).bytes += inclusive - frame.childBytes;
+            }
+        }
+    }
+
+    /**
+     * Returns whether the number of bytes allocated by a thread can be measured in this runtime. Even then, bytes are
+     * not measured for virtual threads.
+     * @return true iff bytes are measured, otherwise only objects are counted
+     */
+    public static boolean isMeasuringBytes() {
+        return threads instanceof com.sun.management.ThreadMXBean;
+    }
+
+    /**
+     * Returns the allocations accounted so far
+     * @return a snapshot of the allocations, which is not changed by later phases
+     */
+    public AllocationReport snapshot() {
+        Map<String, Counts> phases = new TreeMap<>();
+        Map<String, Counts> nonTerminals = new TreeMap<>();
+        Map<String, Counts> declarations = new TreeMap<>();
+        synchronized (allStates) {
+            for (ThreadState state : allStates) {
+                synchronized (state) {
+                    merge(phases, state.phases);
+                    merge(nonTerminals, state.nonTerminals);
+                    merge(declarations, state.declarationCounts);
+                }
+            }
+        }
+        boolean measured = isMeasuringBytes() && !bytesUnmeasured;
+        return new AllocationReport(freeze(phases, measured), freeze(nonTerminals, measured), freeze(declarations, measured));
+    }
+
+    /**
+     * Removes all allocations accounted so far. Phases that are running are accounted from now on.
+     */
+    public void reset() {
+        synchronized (allStates) {
+            for (ThreadState state : allStates) {
+                synchronized (state) {
+                    state.phases.clear();
+                    state.nonTerminals.clear();
+                    state.declarationCounts.clear();
+                }
+            }
+        }
+    }
+
+    private ThreadState createState() {
+        ThreadState state = new ThreadState();
+        synchronized (allStates) {
+            allStates.add(state);
+        }
+        return state;
+    }
+
+    private static synchronized void changeOpenPhases(int change) {
+        openPhases += change;
+    }
+
+    private static long allocatedBytes() {
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    private static void merge(Map<String, Counts> target, Map<String, Counts> source) {
+        source.forEach((name, counts) -> {
+            Counts merged = target.computeIfAbsent(name, x -> new Counts());
+            merged.bytes += counts.bytes;
+            counts.objects.forEach((type, count) -> merged.objects.computeIfAbsent(type, x -> new long[1])[0] += count[0]);
+        });
+    }
+
+    private static Map<String, AllocationCounts> freeze(Map<String, Counts> counts, boolean measured) {
+        Map<String, AllocationCounts> res = new LinkedHashMap<>();
+        counts.forEach((name, c) -> {
+            Map<String, Long> objects = new TreeMap<>();
+            c.objects.forEach((type, count) -> objects.put(type, count[0]));
+            res.put(name, new AllocationCounts(name, measured ? c.bytes : -1, objects));
+        });
+        return res;
+    }
+
+    /**
+     * Allocations of a single thread, which are only changed by that thread
+     */
+    private static class ThreadState {
+        private String phase;
+        private long phaseStart;
+        private final Deque<Frame> declarations = new ArrayDeque<>();
+        private final Map<String, Counts> phases = new HashMap<>();
+        private final Map<String, Counts> nonTerminals = new HashMap<>();
+        private final Map<String, Counts> declarationCounts = new HashMap<>();
+
+        private synchronized void count(String type, String nonTerminal) {
+            phases.computeIfAbsent(phase, x -> new Counts()).add(type);
+            if (nonTerminal != null) {
+                nonTerminals.computeIfAbsent(nonTerminal, x -> new Counts()).add(type);
+            }
+            if (!declarations.isEmpty()) {
+                declarationCounts.computeIfAbsent(declarations.peek().declaration, x -> new Counts()).add(type);
+            }
+        }
+    }
+
+    private static class Frame {
+        private final String declaration;
+        private final long start;
+        private long childBytes = 0;
+
+        private Frame(String declaration, long start) {
+            this.declaration = declaration;
+            this.start = start;
+        }
+    }
+
+    /**
+     * Bytes and objects allocated, with counters that can be incremented without allocating
+     */
+    private static class Counts {
+        private long bytes = 0;
+        private final Map<String, long[]> objects = new HashMap<>();
+
+        private void add(String type) {
+            objects.computeIfAbsent(type, x -> new long[1])[0]++;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package parselang.util;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Snapshot of the allocations accounted by an AllocationRecorder
+ */
+public class AllocationReport {
+
+    /**
+     * Orders counts by bytes allocated, most first
+     */
+    public static final Comparator<AllocationCounts> BY_BYTES = Comparator.comparingLong(AllocationCounts::getBytes).reversed();
+
+    /**
+     * Orders counts by number of objects created, most first
+     */
+    public static final Comparator<AllocationCounts> BY_OBJECTS = Comparator.comparingLong(AllocationCounts::getObjectCount).reversed();
+
+    private final Map<String, AllocationCounts> phases;
+    private final Map<String, AllocationCounts> nonTerminals;
+    private final Map<String, AllocationCounts> declarations;
+
+    AllocationReport(Map<String, AllocationCounts> phases, Map<String, AllocationCounts> nonTerminals, Map<String, AllocationCounts> declarations) {
+        this.phases = Collections.unmodifiableMap(phases);
+        this.nonTerminals = Collections.unmodifiableMap(nonTerminals);
+        this.declarations = Collections.unmodifiableMap(declarations);
+    }
+
+    /**
+     * Returns the allocations of every phase
+     * @return the counts by name of the phase
+     */
+    public Map<String, AllocationCounts> getPhases() {
+        return phases;
+    }
+
+    /**
+     * Returns the objects created for every nonterminal, i.e. trees with the nonterminal as root and the results of
+     * parsing them
+     * @return the counts by name of the nonterminal
+     */
+    public Map<String, AllocationCounts> getNonTerminals() {
+        return nonTerminals;
+    }
+
+    /**
+     * Returns the allocations while executing the body of every user declaration, excluding the declarations it called
+     * @return the counts by name of the declaration
+     */
+    public Map<String, AllocationCounts> getDeclarations() {
+        return declarations;
+    }
+
+    /**
+     * Creates tables of the allocations per phase and of the most significant nonterminals and declarations
+     * @param limit maximum number of nonterminals and of declarations to show
+     * @return the tables
+     */
+    public String toText(int limit) {
+        StringBuilder sb = new StringBuilder();
+        appendTable(sb, "Phases", phases.values(), BY_BYTES, limit);
+        sb.append("\n");
+        appendTable(sb, "Nonterminals", nonTerminals.values(), BY_OBJECTS, limit);
+        sb.append("\n");
+        appendTable(sb, "Declarations", declarations.values(), BY_BYTES, limit);
+        return sb.toString();
+    }
+
+    /**
+     * @inheritDoc
+     */
+    @Override
+    public String toString() {
+        return toText(20);
+    }
+
+    private static void appendTable(StringBuilder sb, String title, Collection<AllocationCounts> counts, Comparator<AllocationCounts> order, int limit) {
+        sb.append(title).append(" (").append(counts.size()).append(")\n");
+        sb.append(String.format(Locale.ROOT, "%14s %10s  %-30s %s%n", "bytes", "objects", "name", "objects by type"));
+        for (AllocationCounts c : counts.stream().sorted(order).limit(limit).collect(Collectors.toList())) {
+            sb.append(String.format(Locale.ROOT, "%14d %10d  %-30s %s%n", c.getBytes(), c.getObjectCount(), c.getName().replace("\n", "\\n"), c.getObjects()));
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package parselang.workload;
+
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Aspect of a generated program that can be scaled, with the values it is scaled through
+ */
+public enum Dimension {
+    DECLARATIONS(ProgramGenerator::setDeclarations, 1, Integer.MAX_VALUE),
+    STAR_NESTING(ProgramGenerator::setStarNesting, 1, 26),
+    EXPRESSION_DEPTH(ProgramGenerator::setExpressionDepth, 1, Integer.MAX_VALUE),
+    STRING_LENGTH(ProgramGenerator::setStringLength, 16, Integer.MAX_VALUE),
+    RECURSION_DEPTH(ProgramGenerator::setRecursionDepth, 10, Integer.MAX_VALUE),
+    LAZY_PARAMETERS(ProgramGenerator::setLazyParameters, 1, 676);
+
+    private final ObjIntConsumer<ProgramGenerator> setter;
+    private final int start;
+    private final int maximum;
+
+    Dimension(ObjIntConsumer<ProgramGenerator> setter, int start, int maximum) {
+        this.setter = setter;
+        this.start = start;
+        this.maximum = maximum;
+    }
+
+    /**
+     * Sets this dimension of a generator to a value
+     * @param generator generator to change
+     * @param value the value
+     */
+    public void apply(ProgramGenerator generator, int value) {
+        setter.accept(generator, value);
+    }
+
+    /**
+     * Returns the value of this dimension at a step, doubling every step
+     * @param step the step, starting at 0
+     * @return the value, or -1 if the dimension cannot be scaled that far
+     */
+    public int valueAt(int step) {
+        long value = (long) start << step;
+        return value > maximum ? -1 : (int) value;
+    }
+}
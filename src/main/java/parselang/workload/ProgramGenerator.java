@@ -0,0 +1,159 @@
+package parselang.workload;
+
+import java.util.Random;
+
+/**
+ * Generates ParseLang programs of a controllable shape, to measure how parsing and interpreting scale. The same seed
+ * and settings always result in the same program. A program consists of:
+ * <ul>
+ *     <li>a number of simple declarations, each of which is called once;</li>
+ *     <li>a declaration with star tokens nested a number of levels deep;</li>
+ *     <li>a declaration with a number of lazy parameters;</li>
+ *     <li>a tail recursive declaration that is called with a given recursion depth;</li>
+ *     <li>an arithmetic expression with a given nesting depth;</li>
+ *     <li>a string literal of a given length.</li>
+ * </ul>
+ * The program evaluates to a list of the results of these parts.
+ */
+public class ProgramGenerator {
+
+    private static final String LETTERS = "abcdefghijklmnopqrstuvwxyz";
+    private static final String STRING_CHARACTERS = LETTERS + LETTERS.toUpperCase() + "0123456789 .,!";
+    private static final String[] OPERATORS = {"+", "-", "*"};
+
+    private final long seed;
+    private int declarations = 1;
+    private int starNesting = 1;
+    private int expressionDepth = 1;
+    private int stringLength = 8;
+    private int recursionDepth = 1;
+    private int lazyParameters = 1;
+
+    /**
+     * Creates a new ProgramGenerator
+     * @param seed seed of the random choices made when generating
+     */
+    public ProgramGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Sets the number of simple declarations
+     * @param declarations number of declarations
+     */
+    public void setDeclarations(int declarations) {
+        this.declarations = requireNonNegative(declarations, "Number of declarations");
+    }
+
+    /**
+     * Sets how many levels deep the star tokens of a declaration are nested
+     * @param starNesting number of nested star tokens, 0 to leave out the declaration
+     */
+    public void setStarNesting(int starNesting) {
+        if (starNesting > LETTERS.length()) {
+            throw new IllegalArgumentException("Star tokens can be nested at most " + LETTERS.length() + " levels deep, got " + starNesting);
+        }
+        this.starNesting = requireNonNegative(starNesting, "Star nesting");
+    }
+
+    /**
+     * Sets the nesting depth of the arithmetic expression
+     * @param expressionDepth depth of the expression, 0 for a single number
+     */
+    public void setExpressionDepth(int expressionDepth) {
+        this.expressionDepth = requireNonNegative(expressionDepth, "Expression depth");
+    }
+
+    /**
+     * Sets the length of the string literal
+     * @param stringLength number of characters in the string
+     */
+    public void setStringLength(int stringLength) {
+        this.stringLength = requireNonNegative(stringLength, "String length");
+    }
+
+    /**
+     * Sets the depth of the recursion when interpreting the program
+     * @param recursionDepth number of recursive calls
+     */
+    public void setRecursionDepth(int recursionDepth) {
+        this.recursionDepth = requireNonNegative(recursionDepth, "Recursion depth");
+    }
+
+    /**
+     * Sets the number of lazy parameters of a declaration
+     * @param lazyParameters number of lazy parameters, 0 to leave out the declaration
+     */
+    public void setLazyParameters(int lazyParameters) {
+        if (lazyParameters > LETTERS.length() * LETTERS.length()) {
+            throw new IllegalArgumentException("A declaration can have at most " + LETTERS.length() * LETTERS.length() + " lazy parameters, got " + lazyParameters);
+        }
+        this.lazyParameters = requireNonNegative(lazyParameters, "Number of lazy parameters");
+    }
+
+    /**
+     * Generates a program with the current settings
+     * @return source of the program
+     */
+    public String generate() {
+        Random random = new Random(seed);
+        StringBuilder program = new StringBuilder();
+        StringBuilder result = new StringBuilder("[");
+        for (int i = 0; i < declarations; i++) {
+            program.append("Op").append(i).append(" < SimpleExpression = 'op").append(i).append("(' WhiteSpace* Expression a WhiteSpace* ')' {\n")
+                    .append("    a").append(OPERATORS[random.nextInt(OPERATORS.length)]).append(1 + random.nextInt(9)).append("\n}\n\n");
+            result.append("op").append(i).append("(").append(i).append("), ");
+        }
+        if (starNesting > 0) {
+            program.append("Stars < SimpleExpression = 'stars(' ").append(nestedStars(0)).append(" ')' {\n    0\n}\n\n");
+            result.append("stars(").append(nestedStarInput(0)).append("), ");
+        }
+        if (lazyParameters > 0) {
+            program.append("Lazy < SimpleExpression = 'lazy('");
+            StringBuilder body = new StringBuilder();
+            StringBuilder call = new StringBuilder("lazy(");
+            for (int i = 0; i < lazyParameters; i++) {
+                String name = "p" + LETTERS.charAt(i / LETTERS.length()) + LETTERS.charAt(i % LETTERS.length());
+                program.append(i == 0 ? "" : " ','").append(" WhiteSpace* Expression ").append(name).append("' WhiteSpace*");
+                body.append(i == 0 ? "" : "+").append(name);
+                call.append(i == 0 ? "" : ", ").append(1 + random.nextInt(9));
+            }
+            program.append(" ')' {\n    ").append(body).append("\n}\n\n");
+            result.append(call).append("), ");
+        }
+        program.append("Countdown < SimpleExpression = 'countdown(' WhiteSpace* Expression n WhiteSpace* ',' WhiteSpace* Expression acc WhiteSpace* ')' {\n")
+                .append("    ~if(n<1, acc, countdown(n-1, acc+1))\n}\n\n");
+        result.append("countdown(").append(recursionDepth).append(", 0), ");
+        result.append(expression(random, expressionDepth)).append(", '");
+        for (int i = 0; i < stringLength; i++) {
+            result.append(STRING_CHARACTERS.charAt(random.nextInt(STRING_CHARACTERS.length())));
+        }
+        return program.append(result).append("']\n").toString();
+    }
+
+    private String nestedStars(int level) {
+        String inner = level + 1 < starNesting ? " " + nestedStars(level + 1) : "";
+        return "('" + LETTERS.charAt(level) + "'" + inner + ")*";
+    }
+
+    private String nestedStarInput(int level) {
+        if (level == starNesting) {
+            return "";
+        }
+        return LETTERS.charAt(level) + nestedStarInput(level + 1) + LETTERS.charAt(level);
+    }
+
+    private static String expression(Random random, int depth) {
+        if (depth == 0) {
+            return String.valueOf(1 + random.nextInt(9));
+        }
+        return "(" + expression(random, depth - 1) + OPERATORS[random.nextInt(OPERATORS.length)] + (1 + random.nextInt(9)) + ")";
+    }
+
+    private static int requireNonNegative(int value, String what) {
+        if (value < 0) {
+            throw new IllegalArgumentException(what + " must not be negative, got " + value);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,126 @@
+package parselang.workload;
+
+import java.util.Locale;
+
+/**
+ * Cost of parsing and interpreting one generated program
+ */
+public class ScalingMeasurement {
+
+    /**
+     * Header of the CSV lines produced by {@link #toCsv()}
+     */
+    public static final String CSV_HEADER = "dimension,value,sourceLength,parseMs,evalMs,parseAllocatedBytes,evalAllocatedBytes,retainedBytes,parseExponent,evalExponent,status";
+
+    private final Dimension dimension;
+    private final int value;
+    private final int sourceLength;
+    private final long parseNanos;
+    private final long evalNanos;
+    private final long parseAllocatedBytes;
+    private final long evalAllocatedBytes;
+    private final long retainedBytes;
+    private final String status;
+    private double parseExponent = Double.NaN;
+    private double evalExponent = Double.NaN;
+
+    ScalingMeasurement(Dimension dimension, int value, int sourceLength, long parseNanos, long evalNanos, long parseAllocatedBytes, long evalAllocatedBytes, long retainedBytes, String status) {
+        this.dimension = dimension;
+        this.value = value;
+        this.sourceLength = sourceLength;
+        this.parseNanos = parseNanos;
+        this.evalNanos = evalNanos;
+        this.parseAllocatedBytes = parseAllocatedBytes;
+        this.evalAllocatedBytes = evalAllocatedBytes;
+        this.retainedBytes = retainedBytes;
+        this.status = status;
+    }
+
+    /**
+     * Compares this measurement with the one of the previous value of the same dimension, estimating the exponent k
+     * of the cost growing as value^k between them
+     * @param previous the previous measurement
+     */
+    void compareWith(ScalingMeasurement previous) {
+        double growth = Math.log((double) value / previous.value);
+        parseExponent = Math.log((double) parseNanos / previous.parseNanos) / growth;
+        evalExponent = Math.log((double) evalNanos / previous.evalNanos) / growth;
+    }
+
+    /**
+     * Returns the dimension that was scaled
+     * @return the dimension
+     */
+    public Dimension getDimension() {
+        return dimension;
+    }
+
+    /**
+     * Returns the value of the scaled dimension
+     * @return the value
+     */
+    public int getValue() {
+        return value;
+    }
+
+    /**
+     * Returns the time it took to parse the program
+     * @return the time in nanoseconds
+     */
+    public long getParseNanos() {
+        return parseNanos;
+    }
+
+    /**
+     * Returns the time it took to compile and interpret the program
+     * @return the time in nanoseconds
+     */
+    public long getEvalNanos() {
+        return evalNanos;
+    }
+
+    /**
+     * Returns the estimated exponent of the growth of the parse time compared to the previous value
+     * @return the exponent, or NaN if there is no previous value
+     */
+    public double getParseExponent() {
+        return parseExponent;
+    }
+
+    /**
+     * Returns the estimated exponent of the growth of the evaluation time compared to the previous value
+     * @return the exponent, or NaN if there is no previous value
+     */
+    public double getEvalExponent() {
+        return evalExponent;
+    }
+
+    /**
+     * Returns whether the program was parsed and interpreted within the time limit
+     * @return true iff it succeeded
+     */
+    public boolean isSuccess() {
+        return status.equals("ok");
+    }
+
+    /**
+     * Returns this measurement as a line of CSV, with the columns of {@link #CSV_HEADER}
+     * @return the line
+     */
+    public String toCsv() {
+        return String.join(",", dimension.name().toLowerCase(), String.valueOf(value), String.valueOf(sourceLength),
+                String.format(Locale.ROOT, "%.3f", parseNanos / 1e6), String.format(Locale.ROOT, "%.3f", evalNanos / 1e6),
+                String.valueOf(parseAllocatedBytes), String.valueOf(evalAllocatedBytes), String.valueOf(retainedBytes),
+                Double.isNaN(parseExponent) ? "" : String.format(Locale.ROOT, "%.2f", parseExponent),
+                Double.isNaN(evalExponent) ? "" : String.format(Locale.ROOT, "%.2f", evalExponent),
+                '"' + status.replace("\"", "'") + '"');
+    }
+
+    /**
+     * @inheritDoc
+     */
+    @Override
+    public String toString() {
+        return toCsv();
+    }
+}
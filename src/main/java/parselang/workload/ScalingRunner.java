@@ -0,0 +1,197 @@
+package parselang.workload;
+
+import parselang.interpreter.CompiledProgram;
+import parselang.interpreter.Interpreter;
+import parselang.languages.ParseLangV1;
+import parselang.parser.ParseRuleStorage;
+import parselang.parser.data.AST;
+import parselang.parser.data.NonTerminal;
+import parselang.parser.parsers.Parser;
+import parselang.parser.parsers.RecursiveParser;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Measures how parsing and interpreting generated programs scale along each dimension of a ProgramGenerator. Every
+ * dimension is doubled step by step while the others keep their default value, until the steps run out or a program
+ * fails or exceeds the time limit. The exponent of the growth between two steps shows super-linear behaviour.
+ */
+public class ScalingRunner {
+
+    private static final NonTerminal TOPLEVEL = new NonTerminal("HighLevel", false);
+    private static final long STACK_SIZE = 1L << 29;
+
+    private final ParseRuleStorage baseStorage = new ParseRuleStorage();
+    private final long seed;
+    private int steps = 6;
+    private long timeoutMillis = 60_000;
+    private boolean warmedUp = false;
+
+    /**
+     * Creates a new ScalingRunner, preparing the ParseLang grammar
+     * @param seed seed of the generated programs
+     */
+    public ScalingRunner(long seed) {
+        this.seed = seed;
+        baseStorage.prepare(new ParseLangV1(), TOPLEVEL);
+    }
+
+    /**
+     * Sets the number of values every dimension is scaled through
+     * @param steps number of steps
+     */
+    public void setSteps(int steps) {
+        if (steps < 1) {
+            throw new IllegalArgumentException("Number of steps must be positive, got " + steps);
+        }
+        this.steps = steps;
+    }
+
+    /**
+     * Sets the time a single program may take before scaling its dimension is stopped
+     * @param timeoutMillis time limit in milliseconds
+     */
+    public void setTimeout(long timeoutMillis) {
+        if (timeoutMillis < 1) {
+            throw new IllegalArgumentException("Time limit must be positive, got " + timeoutMillis);
+        }
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Scales a dimension and measures the cost at every step
+     * @param dimension dimension to scale
+     * @return the measurements, in order of increasing value
+     */
+    public List<ScalingMeasurement> run(Dimension dimension) {
+        if (!warmedUp) {
+            measure(Dimension.DECLARATIONS, 1);
+            warmedUp = true;
+        }
+        List<ScalingMeasurement> measurements = new ArrayList<>();
+        for (int step = 0; step < steps && dimension.valueAt(step) >= 0; step++) {
+            ScalingMeasurement measurement = measure(dimension, dimension.valueAt(step));
+            if (!measurements.isEmpty() && measurement.isSuccess()) {
+                measurement.compareWith(measurements.get(measurements.size() - 1));
+            }
+            measurements.add(measurement);
+            if (!measurement.isSuccess()) {
+                break;
+            }
+        }
+        return measurements;
+    }
+
+    /**
+     * Parses and interprets a generated program with one dimension set to a value
+     * @param dimension dimension to set
+     * @param value value of the dimension
+     * @return the cost of the program
+     */
+    public ScalingMeasurement measure(Dimension dimension, int value) {
+        ProgramGenerator generator = new ProgramGenerator(seed);
+        dimension.apply(generator, value);
+        String program = generator.generate();
+        FutureTask<ScalingMeasurement> task = new FutureTask<>(() -> measure(dimension, value, program));
+        Thread worker = new Thread(null, task, "scaling-" + dimension.name().toLowerCase() + "-" + value, STACK_SIZE);
+        worker.setDaemon(true);
+        worker.start();
+        try {
+            return task.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            //the worker cannot be stopped safely, it is left to finish on its own
+            return new ScalingMeasurement(dimension, value, program.length(), 0, 0, 0, 0, 0, "timeout after " + timeoutMillis + " ms");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while measuring", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Measurement failed unexpectedly", e.getCause());
+        }
+    }
+
+    private ScalingMeasurement measure(Dimension dimension, int value, String program) {
+        long heapBefore = usedHeap();
+        long parseNanos = 0;
+        long parseBytes = 0;
+        long evalNanos = 0;
+        long evalBytes = 0;
+        long retained = 0;
+        String status = "ok";
+        long bytes = allocatedBytes();
+        long start = System.nanoTime();
+        try {
+            Parser parser = new RecursiveParser();
+            parser.setVerbosity(0);
+            AST tree = parser.readFile(program, new ParseRuleStorage(baseStorage), TOPLEVEL).getTree();
+            parseNanos = System.nanoTime() - start;
+            parseBytes = allocatedBytes() - bytes;
+            retained = usedHeap() - heapBefore;
+            bytes = allocatedBytes();
+            start = System.nanoTime();
+            new Interpreter(CompiledProgram.compile(tree)).run();
+            evalNanos = System.nanoTime() - start;
+            evalBytes = allocatedBytes() - bytes;
+        } catch (Exception | StackOverflowError e) {
+            status = e.getClass().getSimpleName() + (e.getMessage() == null ? "" : ": " + e.getMessage());
+        }
+        return new ScalingMeasurement(dimension, value, program.length(), parseNanos, evalNanos, parseBytes, evalBytes, Math.max(0, retained), status);
+    }
+
+    private static long allocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+
+    private static long usedHeap() {
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * Scales dimensions of generated programs and prints the measurements as CSV.
+     * Usage: [--seed n] [--steps n] [--timeout seconds] [dimension]... where a dimension is one of declarations,
+     * star_nesting, expression_depth, string_length, recursion_depth and lazy_parameters. All dimensions are scaled if
+     * none are given.
+     * @param args command line arguments
+     */
+    public static void main(String[] args) {
+        long seed = 42;
+        int steps = 6;
+        long timeout = 60;
+        List<Dimension> dimensions = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--seed":
+                    seed = Long.parseLong(args[++i]);
+                    break;
+                case "--steps":
+                    steps = Integer.parseInt(args[++i]);
+                    break;
+                case "--timeout":
+                    timeout = Long.parseLong(args[++i]);
+                    break;
+                default:
+                    dimensions.add(Dimension.valueOf(args[i].toUpperCase()));
+            }
+        }
+        if (dimensions.isEmpty()) {
+            dimensions.addAll(List.of(Dimension.values()));
+        }
+        ScalingRunner runner = new ScalingRunner(seed);
+        runner.setSteps(steps);
+        runner.setTimeout(timeout * 1000);
+        System.out.println(ScalingMeasurement.CSV_HEADER);
+        for (Dimension dimension : dimensions) {
+            for (ScalingMeasurement measurement : runner.run(dimension)) {
+                System.out.println(measurement.toCsv());
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package parselang;
+
+import parselang.interpreter.CompiledProgram;
+import parselang.interpreter.Interpreter;
+import parselang.interpreter.data.PLData;
+import parselang.languages.ParseLangV1;
+import parselang.parser.ParseRuleStorage;
+import parselang.parser.data.AST;
+import parselang.parser.data.NonTerminal;
+import parselang.parser.exceptions.ParseErrorException;
+import parselang.parser.parsers.RecursiveParser;
+
+import java.util.function.Consumer;
+
+/**
+ * Parses and runs ParseLang V1 programs in tests, preparing the grammar only once
+ */
+public final class Programs {
+
+    /**
+     * Toplevel nonterminal of ParseLang V1 programs
+     */
+    public static final NonTerminal TOPLEVEL = new NonTerminal("HighLevel", false);
+
+    private static ParseRuleStorage prepared = null;
+
+    private Programs() {
+    }
+
+    /**
+     * Returns a copy of the prepared grammar of ParseLang V1
+     * @return a storage that can be changed by parsing
+     */
+    public static synchronized ParseRuleStorage storage() {
+        if (prepared == null) {
+            prepared = new ParseRuleStorage();
+            prepared.prepare(new ParseLangV1(), TOPLEVEL);
+        }
+        return new ParseRuleStorage(prepared);
+    }
+
+    /**
+     * Parses a program
+     * @param program the program
+     * @return the AST of the program
+     * @throws ParseErrorException if the program could not be parsed
+     */
+    public static AST parse(String program) throws ParseErrorException {
+        RecursiveParser parser = new RecursiveParser();
+        parser.setVerbosity(0);
+        return parser.readFile(program, storage(), TOPLEVEL).getTree();
+    }
+
+    /**
+     * Parses, compiles and runs a program
+     * @param program the program
+     * @return the value of the program
+     * @throws ParseErrorException if the program could not be parsed
+     */
+    public static PLData run(String program) throws ParseErrorException {
+        return run(program, interpreter -> { });
+    }
+
+    /**
+     * Parses, compiles and runs a program with an interpreter that is configured first
+     * @param program the program
+     * @param configure configures the interpreter before it runs
+     * @return the value of the program
+     * @throws ParseErrorException if the program could not be parsed
+     */
+    public static PLData run(String program, Consumer<Interpreter> configure) throws ParseErrorException {
+        Interpreter interpreter = new Interpreter(CompiledProgram.compile(parse(program)));
+        configure.accept(interpreter);
+        return interpreter.run();
+    }
+}
@@ -0,0 +1,158 @@
+package parselang.governor;
+
+import org.junit.Test;
+import parselang.governor.ResourceLimitExceededException.Resource;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Tests that every limit of a ResourceGovernor is enforced and reported as the resource that was exceeded
+ */
+public class ResourceGovernorTest {
+
+    /**
+     * Number of reports after which time and allocated bytes are certainly checked
+     */
+    private static final int CHECKED = 2048;
+
+    private static Object sink;
+
+    @Test
+    public void ruleAttemptsAreLimited() {
+        ResourceGovernor governor = new ResourceGovernor();
+        governor.setMaxRuleAttempts(10);
+        governor.start();
+        for (int i = 0; i < 10; i++) {
+            governor.ruleAttempted();
+        }
+        ResourceLimitExceededException e = exceeds(governor::ruleAttempted);
+        assertEquals(Resource.RULE_ATTEMPTS, e.getResource());
+        assertEquals(10, e.getLimit());
+        assertEquals(11, e.getUsed());
+        governor.start();
+        governor.ruleAttempted();
+        assertEquals(1, governor.getRuleAttempts());
+    }
+
+    @Test
+    public void stepsAreLimited() {
+        ResourceGovernor governor = new ResourceGovernor();
+        governor.setMaxSteps(10);
+        governor.start();
+        for (int i = 0; i < 10; i++) {
+            governor.stepped();
+        }
+        ResourceLimitExceededException e = exceeds(governor::stepped);
+        assertEquals(Resource.STEPS, e.getResource());
+        assertEquals(10, e.getLimit());
+        assertEquals(11, e.getUsed());
+    }
+
+    @Test
+    public void depthIsLimited() {
+        ResourceGovernor governor = new ResourceGovernor();
+        governor.setMaxDepth(3);
+        governor.start();
+        for (int i = 0; i < 3; i++) {
+            governor.enter();
+        }
+        ResourceLimitExceededException e = exceeds(governor::enter);
+        assertEquals(Resource.DEPTH, e.getResource());
+        assertEquals(3, e.getLimit());
+        assertEquals(3, governor.getDepth());
+        governor.exit();
+        governor.enter();
+        assertEquals(3, governor.getDepth());
+    }
+
+    @Test
+    public void timeIsLimited() throws InterruptedException {
+        ResourceGovernor governor = new ResourceGovernor();
+        governor.setMaxTime(1);
+        governor.start();
+        Thread.sleep(20);
+        ResourceLimitExceededException e = exceeds(() -> {
+            for (int i = 0; i < CHECKED; i++) {
+                governor.stepped();
+            }
+        });
+        assertEquals(Resource.TIME, e.getResource());
+        assertEquals(1, e.getLimit());
+        assertTrue(e.getUsed() >= 20);
+    }
+
+    @Test
+    public void allocatedBytesAreLimited() {
+        ResourceGovernor governor = new ResourceGovernor();
+        governor.setMaxAllocatedBytes(1 << 20);
+        governor.start();
+        for (int i = 0; i < 16; i++) {
+            sink = new byte[1 << 20];
+        }
+        ResourceLimitExceededException e = exceeds(() -> {
+            for (int i = 0; i < CHECKED; i++) {
+                governor.ruleAttempted();
+            }
+        });
+        assertEquals(Resource.ALLOCATED_BYTES, e.getResource());
+        assertEquals(1 << 20, e.getLimit());
+        assertTrue(e.getUsed() > 1 << 20);
+    }
+
+    @Test
+    public void unlimitedGovernorNeverThrows() {
+        ResourceGovernor governor = new ResourceGovernor();
+        governor.start();
+        for (int i = 0; i < 10 * CHECKED; i++) {
+            governor.ruleAttempted();
+            governor.stepped();
+            governor.enter();
+        }
+        assertEquals(10 * CHECKED, governor.getDepth());
+    }
+
+    @Test
+    public void unmeasurableAllocationsCanNotBeLimited() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        assumeTrue(threads instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+        assumeTrue(allocations.isThreadAllocatedMemoryEnabled());
+        ResourceGovernor governor = new ResourceGovernor();
+        governor.setMaxAllocatedBytes(1 << 20);
+        //the runtime reports -1 for every thread while measuring is disabled, as it does for virtual threads
+        allocations.setThreadAllocatedMemoryEnabled(false);
+        try {
+            governor.start();
+            fail("Started limiting allocated bytes that can not be measured");
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("can not be measured"));
+        } finally {
+            allocations.setThreadAllocatedMemoryEnabled(true);
+        }
+        //without a byte limit, nothing needs to be measured
+        allocations.setThreadAllocatedMemoryEnabled(false);
+        try {
+            new ResourceGovernor().start();
+        } finally {
+            allocations.setThreadAllocatedMemoryEnabled(true);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void limitsMustBePositive() {
+        new ResourceGovernor().setMaxSteps(0);
+    }
+
+    private static ResourceLimitExceededException exceeds(Runnable job) {
+        try {
+            job.run();
+        } catch (ResourceLimitExceededException e) {
+            return e;
+        }
+        throw new AssertionError("No limit was exceeded");
+    }
+}
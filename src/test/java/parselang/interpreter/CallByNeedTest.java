@@ -0,0 +1,73 @@
+package parselang.interpreter;
+
+import org.junit.Test;
+import parselang.Programs;
+import parselang.interpreter.profiling.DeclarationProfiler;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests passing lazy parameters by need
+ */
+public class CallByNeedTest {
+
+    private static final String FOUR = "Four < SimpleExpression = 'four ' Expression x' {\n" +
+            "    x+x+x+x;\n" +
+            "}\n" +
+            "Id < SimpleExpression = 'id' WhiteSpace* '(' WhiteSpace* Expression n WhiteSpace* ')' {\n" +
+            "    n\n" +
+            "}\n" +
+            "Tick < SimpleExpression = 'tick' {\n" +
+            "    ~data['ticks'] = ~data['ticks'] + 1;\n" +
+            "    ~data['ticks'];\n" +
+            "}\n" +
+            "Reset < SimpleExpression = 'reset' {\n" +
+            "    ~data['ticks'] = 0;\n" +
+            "    0;\n" +
+            "}\n";
+
+    @Test
+    public void stableArgumentIsEvaluatedAtMostOnce() throws Exception {
+        DeclarationProfiler byNeed = new DeclarationProfiler();
+        assertEquals("20", run(FOUR + "four id(5)", true, byNeed));
+        assertEquals(1, byNeed.snapshot().get("Id").getCalls());
+    }
+
+    @Test
+    public void argumentIsEvaluatedOnEveryUseByName() throws Exception {
+        DeclarationProfiler byName = new DeclarationProfiler();
+        assertEquals("20", run(FOUR + "four id(5)", false, byName));
+        assertEquals(4, byName.snapshot().get("Id").getCalls());
+    }
+
+    @Test
+    public void unusedArgumentIsNotEvaluated() throws Exception {
+        DeclarationProfiler byNeed = new DeclarationProfiler();
+        String program = "Ignore < SimpleExpression = 'ignore ' Expression x' {\n" +
+                "    0;\n" +
+                "}\n" + FOUR + "ignore id(5)";
+        assertEquals("0", run(program, true, byNeed));
+        assertNull(byNeed.snapshot().get("Id"));
+    }
+
+    @Test
+    public void argumentUsingStoredDataIsEvaluatedOnEveryUse() throws Exception {
+        assertEquals("[0, 10]", run(FOUR + "[reset, four tick]", true, null));
+    }
+
+    @Test
+    public void loopConditionsKeepWorking() throws Exception {
+        String forloop = Files.readString(Paths.get("examples", "forloop.plang"));
+        assertEquals(run(forloop, false, null), run(forloop, true, null));
+    }
+
+    private static String run(String program, boolean callByNeed, DeclarationProfiler profiler) throws Exception {
+        Interpreter interpreter = new Interpreter(CompiledProgram.compile(Programs.parse(program)));
+        interpreter.setCallByNeed(callByNeed);
+        interpreter.setProfiler(profiler);
+        return interpreter.run().toString();
+    }
+}
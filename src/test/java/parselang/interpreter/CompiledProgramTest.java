@@ -0,0 +1,164 @@
+package parselang.interpreter;
+
+import org.junit.Test;
+import parselang.Programs;
+import parselang.interpreter.data.PLData;
+import parselang.interpreter.data.PLList;
+import parselang.parser.data.NonTerminal;
+import parselang.parser.data.AST;
+import parselang.parser.data.ASTElem;
+import parselang.parser.data.ASTElemList;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests that compiled programs are independent of the tree they were compiled from and of their executions
+ */
+public class CompiledProgramTest {
+
+    private static final String COUNTER = "Start < SimpleExpression = 'start' {\n" +
+            "    ~data['counter'] = 40;\n" +
+            "    ~data['counter'];\n" +
+            "}\n" +
+            "Increment < SimpleExpression = 'increment' {\n" +
+            "    ~data['counter'] = ~data['counter'] + 1;\n" +
+            "    ~data['counter'];\n" +
+            "}\n" +
+            "[start, increment, increment]";
+
+    @Test
+    public void compilingDoesNotModifyTheTree() throws Exception {
+        AST tree = Programs.parse(COUNTER);
+        AST original = (AST) tree.copy();
+        CompiledProgram first = CompiledProgram.compile(tree);
+        assertFalse(hasOverriddenSemantics(tree));
+        assertEquals(original, tree);
+        CompiledProgram second = CompiledProgram.compile(tree);
+        assertEquals("[40, 41, 42]", new Interpreter(first).run().toString());
+        assertEquals("[40, 41, 42]", new Interpreter(second).run().toString());
+    }
+
+    @Test
+    public void executionsDoNotShareStoredData() throws Exception {
+        CompiledProgram program = CompiledProgram.compile(Programs.parse(COUNTER));
+        Interpreter first = new Interpreter(program);
+        Interpreter second = new Interpreter(program);
+        assertEquals("[40, 41, 42]", first.run().toString());
+        assertEquals("[40, 41, 42]", second.run().toString());
+        assertEquals("[40, 41, 42]", first.run().toString());
+    }
+
+    @Test
+    public void concurrentExecutionsDoNotShareStoredData() throws Exception {
+        StringBuilder program = new StringBuilder(COUNTER.substring(0, COUNTER.lastIndexOf('[')));
+        StringBuilder expected = new StringBuilder("[40");
+        program.append("[start");
+        for (int i = 1; i <= 50; i++) {
+            program.append(", increment");
+            expected.append(", ").append(40 + i);
+        }
+        program.append("]");
+        expected.append("]");
+        CompiledProgram compiled = CompiledProgram.compile(Programs.parse(program.toString()));
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch ready = new CountDownLatch(threads);
+            List<Future<List<String>>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                results.add(executor.submit(() -> {
+                    Interpreter interpreter = new Interpreter(compiled);
+                    ready.countDown();
+                    ready.await();
+                    List<String> runs = new ArrayList<>();
+                    for (int i = 0; i < 20; i++) {
+                        runs.add(interpreter.run().toString());
+                    }
+                    return runs;
+                }));
+            }
+            for (Future<List<String>> result : results) {
+                for (String run : result.get(60, TimeUnit.SECONDS)) {
+                    assertEquals(expected.toString(), run);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void literalsAreEvaluatedOnce() throws Exception {
+        CompiledProgram program = CompiledProgram.compile(Programs.parse("['hello', 12345, 1.5, true]"));
+        List<AST> literals = literals(program.getExpression());
+        assertEquals(4, literals.size());
+        for (AST literal : literals) {
+            assertNotNull(literal.toString(), literal.getOverriddenSemantics());
+        }
+        List<PLData> first = elements(new Interpreter(program).run());
+        List<PLData> second = elements(new Interpreter(program).run());
+        assertEquals("hello", first.get(0).toString());
+        assertEquals("12345", first.get(1).toString());
+        assertEquals("true", first.get(3).toString());
+        for (int i = 0; i < 4; i++) {
+            assertSame(first.get(i), second.get(i));
+            assertSame(literals.get(i).getOverriddenSemantics(), first.get(i));
+        }
+    }
+
+    @Test
+    public void literalsChangedByDeclarationsAreNotInterned() throws Exception {
+        //as in madness.plang, 9 is parsed as 8 by a user declaration
+        CompiledProgram program = CompiledProgram.compile(Programs.parse("Evil < Number = '9' {\n" +
+                "    8\n" +
+                "}\n" +
+                "[199725, 12345]"));
+        List<AST> literals = literals(program.getExpression());
+        assertEquals(2, literals.size());
+        assertNull(literals.get(0).getOverriddenSemantics());
+        assertNotNull(literals.get(1).getOverriddenSemantics());
+        assertEquals("[188725, 12345]", new Interpreter(program).run().toString());
+        assertEquals("[188725, 12345]", new Interpreter(program).run().toString());
+    }
+
+    private static List<PLData> elements(PLData list) {
+        List<PLData> res = new ArrayList<>();
+        ((PLList) list).forEach(res::add);
+        return res;
+    }
+
+    private static List<AST> literals(ASTElem tree) {
+        List<AST> res = new ArrayList<>();
+        collectLiterals(tree, res);
+        return res;
+    }
+
+    private static void collectLiterals(ASTElem tree, List<AST> res) {
+        if (tree instanceof ASTElemList) {
+            ((ASTElemList) tree).forEach(astElem -> collectLiterals(astElem, res));
+            return;
+        }
+        AST ast = (AST) tree;
+        if (ast.getRoot() instanceof NonTerminal && ((NonTerminal) ast.getRoot()).getName().endsWith("Literal")
+                && !((NonTerminal) ast.getRoot()).getName().equals("ListLiteral")) {
+            res.add(ast);
+        } else {
+            ast.getChildren().forEach(astElem -> collectLiterals(astElem, res));
+        }
+    }
+
+    private static boolean hasOverriddenSemantics(ASTElem tree) {
+        if (tree instanceof ASTElemList) {
+            return ((ASTElemList) tree).stream().anyMatch(CompiledProgramTest::hasOverriddenSemantics);
+        }
+        return ((AST) tree).hasOverriddenSemantics() || ((AST) tree).getChildren().stream().anyMatch(CompiledProgramTest::hasOverriddenSemantics);
+    }
+}
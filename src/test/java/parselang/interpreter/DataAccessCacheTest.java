@@ -0,0 +1,81 @@
+package parselang.interpreter;
+
+import org.junit.Test;
+import parselang.Programs;
+import parselang.interpreter.data.PLInteger;
+import parselang.interpreter.data.PLMap;
+import parselang.interpreter.data.PLString;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests that inline caches of ~data access paths reuse lookups without returning stale values
+ */
+public class DataAccessCacheTest {
+
+    @Test
+    public void repeatedLookupHits() {
+        PLMap map = new PLMap();
+        map.set(new PLString("k"), PLInteger.valueOf(1));
+        DataAccessCache cache = new DataAccessCache(1);
+        assertEquals(PLInteger.valueOf(1), cache.get(0, map, new PLString("k")));
+        //an equal key that is a different object still hits
+        assertEquals(PLInteger.valueOf(1), cache.get(0, map, new PLString("k")));
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    public void otherKeyOrMapMisses() {
+        PLMap map = new PLMap();
+        map.set(new PLString("a"), PLInteger.valueOf(1));
+        map.set(new PLString("b"), PLInteger.valueOf(2));
+        PLMap replacement = new PLMap();
+        replacement.set(new PLString("a"), PLInteger.valueOf(3));
+        DataAccessCache cache = new DataAccessCache(1);
+        assertEquals(PLInteger.valueOf(1), cache.get(0, map, new PLString("a")));
+        assertEquals(PLInteger.valueOf(2), cache.get(0, map, new PLString("b")));
+        //the container was reassigned, so the cached entry of the old map must not be used
+        assertEquals(PLInteger.valueOf(3), cache.get(0, replacement, new PLString("a")));
+        assertEquals(3, cache.getMisses());
+        assertEquals(0, cache.getHits());
+    }
+
+    @Test
+    public void writesGoThroughToTheMap() {
+        PLMap map = new PLMap();
+        DataAccessCache cache = new DataAccessCache(2);
+        cache.set(1, map, new PLString("k"), PLInteger.valueOf(1));
+        assertEquals(PLInteger.valueOf(1), map.get(new PLString("k")));
+        cache.set(1, map, new PLString("k"), PLInteger.valueOf(2));
+        assertEquals(PLInteger.valueOf(2), map.get(new PLString("k")));
+        assertEquals(PLInteger.valueOf(2), cache.get(1, map, new PLString("k")));
+        //values set without the cache are seen through the cached entry
+        map.set(new PLString("k"), PLInteger.valueOf(3));
+        assertEquals(PLInteger.valueOf(3), cache.get(1, map, new PLString("k")));
+        assertEquals(1, cache.getMisses());
+        assertEquals(3, cache.getHits());
+    }
+
+    @Test
+    public void reassignedContainerInProgram() throws Exception {
+        String program = "Get < SimpleExpression = 'get' {\n" +
+                "    ~data['m']['k'];\n" +
+                "}\n" +
+                "Setup < SimpleExpression = 'setup' {\n" +
+                "    ~data['m']['k'] = 1;\n" +
+                "    ~data['other']['k'] = 2;\n" +
+                "    0;\n" +
+                "}\n" +
+                "Swap < SimpleExpression = 'swap' {\n" +
+                "    ~data['m'] = ~data['other'];\n" +
+                "    0;\n" +
+                "}\n" +
+                "Put < SimpleExpression = 'put' {\n" +
+                "    ~data['m']['k'] = 3;\n" +
+                "    0;\n" +
+                "}\n" +
+                "[setup, get, get, swap, get, put, get, ~data['other']['k']]";
+        assertEquals("[0, 1, 1, 0, 2, 0, 3, 3]", Programs.run(program).toString());
+    }
+}
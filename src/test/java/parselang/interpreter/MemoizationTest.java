@@ -0,0 +1,80 @@
+package parselang.interpreter;
+
+import org.junit.Test;
+import parselang.Programs;
+import parselang.parser.data.ParseRule;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests that only calls to pure user declarations with immutable arguments and results are memoized
+ */
+public class MemoizationTest {
+
+    private static final String FIB = "Fib < SimpleExpression = 'fib' WhiteSpace* '(' WhiteSpace* Expression n WhiteSpace* ')' {\n" +
+            "    ~if(n < 2, n, fib(n - 1) + fib(n - 2))\n" +
+            "}\n";
+
+    private static final String TICK = "Tick < SimpleExpression = 'tick' {\n" +
+            "    ~data['ticks'] = ~data['ticks'] + 1;\n" +
+            "    ~data['ticks'];\n" +
+            "}\n" +
+            "Reset < SimpleExpression = 'reset' {\n" +
+            "    ~data['ticks'] = 0;\n" +
+            "    0;\n" +
+            "}\n" +
+            "Twice < SimpleExpression = 'twice' WhiteSpace* '(' WhiteSpace* Expression n WhiteSpace* ')' {\n" +
+            "    tick + n\n" +
+            "}\n";
+
+    private static final String WRAP = "Wrap < SimpleExpression = 'wrap' WhiteSpace* '(' WhiteSpace* Expression n WhiteSpace* ')' {\n" +
+            "    [n]\n" +
+            "}\n" +
+            "First < SimpleExpression = 'first' WhiteSpace* '(' WhiteSpace* Expression l WhiteSpace* ')' {\n" +
+            "    l[0]\n" +
+            "}\n";
+
+    @Test
+    public void pureDeclarationsAreMemoized() throws Exception {
+        Interpreter interpreter = interpreter(FIB + "fib(20)");
+        assertEquals("6765", interpreter.run().toString());
+        ResultCache cache = interpreter.getResultCache();
+        assertTrue("Hits: " + cache.getHits(), cache.getHits() > 0);
+        //every fib(n) for n <= 20 is computed once
+        assertEquals(21, cache.getMisses());
+    }
+
+    @Test
+    public void declarationsUsingStoredDataAreNotMemoized() throws Exception {
+        Interpreter interpreter = interpreter(TICK + "[reset, tick, tick, twice(10), twice(10)]");
+        assertEquals("[0, 1, 2, 13, 14]", interpreter.run().toString());
+        assertEquals(0, interpreter.getResultCache().size());
+        assertEquals(0, interpreter.getResultCache().getHits());
+    }
+
+    @Test
+    public void purityIsTransitive() throws Exception {
+        CompiledProgram program = CompiledProgram.compile(Programs.parse(TICK + FIB + "0"));
+        PurityAnalysis purity = program.getPurity();
+        assertTrue(purity.isPure(declaration(program, "Fib")));
+        assertFalse(purity.isPure(declaration(program, "Tick")));
+        assertFalse(purity.isPure(declaration(program, "Twice")));
+    }
+
+    @Test
+    public void mutableArgumentsAndResultsAreNotMemoized() throws Exception {
+        Interpreter interpreter = interpreter(WRAP + "[wrap(1), wrap(1), first([2]), first([2])]");
+        assertEquals("[[1], [1], 2, 2]", interpreter.run().toString());
+        assertEquals(0, interpreter.getResultCache().size());
+    }
+
+    private static Interpreter interpreter(String program) throws Exception {
+        Interpreter interpreter = new Interpreter(CompiledProgram.compile(Programs.parse(program)));
+        interpreter.setMemoization(1000);
+        return interpreter;
+    }
+
+    private static ParseRule declaration(CompiledProgram program, String name) {
+        return program.getDeclarations().keySet().stream().filter(rule -> rule.getLHS().getName().equals(name)).findFirst().orElseThrow();
+    }
+}
@@ -0,0 +1,56 @@
+package parselang.interpreter;
+
+import org.junit.Test;
+import parselang.Programs;
+import parselang.interpreter.data.PLData;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests the execution of calls to user declarations in and outside of tail position
+ */
+public class TailCallTest {
+
+    private static final String COUNT = "Count < SimpleExpression = 'count' WhiteSpace* '(' WhiteSpace* Expression n WhiteSpace* ',' WhiteSpace* Expression acc WhiteSpace* ')' {\n" +
+            "    ~if(n==0, acc, count(n - 1, acc + 2))\n" +
+            "}\n";
+
+    private static final String SUM = "Sum < SimpleExpression = 'sum' WhiteSpace* '(' WhiteSpace* Expression n WhiteSpace* ')' {\n" +
+            "    ~if(n==0, 0, n + sum(n - 1))\n" +
+            "}\n";
+
+    @Test
+    public void deepTailCallRunsInConstantStack() throws Exception {
+        CompiledProgram program = CompiledProgram.compile(Programs.parse(COUNT + "count(10000, 0)"));
+        //without tail calls, 10000 nested calls do not fit in a stack of 128 kilobytes
+        assertEquals("20000", runWithStack(program, 128 << 10).toString());
+    }
+
+    @Test
+    public void callOutsideTailPositionRecurses() throws Exception {
+        CompiledProgram program = CompiledProgram.compile(Programs.parse(SUM + "sum(200)"));
+        assertEquals("20100", runWithStack(program, 64 << 20).toString());
+    }
+
+    @Test
+    public void tailCallsInArgumentsAreExecuted() throws Exception {
+        CompiledProgram program = CompiledProgram.compile(Programs.parse(COUNT + SUM + "[count(count(5, 5), 0), sum(count(100, 0))]"));
+        assertEquals("[30, 20100]", runWithStack(program, 64 << 20).toString());
+    }
+
+    private static PLData runWithStack(CompiledProgram program, long stackSize) throws Exception {
+        CompletableFuture<PLData> result = new CompletableFuture<>();
+        Thread thread = new Thread(null, () -> {
+            try {
+                result.complete(new Interpreter(program).run());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        }, "TailCallTest", stackSize);
+        thread.start();
+        return result.get(60, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,98 @@
+package parselang.interpreter.data;
+
+import org.junit.Test;
+
+import java.math.BigInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the promotion of integers from long to BigInteger arithmetic and back
+ */
+public class PLIntegerTest {
+
+    private static final PLInteger MAX = PLInteger.valueOf(Long.MAX_VALUE);
+    private static final PLInteger MIN = PLInteger.valueOf(Long.MIN_VALUE);
+    private static final PLInteger ONE = PLInteger.valueOf(1);
+    private static final PLInteger MINUS_ONE = PLInteger.valueOf(-1);
+    private static final BigInteger BIG_MAX = BigInteger.valueOf(Long.MAX_VALUE);
+    private static final BigInteger BIG_MIN = BigInteger.valueOf(Long.MIN_VALUE);
+
+    @Test
+    public void additionPromotesOnOverflow() {
+        assertBig(BIG_MAX.add(BigInteger.ONE), MAX.add(ONE));
+        assertBig(BIG_MIN.subtract(BigInteger.ONE), MIN.add(MINUS_ONE));
+        assertSmall(Long.MAX_VALUE - 1, MAX.add(MINUS_ONE));
+    }
+
+    @Test
+    public void subtractionPromotesOnOverflow() {
+        assertBig(BIG_MIN.subtract(BigInteger.ONE), MIN.subtract(ONE));
+        assertBig(BIG_MAX.add(BigInteger.ONE), MAX.subtract(MINUS_ONE));
+        assertSmall(Long.MIN_VALUE + 1, MIN.subtract(MINUS_ONE));
+    }
+
+    @Test
+    public void multiplicationPromotesOnOverflow() {
+        assertBig(BIG_MAX.multiply(BigInteger.TWO), MAX.multiply(PLInteger.valueOf(2)));
+        assertBig(BIG_MIN.negate(), MIN.multiply(MINUS_ONE));
+        assertSmall(-Long.MAX_VALUE, MAX.multiply(MINUS_ONE));
+    }
+
+    @Test
+    public void divisionOfMinByMinusOnePromotes() {
+        assertBig(BIG_MIN.negate(), MIN.divide(MINUS_ONE));
+        assertSmall(0, MIN.remainder(MINUS_ONE));
+        assertSmall(Long.MIN_VALUE / 2, MIN.divide(PLInteger.valueOf(2)));
+    }
+
+    @Test
+    public void negationOfMinPromotes() {
+        assertBig(BIG_MIN.negate(), MIN.negate());
+        assertSmall(-Long.MAX_VALUE, MAX.negate());
+        assertSmall(Long.MIN_VALUE, MIN.negate().negate());
+    }
+
+    @Test
+    public void resultsThatFitAgainAreDemoted() {
+        PLInteger big = MAX.add(ONE);
+        assertSmall(Long.MAX_VALUE, big.subtract(ONE));
+        assertSmall(Long.MIN_VALUE, big.negate());
+        assertSmall(1, big.divide(big));
+    }
+
+    @Test
+    public void equalValuesAreEqualInEitherRepresentation() {
+        PLInteger demoted = MAX.add(ONE).subtract(ONE);
+        assertEquals(MAX, demoted);
+        assertEquals(MAX.hashCode(), demoted.hashCode());
+        assertEquals(new PLInteger(BIG_MIN), MIN);
+        assertEquals(new PLInteger("9223372036854775808"), MAX.add(ONE));
+        assertEquals(new PLInteger("9223372036854775808").hashCode(), MAX.add(ONE).hashCode());
+        assertNotEquals(MAX, MAX.add(ONE));
+    }
+
+    @Test
+    public void parsingChoosesTheRepresentation() {
+        assertSmall(Long.MAX_VALUE, new PLInteger("9223372036854775807"));
+        assertSmall(Long.MIN_VALUE, new PLInteger("-9223372036854775808"));
+        assertBig(BIG_MIN.subtract(BigInteger.ONE), new PLInteger("-9223372036854775809"));
+    }
+
+    @Test
+    public void comparisonWorksAcrossRepresentations() {
+        assertTrue(MAX.compareTo(MAX.add(ONE)) < 0);
+        assertTrue(MIN.subtract(ONE).compareTo(MIN) < 0);
+        assertEquals(0, MAX.compareTo(MAX.add(ONE).subtract(ONE)));
+    }
+
+    private static void assertSmall(long expected, PLInteger actual) {
+        assertTrue(actual + " should be stored as a long", actual.fitsInLong());
+        assertEquals(expected, actual.longValue());
+    }
+
+    private static void assertBig(BigInteger expected, PLInteger actual) {
+        assertFalse(actual + " should be stored as a BigInteger", actual.fitsInLong());
+        assertEquals(expected, actual.get());
+    }
+}
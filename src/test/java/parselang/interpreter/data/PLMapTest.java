@@ -0,0 +1,115 @@
+package parselang.interpreter.data;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the open addressing table of maps
+ */
+public class PLMapTest {
+
+    @Test
+    public void collidingKeysAreProbed() {
+        PLMap map = new PLMap();
+        for (int i = 0; i < 50; i++) {
+            map.set(new Key(i, 42), PLInteger.valueOf(i));
+        }
+        assertEquals(50, map.size());
+        for (int i = 0; i < 50; i++) {
+            assertEquals(PLInteger.valueOf(i), map.get(new Key(i, 42)));
+        }
+        map.set(new Key(17, 42), new PLString("replaced"));
+        assertEquals(50, map.size());
+        assertEquals(new PLString("replaced"), map.get(new Key(17, 42)));
+    }
+
+    @Test
+    public void rehashingKeepsEntriesAndTheirIndices() {
+        PLMap map = new PLMap();
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, map.getEntry(PLInteger.valueOf(i * 7919)));
+        }
+        for (int i = 0; i < 1000; i++) {
+            map.setEntryValue(i, PLInteger.valueOf(i));
+        }
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, map.getEntry(PLInteger.valueOf(i * 7919)));
+            assertEquals(PLInteger.valueOf(i), map.get(PLInteger.valueOf(i * 7919)));
+        }
+        assertEquals(1000, map.size());
+    }
+
+    @Test
+    public void entriesKeepInsertionOrder() {
+        PLMap map = new PLMap();
+        map.set(new PLString("z"), PLInteger.valueOf(1));
+        map.set(PLInteger.valueOf(3), PLInteger.valueOf(2));
+        map.set(new PLString("a"), PLInteger.valueOf(3));
+        for (int i = 0; i < 20; i++) {
+            map.set(new Key(i, i % 3), PLInteger.valueOf(i));
+        }
+        map.set(new PLString("z"), PLInteger.valueOf(4));
+        assertTrue(map.toString(), map.toString().startsWith("{z : 4, 3 : 2, a : 3, key0 : 0, key1 : 1, key2 : 2,"));
+        assertTrue(map.toString(), map.toString().endsWith("key19 : 19}"));
+    }
+
+    @Test
+    public void missingKeysGetAnEmptyMap() {
+        PLMap map = new PLMap();
+        PLData created = map.get(new PLString("missing"));
+        assertEquals(new PLMap(), created);
+        assertSame(created, map.get(new PLString("missing")));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void equalityDoesNotDependOnInsertionOrder() {
+        PLMap first = new PLMap();
+        PLMap second = new PLMap();
+        for (int i = 0; i < 30; i++) {
+            first.set(PLInteger.valueOf(i), new PLString("v" + i));
+            second.set(PLInteger.valueOf(29 - i), new PLString("v" + (29 - i)));
+        }
+        assertEquals(first, second);
+        assertEquals(first.hashCode(), second.hashCode());
+        second.set(PLInteger.valueOf(0), new PLString("other"));
+        assertNotEquals(first, second);
+        second.set(PLInteger.valueOf(0), new PLString("v0"));
+        second.set(PLInteger.valueOf(30), new PLString("v30"));
+        assertNotEquals(first, second);
+    }
+
+    /**
+     * Key with a chosen hash code, to force collisions
+     */
+    private static final class Key extends PLData {
+        private final int id;
+        private final int hash;
+
+        private Key(int id, int hash) {
+            this.id = id;
+            this.hash = hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && ((Key) o).id == id;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public String toString() {
+            return "key" + id;
+        }
+
+        @Override
+        public String classString() {
+            return "key";
+        }
+    }
+}
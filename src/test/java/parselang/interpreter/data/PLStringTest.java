@@ -0,0 +1,77 @@
+package parselang.interpreter.data;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests strings that are concatenations of other strings
+ */
+public class PLStringTest {
+
+    @Test
+    public void concatenationEqualsFlatString() {
+        PLString concatenated = concat(new PLString("hello"), new PLString(", "), new PLString("world"));
+        PLString flat = new PLString("hello, world");
+        assertEquals(flat, concatenated);
+        assertEquals(concatenated, flat);
+        assertEquals(flat.hashCode(), concatenated.hashCode());
+        assertEquals(12, concatenated.length());
+        assertEquals("hello, world", concatenated.toString());
+    }
+
+    @Test
+    public void differentSplitsOfTheSameStringAreEqual() {
+        PLString first = concat(new PLString("ab"), new PLString("cd"));
+        PLString second = concat(new PLString("a"), concat(new PLString("bc"), new PLString("d")));
+        assertEquals(first, second);
+        assertEquals(first.hashCode(), second.hashCode());
+        assertNotEquals(first, concat(new PLString("ab"), new PLString("ce")));
+        assertNotEquals(first, new PLString("abc"));
+    }
+
+    @Test
+    public void emptyAndRepeatedPartsAreConcatenated() {
+        PLString part = new PLString("la");
+        PLString empty = concat();
+        assertEquals(0, empty.length());
+        assertEquals(new PLString(""), empty);
+        assertEquals("lalala", concat(part, empty, part, part, empty).toString());
+    }
+
+    @Test
+    public void deepConcatenationFlattensWithoutRecursion() {
+        PLString left = new PLString("");
+        PLString right = new PLString("");
+        for (int i = 0; i < 200_000; i++) {
+            left = concat(left, new PLString("x"));
+            right = concat(new PLString("x"), right);
+        }
+        assertEquals(200_000, left.length());
+        assertEquals(left, right);
+        assertEquals(new PLString(String.join("", Collections.nCopies(200_000, "x"))).hashCode(), left.hashCode());
+    }
+
+    @Test
+    public void valueOfKeepsStringsAndConvertsOtherValues() {
+        PLString string = new PLString("7");
+        assertSame(string, PLString.valueOf(string));
+        assertEquals(string, PLString.valueOf(PLInteger.valueOf(7)));
+        PLString concatenated = concat(new PLString("a"), new PLString("b"));
+        assertEquals(concatenated, new PLString((PLData) concatenated));
+    }
+
+    @Test
+    public void concatenationsCanBeUsedAsMapKeys() {
+        PLMap map = new PLMap();
+        map.set(new PLString("key"), PLInteger.valueOf(1));
+        assertEquals(PLInteger.valueOf(1), map.get(concat(new PLString("k"), new PLString("ey"))));
+    }
+
+    private static PLString concat(PLString... parts) {
+        return new PLString(Arrays.asList(parts));
+    }
+}
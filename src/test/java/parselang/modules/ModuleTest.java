@@ -0,0 +1,85 @@
+package parselang.modules;
+
+import org.junit.Test;
+import parselang.Programs;
+import parselang.interpreter.CompiledProgram;
+import parselang.interpreter.Interpreter;
+import parselang.parser.ParseRuleStorage;
+import parselang.parser.data.AST;
+import parselang.parser.parsers.RecursiveParser;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests that modules are read back as they were written and that malformed modules are rejected
+ */
+public class ModuleTest {
+
+    private static final String LIBRARY = "Double < SimpleExpression = 'double' WhiteSpace* '(' WhiteSpace* Expression n WhiteSpace* ')' {\n" +
+            "    n * 2\n" +
+            "}\n" +
+            "Quadruple < SimpleExpression = 'quadruple' WhiteSpace* '(' WhiteSpace* Expression n WhiteSpace* ')' {\n" +
+            "    double(double(n))\n" +
+            "}\n";
+
+    @Test
+    public void roundTripKeepsDeclarations() throws Exception {
+        Module module = Module.compile(LIBRARY, Programs.storage());
+        Module read = Module.read(new ByteArrayInputStream(bytes(module)));
+        assertEquals(module.getDeclarations(), read.getDeclarations());
+        assertEquals(2, read.getDeclarations().size());
+        assertArrayEquals(bytes(module), bytes(read));
+    }
+
+    @Test
+    public void readModuleCanBeUsed() throws Exception {
+        Module module = Module.read(new ByteArrayInputStream(bytes(Module.compile(LIBRARY, Programs.storage()))));
+        ParseRuleStorage storage = Programs.storage();
+        module.applyTo(storage);
+        RecursiveParser parser = new RecursiveParser();
+        parser.setVerbosity(0);
+        AST tree = parser.readFile("quadruple(5) + double(1)", storage, Programs.TOPLEVEL).getTree();
+        assertEquals("22", new Interpreter(CompiledProgram.compile(tree, module.getDeclarations())).run().toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void modulesOnlyContainDeclarations() throws Exception {
+        Module.compile(LIBRARY + "double(3)", Programs.storage());
+    }
+
+    @Test
+    public void wrongMagicIsRejected() throws Exception {
+        byte[] bytes = bytes(Module.compile(LIBRARY, Programs.storage()));
+        bytes[0] ^= 0x01;
+        try {
+            Module.read(new ByteArrayInputStream(bytes));
+            fail("Read a module with a wrong magic number");
+        } catch (IOException e) {
+            assertEquals("Not a ParseLang module", e.getMessage());
+        }
+    }
+
+    @Test
+    public void truncatedModulesAreRejected() throws Exception {
+        byte[] bytes = bytes(Module.compile(LIBRARY, Programs.storage()));
+        for (int length : new int[]{0, 3, bytes.length / 2, bytes.length - 1}) {
+            try {
+                Module.read(new ByteArrayInputStream(Arrays.copyOf(bytes, length)));
+                fail("Read a module truncated to " + length + " of " + bytes.length + " bytes");
+            } catch (IOException e) {
+                //expected
+            }
+        }
+    }
+
+    private static byte[] bytes(Module module) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        module.write(out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,100 @@
+package parselang.modules;
+
+import org.junit.Test;
+import parselang.Programs;
+import parselang.interpreter.Interpreter;
+import parselang.parser.data.AST;
+import parselang.parser.data.NonTerminal;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests that program images are read back as they were written and that corrupt images are rejected
+ */
+public class ProgramImageTest {
+
+    private static final String PROGRAM = "Gcd < SimpleExpression = 'gcd' WhiteSpace* '(' WhiteSpace* Expression a WhiteSpace* ',' WhiteSpace* Expression b WhiteSpace* ')' {\n" +
+            "    ~if(b == 0, a, gcd(b, a % b))\n" +
+            "}\n" +
+            "gcd(1071, 462)";
+
+    @Test
+    public void roundTripKeepsTree() throws Exception {
+        AST tree = Programs.parse(PROGRAM);
+        ProgramImage read = ProgramImage.read(new ByteArrayInputStream(bytes(new ProgramImage(tree, Collections.emptyMap()))));
+        assertEquals(tree, read.getTree());
+        assertEquals(PROGRAM, read.getTree().getOriginalString());
+        assertTrue(read.isImageOf(PROGRAM));
+        assertFalse(read.isImageOf(PROGRAM + " "));
+        assertEquals("21", new Interpreter(read.compile()).run().toString());
+    }
+
+    @Test
+    public void changedSourceIsRejected() throws Exception {
+        byte[] bytes = bytes(new ProgramImage(Programs.parse(PROGRAM), Collections.emptyMap()));
+        int at = indexOf(bytes, "1071".getBytes(StandardCharsets.UTF_8));
+        bytes[at] = '2';
+        try {
+            ProgramImage.read(new ByteArrayInputStream(bytes));
+            fail("Read an image whose source was changed");
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("corrupt"));
+        }
+    }
+
+    @Test
+    public void wrongMagicIsRejected() throws Exception {
+        byte[] bytes = bytes(new ProgramImage(Programs.parse(PROGRAM), Collections.emptyMap()));
+        bytes[0] ^= 0x01;
+        try {
+            ProgramImage.read(new ByteArrayInputStream(bytes));
+            fail("Read an image with a wrong magic number");
+        } catch (IOException e) {
+            assertEquals("Not a ParseLang program image", e.getMessage());
+        }
+    }
+
+    @Test
+    public void truncatedImagesAreRejected() throws Exception {
+        byte[] bytes = bytes(new ProgramImage(Programs.parse(PROGRAM), Collections.emptyMap()));
+        for (int length : new int[]{0, 3, bytes.length / 2, bytes.length - 1}) {
+            try {
+                ProgramImage.read(new ByteArrayInputStream(Arrays.copyOf(bytes, length)));
+                fail("Read an image truncated to " + length + " of " + bytes.length + " bytes");
+            } catch (IOException e) {
+                //expected
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void onlyEntireProgramsAreStored() throws Exception {
+        new ProgramImage(new AST(new NonTerminal("Expression", false), PROGRAM), Collections.emptyMap());
+    }
+
+    private static byte[] bytes(ProgramImage image) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        image.write(out);
+        return out.toByteArray();
+    }
+
+    private static int indexOf(byte[] bytes, byte[] part) {
+        outer:
+        for (int i = 0; i + part.length <= bytes.length; i++) {
+            for (int j = 0; j < part.length; j++) {
+                if (bytes[i + j] != part[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        throw new AssertionError("Part not found");
+    }
+}
@@ -0,0 +1,116 @@
+package parselang.parser.analysis;
+
+import org.junit.Test;
+import parselang.parser.ParseRuleStorage;
+import parselang.parser.analysis.GrammarIssue.Kind;
+import parselang.parser.data.NonTerminal;
+import parselang.parser.data.ParseRule;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+import static parselang.parser.ParseRuleStorage.*;
+
+/**
+ * Tests the issues the analyzer reports for a small grammar with known problems
+ */
+public class GrammarAnalyzerTest {
+
+    private static final NonTerminal START = nonTerm("Start");
+
+    /**
+     * Start = Overlap | Recursive | 'n' Nullable | 'u' Unreachable
+     * Overlap = 'x' 'y' | 'x' 'z'
+     * Recursive = Inner 'b', Inner = Recursive 'c' | 'c'
+     * Nullable = 'n'* | 'n' 'm'
+     * Unreachable = 'u' | Missing 'v', where Missing has no rules
+     * Unused = 'e'
+     */
+    private static List<ParseRule> rules() {
+        return Arrays.asList(
+                new ParseRule(START).addRhs(nonTerm("Overlap")),
+                new ParseRule(START).addRhs(nonTerm("Recursive")),
+                new ParseRule(START).addRhs(term("n"), nonTerm("Nullable")),
+                new ParseRule(START).addRhs(term("u"), nonTerm("Unreachable")),
+                new ParseRule("Overlap").addRhs(term("x"), term("y")),
+                new ParseRule("Overlap").addRhs(term("x"), term("z")),
+                new ParseRule("Recursive").addRhs(nonTerm("Inner"), term("b")),
+                new ParseRule("Inner").addRhs(nonTerm("Recursive"), term("c")),
+                new ParseRule("Inner").addRhs(term("c")),
+                new ParseRule("Nullable").addRhs(star(term("n"))),
+                new ParseRule("Nullable").addRhs(term("n"), term("m")),
+                new ParseRule("Unreachable").addRhs(term("u")),
+                new ParseRule("Unreachable").addRhs(nonTerm("Missing"), term("v")),
+                new ParseRule("Unused").addRhs(term("e"))
+        );
+    }
+
+    private static GrammarReport analyze() {
+        ParseRuleStorage storage = new ParseRuleStorage();
+        storage.prepare(GrammarAnalyzerTest::rules, START);
+        return new GrammarAnalyzer().analyze(storage);
+    }
+
+    @Test
+    public void reportsOverlap() {
+        //the left recursive and nullable rules overlap with the rules after them as well
+        assertEquals(Arrays.asList("Inner: 2 rules apply to 'c': [Inner = Recursive c] [Inner = c]",
+                "Nullable: 2 rules apply to 'n': [Nullable = (n*)] [Nullable = n m]",
+                "Overlap: 2 rules apply to 'x': [Overlap = x y] [Overlap = x z]"),
+                describe(analyze().getIssues(Kind.FIRST_PLUS_OVERLAP)));
+    }
+
+    @Test
+    public void reportsLeftRecursion() {
+        assertEquals(Arrays.asList("Inner: can be parsed again at the same position through Inner, Recursive"),
+                describe(analyze().getIssues(Kind.LEFT_RECURSION)));
+    }
+
+    @Test
+    public void reportsNullableShadowing() {
+        assertEquals(Arrays.asList("Nullable: rule Nullable = (n*) can match the empty string and is tried before 1 other rules for 'n'"),
+                describe(analyze().getIssues(Kind.NULLABLE_SHADOWING)));
+    }
+
+    @Test
+    public void reportsUnreachable() {
+        GrammarReport report = analyze();
+        assertEquals(Arrays.asList("Unreachable: rule Unreachable = Missing v is never tried, Missing has no rules yet"),
+                describe(report.getIssues(Kind.UNREACHABLE_RULE)));
+        assertEquals(Arrays.asList("Unused: can not be reached from Start"),
+                describe(report.getIssues(Kind.UNREACHABLE_NONTERMINAL)));
+    }
+
+    @Test
+    public void costDoesNotDependOnNames() {
+        //the same recursive grammar, once with names in the order the nonterminals are used and once reversed
+        GrammarReport forward = analyzeRecursive("A", "B", "C");
+        GrammarReport reversed = analyzeRecursive("C", "B", "A");
+        assertEquals(forward.getCost(nonTerm("A")), reversed.getCost(nonTerm("C")));
+        assertEquals(forward.getCost(nonTerm("B")), reversed.getCost(nonTerm("B")));
+        assertEquals(forward.getCost(nonTerm("C")), reversed.getCost(nonTerm("A")));
+    }
+
+    /**
+     * Start = p, p = 'p' q q | 'z', q = 'q' p | r, r = 'r' p | 's'
+     */
+    private static GrammarReport analyzeRecursive(String p, String q, String r) {
+        ParseRuleStorage storage = new ParseRuleStorage();
+        storage.prepare(() -> Arrays.asList(
+                new ParseRule(START).addRhs(nonTerm(p)),
+                new ParseRule(p).addRhs(term("p"), nonTerm(q), nonTerm(q)),
+                new ParseRule(p).addRhs(term("z")),
+                new ParseRule(q).addRhs(term("q"), nonTerm(p)),
+                new ParseRule(q).addRhs(nonTerm(r)),
+                new ParseRule(r).addRhs(term("r"), nonTerm(p)),
+                new ParseRule(r).addRhs(term("s"))
+        ), START);
+        return new GrammarAnalyzer().analyze(storage);
+    }
+
+    private static List<String> describe(List<GrammarIssue> issues) {
+        return issues.stream().map(issue -> issue.getNonTerminal() + ": " + issue.getMessage()).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,62 @@
+package parselang.parser.data;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the conversion of indices to lines and columns
+ */
+public class SourceMapTest {
+
+    @Test
+    public void emptyString() {
+        SourceMap map = new SourceMap("");
+        assertEquals(1, map.getLineCount());
+        assertEquals("1:1", map.format(0));
+    }
+
+    @Test
+    public void indexAtEnd() {
+        SourceMap map = new SourceMap("ab\ncd");
+        assertEquals("2:3", map.format(5));
+    }
+
+    @Test
+    public void trailingNewline() {
+        SourceMap map = new SourceMap("ab\n");
+        assertEquals(2, map.getLineCount());
+        assertEquals("1:3", map.format(2));
+        assertEquals("2:1", map.format(3));
+    }
+
+    @Test
+    public void carriageReturnBelongsToLine() {
+        SourceMap map = new SourceMap("a\r\nb\r\n");
+        assertEquals(3, map.getLineCount());
+        assertEquals("1:2", map.format(1));
+        assertEquals("1:3", map.format(2));
+        assertEquals("2:1", map.format(3));
+        assertEquals("2:2", map.format(4));
+        assertEquals("3:1", map.format(6));
+    }
+
+    @Test
+    public void manyLines() {
+        SourceMap map = new SourceMap("x\n".repeat(1000));
+        assertEquals(1001, map.getLineCount());
+        assertEquals(500, map.getLine(999));
+        assertEquals(2, map.getColumn(999));
+        assertEquals("1001:1", map.format(2000));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void indexAfterEnd() {
+        new SourceMap("ab").getLine(3);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void negativeIndex() {
+        new SourceMap("ab").getLine(-1);
+    }
+}
@@ -0,0 +1,144 @@
+package parselang.parser.parsers;
+
+import org.junit.Test;
+import parselang.Programs;
+import parselang.parser.ParseRuleStorage;
+import parselang.parser.data.AST;
+import parselang.parser.data.ASTElem;
+import parselang.parser.data.ASTElemList;
+import parselang.parser.exceptions.ParseErrorException;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests that parsing after an edit gives the same tree and grammar as parsing the edited buffer from scratch
+ */
+public class IncrementalParserTest {
+
+    private static final String BEFORE = "Inc < SimpleExpression = 'inc' WhiteSpace* '(' WhiteSpace* Expression n WhiteSpace* ')' {\n" +
+            "    n + 1\n" +
+            "}\n";
+
+    private static final String DECLARATION = "Double < SimpleExpression = 'double' WhiteSpace* '(' WhiteSpace* Expression n WhiteSpace* ')' {\n" +
+            "    n * 2\n" +
+            "}\n";
+
+    private static final String AFTER = "Quadruple < SimpleExpression = 'quadruple' WhiteSpace* '(' WhiteSpace* Expression n WhiteSpace* ')' {\n" +
+            "    double(double(n))\n" +
+            "}\n";
+
+    private static final String EXPRESSION = "quadruple(inc(1)) + double(3)";
+
+    private static final String SOURCE = BEFORE + DECLARATION + AFTER + EXPRESSION;
+
+    @Test
+    public void editBeforeDeclaration() throws Exception {
+        assertEditMatches(SOURCE.indexOf("n + 1") + 4, 1, "2");
+        assertEditMatches(0, 0, "\n\n");
+    }
+
+    @Test
+    public void editInsideDeclarationBody() throws Exception {
+        assertEditMatches(SOURCE.indexOf("n * 2") + 4, 1, "(1 + 1)");
+    }
+
+    @Test
+    public void editChangingGrammar() throws Exception {
+        //changes the rule of the declaration, so the declaration and expression after it are parsed again
+        int rhs = SOURCE.indexOf("'double' WhiteSpace*") + "'double'".length();
+        assertEditMatches(rhs, 0, " WhiteSpace*");
+        assertEditMatches(SOURCE.indexOf("Double < SimpleExpression"), "Double < SimpleExpression".length(), "Double > SimpleExpression");
+    }
+
+    @Test
+    public void editAfterDeclaration() throws Exception {
+        assertEditMatches(SOURCE.indexOf("double(double(n))"), "double(double(n))".length(), "inc(double(double(n)))");
+        assertEditMatches(SOURCE.indexOf("double(double(n))") + "double(".length(), 0, "1 + ");
+    }
+
+    @Test
+    public void editExpression() throws Exception {
+        assertEditMatches(SOURCE.indexOf(EXPRESSION), EXPRESSION.length(), "inc(double(4))");
+        assertEditMatches(SOURCE.length(), 0, " + 1");
+    }
+
+    @Test
+    public void addAndRemoveDeclaration() throws Exception {
+        String added = "Triple < SimpleExpression = 'triple' WhiteSpace* '(' WhiteSpace* Expression n WhiteSpace* ')' {\n" +
+                "    n * 3\n" +
+                "}\n";
+        IncrementalParser parser = parser();
+        int at = SOURCE.indexOf(AFTER);
+        assertSameAsFullParse(parser, parser.edit(at, 0, added).getTree());
+        assertSameAsFullParse(parser, parser.edit(at, added.length(), "").getTree());
+        assertEquals(SOURCE, parser.getSource());
+    }
+
+    @Test
+    public void editInLastDeclarationOnlyParsesThatDeclaration() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 20; i++) {
+            sb.append("Inc").append(i).append(" < SimpleExpression = 'inc").append(i).append("' WhiteSpace* '(' WhiteSpace* Expression n WhiteSpace* ')' {\n")
+                    .append("    n + ").append(i).append("\n")
+                    .append("}\n");
+        }
+        String source = sb + "inc19(1)";
+        IncrementalParser parser = new IncrementalParser(Programs.storage());
+        parser.parse(source);
+        long full = parser.getRuleAttempts();
+        int at = source.lastIndexOf("n + 19") + 4;
+        assertSameAsFullParse(parser, parser.edit(at, 2, "(19 + 1)").getTree());
+        long edit = parser.getRuleAttempts();
+        assertTrue("Edit attempted " + edit + " rules, parsing the buffer " + full, edit * 10 < full);
+    }
+
+    @Test
+    public void declarationsBeforeEditAreReused() throws Exception {
+        IncrementalParser parser = new IncrementalParser(Programs.storage());
+        List<ASTElem> before = declarations(parser.parse(SOURCE).getTree());
+        List<ASTElem> after = declarations(parser.edit(SOURCE.indexOf(EXPRESSION), 0, "1 + ").getTree());
+        assertEquals(before.size(), after.size());
+        for (int i = 0; i < before.size(); i++) {
+            assertSame(before.get(i), after.get(i));
+        }
+        //the declarations after an edit that does not move them are reused as well
+        after = declarations(parser.edit(SOURCE.indexOf("n + 1") + 4, 1, "2").getTree());
+        assertNotSame(before.get(0), after.get(0));
+        assertSame(before.get(1), after.get(1));
+        assertSame(before.get(2), after.get(2));
+    }
+
+    private static List<ASTElem> declarations(AST tree) {
+        List<ASTElem> res = new ArrayList<>();
+        for (ASTElem pair : (ASTElemList) tree.getChildren().get(0)) {
+            Iterator<ASTElem> whiteSpaceAndDeclaration = ((ASTElemList) pair).iterator();
+            whiteSpaceAndDeclaration.next();
+            res.add(whiteSpaceAndDeclaration.next());
+        }
+        return res;
+    }
+
+    private static IncrementalParser parser() throws ParseErrorException {
+        IncrementalParser parser = new IncrementalParser(Programs.storage());
+        parser.parse(SOURCE);
+        return parser;
+    }
+
+    private static void assertEditMatches(int offset, int removedLength, String inserted) throws ParseErrorException {
+        IncrementalParser parser = parser();
+        assertSameAsFullParse(parser, parser.edit(offset, removedLength, inserted).getTree());
+        assertEquals(SOURCE.substring(0, offset) + inserted + SOURCE.substring(offset + removedLength), parser.getSource());
+    }
+
+    private static void assertSameAsFullParse(IncrementalParser parser, AST tree) throws ParseErrorException {
+        RecursiveParser full = new RecursiveParser();
+        full.setVerbosity(0);
+        ParseRuleStorage storage = Programs.storage();
+        assertEquals(full.readFile(parser.getSource(), storage, Programs.TOPLEVEL).getTree(), tree);
+        assertEquals(storage.getCustomRules(), parser.getStorage().getCustomRules());
+    }
+}
@@ -0,0 +1,100 @@
+package parselang.parser.profiling;
+
+import org.junit.Test;
+import parselang.parser.profiling.ParseTrace.Kind;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+import static parselang.parser.ParseRuleStorage.nonTerm;
+
+/**
+ * Tests that a ParseTrace keeps the most recent events and that they are rendered correctly after older ones were
+ * overwritten
+ */
+public class ParseTraceTest {
+
+    private static final String EVENT = "\\{\"name\":\"[A-E]\",\"ph\":\"[BEi]\",\"ts\":\\d+\\.\\d{3},\"pid\":1,\"tid\":1(,\"s\":\"t\")?"
+            + ",\"args\":\\{\"offset\":\\d+,\"position\":\"1:\\d+\"(,\"failed\":true)?}},?";
+
+    /**
+     * Records 11 events in a trace that keeps 8, overwriting the first 3, among which the start of A and B:
+     * A(B C? B! D) E, where ? fails and ! is a memo hit
+     */
+    private static ParseTrace trace() {
+        ParseTrace trace = new ParseTrace(5);
+        trace.setSource("abc");
+        trace.record(Kind.ENTER, nonTerm("A"), 0);
+        trace.record(Kind.ENTER, nonTerm("B"), 0);
+        trace.record(Kind.EXIT, nonTerm("B"), 1);
+        trace.record(Kind.ENTER, nonTerm("C"), 1);
+        trace.record(Kind.FAIL, nonTerm("C"), 1);
+        trace.record(Kind.MEMO_HIT, nonTerm("B"), 1);
+        trace.record(Kind.ENTER, nonTerm("D"), 1);
+        trace.record(Kind.EXIT, nonTerm("D"), 2);
+        trace.record(Kind.EXIT, nonTerm("A"), 2);
+        trace.record(Kind.ENTER, nonTerm("E"), 2);
+        trace.record(Kind.EXIT, nonTerm("E"), 3);
+        return trace;
+    }
+
+    @Test
+    public void oldestEventsAreOverwritten() {
+        ParseTrace trace = trace();
+        assertEquals(11, trace.getRecorded());
+        assertEquals(3, trace.getFirstKept());
+        List<TraceEvent> events = trace.getEvents(0, 100);
+        assertEquals(Arrays.asList(3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L), events.stream().map(TraceEvent::getSequence).collect(Collectors.toList()));
+        assertEquals("C", events.get(0).getNode().toString());
+        assertEquals(Kind.ENTER, events.get(0).getKind());
+        assertEquals(1, events.get(0).getDepth());
+        assertEquals(Kind.EXIT, events.get(7).getKind());
+        assertEquals(3, events.get(7).getOffset());
+        assertEquals(0, events.get(7).getDepth());
+        assertEquals(Arrays.asList(6L, 7L), trace.getEvents(6, 2).stream().map(TraceEvent::getSequence).collect(Collectors.toList()));
+        trace.clear();
+        assertEquals(0, trace.getFirstKept());
+        assertTrue(trace.getEvents(0, 100).isEmpty());
+    }
+
+    @Test
+    public void renderStartsAtOldestKeptEvent() {
+        String[] lines = TraceDumper.render(trace(), 1, 3).split("\n");
+        assertEquals(3, lines.length);
+        assertTrue(lines[0], lines[0].matches(" +3 +\\+0\\.000 ms  ENTER C @1:2"));
+        assertTrue(lines[1], lines[1].matches(" +4 +\\+\\d+\\.\\d{3} ms  FAIL C @1:2"));
+        assertTrue(lines[2], lines[2].matches(" +5 +\\+\\d+\\.\\d{3} ms  MEMO_HIT B @1:2"));
+        //indentation is relative to the shallowest event in the window
+        String[] window = TraceDumper.render(trace(), 6, 5).split("\n");
+        assertEquals(5, window.length);
+        assertTrue(window[0], window[0].endsWith("ms    ENTER D @1:2"));
+        assertTrue(window[2], window[2].endsWith("ms  EXIT A @1:3"));
+        assertTrue(window[4], window[4].endsWith("ms  EXIT E @1:4"));
+        assertEquals("", TraceDumper.render(trace(), 11, 5));
+    }
+
+    @Test
+    public void chromeTraceSkipsEndsOfOverwrittenStarts() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        TraceDumper.writeChromeTrace(trace(), sb);
+        String[] lines = sb.toString().split("\n");
+        assertEquals("{\"traceEvents\":[", lines[0]);
+        assertEquals("]}", lines[lines.length - 1]);
+        StringBuilder phases = new StringBuilder();
+        int open = 0;
+        for (int i = 1; i < lines.length - 1; i++) {
+            assertTrue(lines[i], lines[i].matches(EVENT));
+            assertEquals(lines[i], i < lines.length - 2, lines[i].endsWith(","));
+            char phase = lines[i].charAt(lines[i].indexOf("\"ph\":\"") + 6);
+            phases.append(phase);
+            open += phase == 'B' ? 1 : phase == 'E' ? -1 : 0;
+            assertTrue("More ends than starts", open >= 0);
+        }
+        //the end of A is left out, because its start was overwritten
+        assertEquals("BEiBEBE", phases.toString());
+        assertEquals(0, open);
+        assertTrue(lines[2], lines[2].contains("\"failed\":true"));
+    }
+}
@@ -0,0 +1,143 @@
+package parselang.runner;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the admission limits, timeouts, cache and responses of a ProgramServer over a loopback socket
+ */
+public class ProgramServerTest {
+
+    private ProgramServer server;
+    private final List<Socket> stalled = new ArrayList<>();
+
+    @After
+    public void tearDown() throws IOException {
+        for (Socket socket : stalled) {
+            socket.close();
+        }
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    @Test
+    public void sameProgramIsOnlyCompiledOnce() throws Exception {
+        ProgramClient client = start(2, 1 << 20);
+        assertEquals("[3, 4]", client.run("[1 + 2, 2 + 2]"));
+        assertEquals("[3, 4]", client.run("[1 + 2, 2 + 2]"));
+        assertEquals("[3, 5]", client.run("[1 + 2, 2 + 3]"));
+        assertEquals(2, server.getMetrics().getCacheMisses());
+        assertEquals(1, server.getMetrics().getCacheHits());
+        assertEquals(3, server.getMetrics().getRequests());
+    }
+
+    @Test
+    public void longResponsesAreTruncated() throws Exception {
+        ProgramClient client = start(2, 1 << 20);
+        //squaring a 10 digit number 12 times gives a number of about 40000 digits
+        String response = client.run("Square < SimpleExpression = 'square' WhiteSpace* '(' WhiteSpace* Expression x WhiteSpace* ')' {\n" +
+                "    x * x\n" +
+                "}\n" +
+                "square(square(square(square(square(square(square(square(square(square(square(square(1234567890))))))))))))");
+        assertEquals(20000, response.length());
+        assertTrue(response, response.chars().allMatch(Character::isDigit));
+    }
+
+    @Test
+    public void tooLongProgramsAreRejected() throws Exception {
+        ProgramClient client = start(2, 10);
+        try {
+            client.run("[1, 2, 3, 4, 5]");
+            fail("Ran a program longer than the limit");
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("at most 10 bytes"));
+        }
+        assertEquals(1, server.getMetrics().getRejected());
+    }
+
+    @Test
+    public void programsAreRejectedWhileOthersAreAdmitted() throws Exception {
+        ProgramClient client = start(1, 1 << 20);
+        //announces a program but never sends it, holding the only admission
+        DataOutputStream out = new DataOutputStream(stall().getOutputStream());
+        out.writeByte(ProgramServer.RUN);
+        out.writeInt(100);
+        out.flush();
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (server.getMetrics().getRequests() == 0) {
+            assertTrue("Stalled request was not received", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+        try {
+            client.run("1");
+            fail("Ran a program while another one was admitted");
+        } catch (IllegalStateException e) {
+            assertEquals("Too many programs running", e.getMessage());
+        }
+        assertEquals(1, server.getMetrics().getRejected());
+    }
+
+    @Test
+    public void connectionsAreRejectedWhileWorkersAndQueueAreFull() throws Exception {
+        ProgramClient client = start(1, 1 << 20);
+        //two workers and a queue of one
+        for (int i = 0; i < 3; i++) {
+            stall();
+        }
+        try {
+            client.run("1");
+            fail("Ran a program while all workers were busy");
+        } catch (IllegalStateException e) {
+            assertEquals("Too many connections waiting", e.getMessage());
+        }
+        assertEquals(1, server.getMetrics().getRejected());
+    }
+
+    @Test
+    public void stalledClientsAreDisconnected() throws Exception {
+        ProgramClient client = start(1, 1 << 20);
+        server.setReadTimeout(200);
+        Socket socket = stall();
+        socket.setSoTimeout(10_000);
+        assertEquals(-1, socket.getInputStream().read());
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (server.getMetrics().getRejected() == 0) {
+            assertTrue("Timeout was not counted", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+        assertEquals("3", client.run("1 + 2"));
+    }
+
+    private ProgramClient start(int maxConcurrent, int maxProgramLength) throws IOException {
+        server = new ProgramServer(0, maxConcurrent, maxProgramLength, 16);
+        Thread serving = new Thread(() -> {
+            try {
+                server.serve();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        serving.setDaemon(true);
+        serving.start();
+        return new ProgramClient(server.getPort());
+    }
+
+    /**
+     * Connects to the server without sending anything, keeping a worker busy until the connection is closed
+     */
+    private Socket stall() throws IOException {
+        Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+        stalled.add(socket);
+        return socket;
+    }
+}
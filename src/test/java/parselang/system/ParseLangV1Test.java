@@ -0,0 +1,220 @@
+package parselang.system;
+
+import org.junit.AfterClass;
+import org.junit.Assume;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import parselang.governor.ResourceGovernor;
+import parselang.governor.ResourceLimitExceededException;
+import parselang.interpreter.CompiledProgram;
+import parselang.interpreter.Interpreter;
+import parselang.interpreter.data.PLData;
+import parselang.languages.ParseLangV1;
+import parselang.parser.ParseResult;
+import parselang.parser.ParseRuleStorage;
+import parselang.parser.data.NonTerminal;
+import parselang.parser.exceptions.ParseErrorException;
+import parselang.parser.parsers.RecursiveParser;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Parses and interprets every program in the system resources of ParseLang V1 and in the examples, and compares the outcome and the number
+ * of memo lookups, rule attempts and interpreter steps with the baseline. Counts may be at most
+ * {@value #TOLERANCE_PERCENT}% higher than in the baseline, such that algorithmic regressions fail regardless of the
+ * speed of the machine. Run with -Dparselang.updateBaselines=true to write the current outcomes and counts as the new
+ * baseline instead. Programs are run with a ResourceGovernor, such that programs that do not finish or recurse too
+ * deep fail deterministically with a limit that is exceeded. Programs with outcome skip in the baseline are not run.
+ */
+@RunWith(Parameterized.class)
+public class ParseLangV1Test {
+
+    private static final Path RESOURCES = Paths.get("src", "test", "resources", "system", "parseLangV1");
+    private static final Path EXAMPLES = Paths.get("examples");
+    private static final Path BASELINE = Paths.get("src", "test", "resources", "baselines", "parseLangV1.csv");
+    private static final boolean UPDATE = Boolean.getBoolean("parselang.updateBaselines");
+    private static final int TOLERANCE_PERCENT = 10;
+    private static final long TIMEOUT_SECONDS = 120;
+    private static final long STACK_SIZE = 64L << 20;
+    private static final String SKIP = "skip";
+    private static final long MAX_RULE_ATTEMPTS = 1_000_000;
+    private static final long MAX_STEPS = 200_000;
+    private static final int MAX_DEPTH = 5_000;
+    private static final NonTerminal TOPLEVEL = new NonTerminal("HighLevel", false);
+
+    private static final Map<String, Measurement> baseline = readBaseline();
+    private static final Map<String, Measurement> measured = new ConcurrentSkipListMap<>();
+    private static ParseRuleStorage prepared = null;
+
+    private final String name;
+
+    /**
+     * Creates a test of a single program
+     * @param name path of the program, relative to the resources of ParseLang V1, or to the working directory for
+     *             examples
+     */
+    public ParseLangV1Test(String name) {
+        this.name = name;
+    }
+
+    @Parameterized.Parameters(name = "{0}")
+    public static Collection<Object[]> programs() throws IOException {
+        List<Object[]> res = new ArrayList<>();
+        for (Path root : new Path[]{RESOURCES, EXAMPLES}) {
+            Path base = root == EXAMPLES ? Paths.get("") : root;
+            try (Stream<Path> files = Files.walk(root)) {
+                files.filter(path -> path.toString().endsWith(".plang"))
+                        .map(path -> base.relativize(path).toString().replace('\\', '/'))
+                        .sorted()
+                        .forEach(name -> res.add(new Object[]{name}));
+            }
+        }
+        return res;
+    }
+
+    private static Path resolve(String name) {
+        return name.startsWith(EXAMPLES + "/") ? Paths.get(name) : RESOURCES.resolve(name);
+    }
+
+    @Test
+    public void matchesBaseline() throws Exception {
+        Measurement expected = baseline.get(name);
+        if (expected != null && expected.outcome.startsWith(SKIP)) {
+            measured.put(name, expected);
+            Assume.assumeTrue(name + " is skipped: " + expected.outcome, false);
+        }
+        Measurement actual = measure(Files.readString(resolve(name)));
+        measured.put(name, actual);
+        if (UPDATE) {
+            return;
+        }
+        assertNotNull("No baseline for " + name + ", run with -Dparselang.updateBaselines=true to create it", expected);
+        assertEquals("Outcome of " + name, expected.outcome, actual.outcome);
+        if (actual.outcome.equals(StackOverflowError.class.getSimpleName())) {
+            //where the stack overflows depends on the virtual machine
+            return;
+        }
+        assertWithinTolerance("memo lookups", expected.memoLookups, actual.memoLookups);
+        assertWithinTolerance("rule attempts", expected.ruleAttempts, actual.ruleAttempts);
+        assertWithinTolerance("interpreter steps", expected.steps, actual.steps);
+    }
+
+    @AfterClass
+    public static void writeBaseline() throws IOException {
+        if (!UPDATE) {
+            return;
+        }
+        StringBuilder sb = new StringBuilder("file,memoLookups,ruleAttempts,steps,outcome\n");
+        measured.forEach((file, m) -> sb.append(file).append(",").append(m.memoLookups).append(",").append(m.ruleAttempts)
+                .append(",").append(m.steps).append(",").append(m.outcome.replace("\\", "\\\\").replace("\n", "\\n")).append("\n"));
+        Files.writeString(BASELINE, sb.toString());
+    }
+
+    private void assertWithinTolerance(String what, long expected, long actual) {
+        long allowed = expected + expected * TOLERANCE_PERCENT / 100;
+        assertTrue("Number of " + what + " of " + name + " grew from " + expected + " to " + actual, actual <= allowed);
+    }
+
+    private static synchronized ParseRuleStorage prepared() {
+        if (prepared == null) {
+            prepared = new ParseRuleStorage();
+            prepared.prepare(new ParseLangV1(), TOPLEVEL);
+        }
+        return new ParseRuleStorage(prepared);
+    }
+
+    /**
+     * Parses and interprets a program on a thread with a large stack, giving up after a timeout
+     */
+    private static Measurement measure(String program) throws Exception {
+        ParseRuleStorage storage = prepared();
+        CompletableFuture<Measurement> result = new CompletableFuture<>();
+        Thread worker = new Thread(null, () -> {
+            ResourceGovernor governor = new ResourceGovernor();
+            governor.setMaxRuleAttempts(MAX_RULE_ATTEMPTS);
+            governor.setMaxSteps(MAX_STEPS);
+            governor.setMaxDepth(MAX_DEPTH);
+            RecursiveParser parser = new RecursiveParser();
+            parser.setVerbosity(0);
+            parser.setGovernor(governor);
+            Interpreter interpreter = null;
+            String outcome;
+            try {
+                ParseResult parsed = parser.readFile(program, storage, TOPLEVEL);
+                interpreter = new Interpreter(CompiledProgram.compile(parsed.getTree()));
+                interpreter.setGovernor(governor);
+                PLData value = interpreter.run();
+                outcome = value == null ? "null" : "value " + value.classString() + " " + value;
+            } catch (ParseErrorException e) {
+                outcome = "parse error " + e.getMessage();
+            } catch (ResourceLimitExceededException e) {
+                outcome = "limit exceeded " + e.getResource();
+            } catch (StackOverflowError e) {
+                outcome = StackOverflowError.class.getSimpleName();
+            } catch (RuntimeException e) {
+                outcome = "runtime error " + e;
+            }
+            result.complete(new Measurement(parser.getMemoLookups(), parser.getRuleAttempts(), interpreter == null ? 0 : interpreter.getSteps(), outcome));
+        }, "ParseLangV1Test", STACK_SIZE);
+        worker.setDaemon(true);
+        worker.start();
+        try {
+            return result.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            fail("Program did not finish within " + TIMEOUT_SECONDS + " seconds");
+            return null;
+        }
+    }
+
+    private static Map<String, Measurement> readBaseline() {
+        Map<String, Measurement> res = new HashMap<>();
+        if (!Files.exists(BASELINE)) {
+            return res;
+        }
+        try {
+            List<String> lines = Files.readAllLines(BASELINE);
+            for (String line : lines.subList(1, lines.size())) {
+                String[] fields = line.split(",", 5);
+                res.put(fields[0], new Measurement(Long.parseLong(fields[1]), Long.parseLong(fields[2]), Long.parseLong(fields[3]), unescape(fields[4])));
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Baseline " + BASELINE + " could not be read", e);
+        }
+        return res;
+    }
+
+    private static String unescape(String escaped) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < escaped.length(); i++) {
+            char c = escaped.charAt(i);
+            if (c == '\\' && i + 1 < escaped.length()) {
+                c = escaped.charAt(++i) == 'n' ? '\n' : escaped.charAt(i);
+            }
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    private static class Measurement {
+        private final long memoLookups;
+        private final long ruleAttempts;
+        private final long steps;
+        private final String outcome;
+
+        private Measurement(long memoLookups, long ruleAttempts, long steps, String outcome) {
+            this.memoLookups = memoLookups;
+            this.ruleAttempts = ruleAttempts;
+            this.steps = steps;
+            this.outcome = outcome;
+        }
+    }
+}